@@ -3,6 +3,7 @@ package com.azuredoom.levelingcore;
 import com.hypixel.hytale.common.plugin.PluginIdentifier;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerReadyEvent;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
@@ -27,6 +28,7 @@ import com.azuredoom.levelingcore.compat.placeholderlib.PlaceholderLibCompat;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.config.internal.ConfigBootstrap;
 import com.azuredoom.levelingcore.config.internal.ConfigManager;
+import com.azuredoom.levelingcore.config.internal.LevelProgression;
 import com.azuredoom.levelingcore.config.internal.LevelingCoreConfig;
 import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
 import com.azuredoom.levelingcore.interaction.OpenSkillsInteraction;
@@ -44,18 +46,15 @@ import com.azuredoom.levelingcore.level.rewards.LevelRewards;
 import com.azuredoom.levelingcore.level.rewards.RewardEntry;
 import com.azuredoom.levelingcore.level.stats.StatsPerLevelMapping;
 import com.azuredoom.levelingcore.level.xp.XPValues;
+import com.azuredoom.levelingcore.session.PlayerSessionManager;
+import com.azuredoom.levelingcore.session.PlayerSlotComponent;
 import com.azuredoom.levelingcore.systems.damage.MobDamageFilter;
 import com.azuredoom.levelingcore.systems.damage.PlayerDamageFilter;
-import com.azuredoom.levelingcore.systems.level.LevelDownTickingSystem;
-import com.azuredoom.levelingcore.systems.level.LevelUpTickingSystem;
 import com.azuredoom.levelingcore.systems.level.MobLevelSystem;
 import com.azuredoom.levelingcore.systems.nameplate.ShowLvlHeadSystem;
 import com.azuredoom.levelingcore.systems.xp.GainXPEventSystem;
 import com.azuredoom.levelingcore.systems.xp.LossXPEventSystem;
-import com.azuredoom.levelingcore.ui.hud.XPBarHud;
-import com.azuredoom.levelingcore.utils.HudPlayerReady;
-import com.azuredoom.levelingcore.utils.LevelDownListenerRegistrar;
-import com.azuredoom.levelingcore.utils.LevelUpListenerRegistrar;
+import com.azuredoom.levelingcore.utils.XpAwardNotifier;
 
 @SuppressWarnings("removal")
 public class LevelingCore extends JavaPlugin {
@@ -68,6 +67,8 @@ public class LevelingCore extends JavaPlugin {
 
     public static final ConfigBootstrap.Bootstrap bootstrap = ConfigBootstrap.bootstrap(configPath);
 
+    public static final LevelProgression levelProgression = bootstrap.progression();
+
     public static LevelServiceImpl levelingService;
 
     private static LevelingCore INSTANCE;
@@ -144,13 +145,25 @@ public class LevelingCore extends JavaPlugin {
         this.config.save();
         LOGGER.at(Level.INFO).log("Leveling Core initializing");
         levelingService = bootstrap.service();
+        levelingService.registerXpAwardListener(new XpAwardNotifier(config));
         this.registerAllCommands();
         this.registerAllSystems();
         this.getCodecRegistry(Interaction.CODEC)
             .register("SkillPointResetInteraction", SkillPointResetInteraction.class, SkillPointResetInteraction.CODEC);
         this.getCodecRegistry(Interaction.CODEC)
             .register("OpenSkillsInteraction", OpenSkillsInteraction.class, OpenSkillsInteraction.CODEC);
-        // Adds the UI to the player and ensures AP stats are applied
+        // Starts loading the player's data as soon as the connection is accepted so it is cached by the time they
+        // are ready
+        this.getEventRegistry()
+            .registerGlobal(PlayerConnectEvent.class, (event) -> {
+                var uuid = event.getPlayerRef().getUuid();
+                LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
+                    levelService.cancelEviction(uuid);
+                    levelService.markOnline(uuid);
+                    levelService.loadAsync(uuid);
+                });
+            });
+        // Ensures AP stats are applied and opens the player session, which registers the listeners and adds the UI
         this.getEventRegistry()
             .registerGlobal(
                 PlayerReadyEvent.class,
@@ -159,35 +172,45 @@ public class LevelingCore extends JavaPlugin {
                     if (player != null) {
                         LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
                             var uuid = player.getUuid();
-                            var level = levelService.getLevel(uuid);
-                            int targetTotal;
-                            if (config.get().isUseStatsPerLevelMapping()) {
-                                targetTotal = statsPerLevel.getCumulativeStatsForLevel(
-                                    level,
-                                    level * config.get().getStatsPerLevel()
-                                );
-                            } else {
-                                targetTotal = level * config.get().getStatsPerLevel();
-                            }
-                            var used = levelService.getUsedAbilityPoints(uuid);
-                            var currentTotal = levelService.getAvailableAbilityPoints(uuid) + used;
-
-                            if (currentTotal != targetTotal) {
-                                levelService.setAbilityPoints(uuid, Math.max(0, targetTotal));
-                            }
+                            var world = playerReadyEvent.getPlayerRef().getStore().getExternalData().getWorld();
+                            // Runs once the data requested on connect is cached, so the world thread never waits for it
+                            levelService.whenLoaded(uuid, world::execute, () -> {
+                                var level = levelService.getLevel(uuid);
+                                int targetTotal;
+                                if (config.get().isUseStatsPerLevelMapping()) {
+                                    targetTotal = statsPerLevel.getCumulativeStatsForLevel(
+                                        level,
+                                        level * config.get().getStatsPerLevel()
+                                    );
+                                } else {
+                                    targetTotal = level * config.get().getStatsPerLevel();
+                                }
+                                var used = levelService.getUsedAbilityPoints(uuid);
+                                var currentTotal = levelService.getAvailableAbilityPoints(uuid) + used;
+
+                                if (currentTotal != targetTotal) {
+                                    levelService.setAbilityPoints(uuid, Math.max(0, targetTotal));
+                                }
+                            });
                         });
                     }
-                    HudPlayerReady.ready(playerReadyEvent, config);
+                    PlayerSessionManager.open(playerReadyEvent, config);
                 })
             );
+        PlayerSlotComponent.setComponentType(
+            this.getEntityStoreRegistry().registerComponent(PlayerSlotComponent.class, PlayerSlotComponent::new)
+        );
         this.getEntityStoreRegistry().registerSystem(new PlayerDamageFilter(config));
         this.getEntityStoreRegistry().registerSystem(new MobDamageFilter(config));
-        // Cleans up various weak hash maps and UI on player disconnect
+        // Closes the player session and flushes the player data on disconnect
         this.getEventRegistry()
             .registerGlobal(PlayerDisconnectEvent.class, (event) -> {
-                XPBarHud.removeHud(event.getPlayerRef());
-                LevelUpListenerRegistrar.clear(event.getPlayerRef().getUuid());
-                LevelDownListenerRegistrar.clear(event.getPlayerRef().getUuid());
+                PlayerSessionManager.close(event.getPlayerRef().getUuid());
+                LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
+                    var uuid = event.getPlayerRef().getUuid();
+                    levelService.unregisterListeners(uuid);
+                    levelService.flushAndScheduleEviction(uuid, levelingCoreConfig.persistence.evictionDelayMs);
+                });
             });
 
         var showLvlHeadSystem = new ShowLvlHeadSystem(config);
@@ -261,12 +284,11 @@ public class LevelingCore extends JavaPlugin {
         getCommandRegistry().registerCommand(new RemoveLevelCommand(config));
         getCommandRegistry().registerCommand(new RemoveXpCommand(config));
         getCommandRegistry().registerCommand(new ShowStatsCommand(config));
+        getCommandRegistry().registerCommand(new DatabaseStatusCommand());
     }
 
     public void registerAllSystems() {
         getEntityStoreRegistry().registerSystem(new MobLevelSystem(config));
-        getEntityStoreRegistry().registerSystem(new LevelUpTickingSystem(config));
-        getEntityStoreRegistry().registerSystem(new LevelDownTickingSystem(config));
         getEntityStoreRegistry().registerSystem(new GainXPEventSystem(config));
         getEntityStoreRegistry().registerSystem(new LossXPEventSystem(config));
     }
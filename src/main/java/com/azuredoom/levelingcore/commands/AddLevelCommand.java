@@ -18,6 +18,7 @@ import javax.annotation.Nonnull;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
 import com.azuredoom.levelingcore.utils.LevelingUtil;
 
 /**
@@ -61,12 +62,26 @@ public class AddLevelCommand extends AbstractPlayerCommand {
             commandContext.sendMessage(CommandLang.NOT_INITIALIZED);
             return;
         }
-        playerRef = this.playerArg.get(commandContext);
+        var target = this.playerArg.get(commandContext);
         var levelRef = this.levelArg.get(commandContext);
         if (levelRef > LevelingUtil.computeMaxLevel()) {
             commandContext.sendMessage(CommandLang.ADD_LEVEL_MAX_LEVEL_REACHED);
             return;
         }
+        // The target's data is loaded off the world thread first, so the command never waits for the database
+        levelService.whenLoaded(
+            target.getUuid(),
+            world::execute,
+            () -> addLevel(commandContext, levelService, target, levelRef)
+        );
+    }
+
+    private void addLevel(
+        CommandContext commandContext,
+        LevelServiceImpl levelService,
+        PlayerRef playerRef,
+        int levelRef
+    ) {
         var playerUUID = playerRef.getUuid();
         levelService.addLevel(playerUUID, levelRef);
         var level = levelService.getLevel(playerUUID);
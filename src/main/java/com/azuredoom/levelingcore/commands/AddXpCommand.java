@@ -18,6 +18,7 @@ import javax.annotation.Nonnull;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
 import com.azuredoom.levelingcore.utils.LevelingUtil;
 
 /**
@@ -61,8 +62,22 @@ public class AddXpCommand extends AbstractPlayerCommand {
             commandContext.sendMessage(CommandLang.NOT_INITIALIZED);
             return;
         }
-        playerRef = this.playerArg.get(commandContext);
+        var target = this.playerArg.get(commandContext);
         var xpRef = this.xpArg.get(commandContext);
+        // The target's data is loaded off the world thread first, so the command never waits for the database
+        levelService.whenLoaded(
+            target.getUuid(),
+            world::execute,
+            () -> addXp(commandContext, levelService, target, xpRef)
+        );
+    }
+
+    private void addXp(
+        CommandContext commandContext,
+        LevelServiceImpl levelService,
+        PlayerRef playerRef,
+        int xpRef
+    ) {
         var playerUUID = playerRef.getUuid();
         int maxLevel = LevelingUtil.computeMaxLevel();
         int currentLevel = levelService.getLevel(playerUUID);
@@ -0,0 +1,50 @@
+package com.azuredoom.levelingcore.commands;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import com.azuredoom.levelingcore.api.LevelingCoreApi;
+import com.azuredoom.levelingcore.lang.CommandLang;
+
+/**
+ * The DatabaseStatusCommand class shows administrators the state of the database circuit breaker together with the
+ * number of players whose changes are waiting to be written, so a database outage and its recovery can be followed
+ * in game.
+ */
+public class DatabaseStatusCommand extends AbstractPlayerCommand {
+
+    public DatabaseStatusCommand() {
+        super("dbstatus", "Shows the LevelingCore database status");
+        this.requirePermission("levelingcore.dbstatus");
+    }
+
+    @Override
+    protected void execute(
+        @NonNullDecl CommandContext commandContext,
+        @NonNullDecl Store<EntityStore> store,
+        @NonNullDecl Ref<EntityStore> ref,
+        @NonNullDecl PlayerRef playerRef,
+        @NonNullDecl World world
+    ) {
+        var levelService = LevelingCoreApi.getLevelServiceIfPresent().orElse(null);
+        if (levelService == null) {
+            commandContext.sendMessage(CommandLang.NOT_INITIALIZED);
+            return;
+        }
+        var stats = levelService.getDatabaseCircuitStats();
+        commandContext.sendMessage(
+            CommandLang.DB_STATUS.param("state", stats.state().name())
+                .param("pending", levelService.getPendingWriteCount())
+                .param("trips", stats.trips())
+                .param("failures", stats.failures())
+                .param("slow", stats.slowCalls())
+                .param("rejected", stats.rejected())
+        );
+    }
+}
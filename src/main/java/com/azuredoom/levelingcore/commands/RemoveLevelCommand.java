@@ -18,6 +18,7 @@ import javax.annotation.Nonnull;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
 
 /**
  * Represents a command that removes a specific number of levels from a player. This command operates within the
@@ -58,8 +59,22 @@ public class RemoveLevelCommand extends AbstractPlayerCommand {
             commandContext.sendMessage(CommandLang.NOT_INITIALIZED);
             return;
         }
-        playerRef = this.playerArg.get(commandContext);
+        var target = this.playerArg.get(commandContext);
         var levelRef = this.levelArg.get(commandContext);
+        // The target's data is loaded off the world thread first, so the command never waits for the database
+        levelService.whenLoaded(
+            target.getUuid(),
+            world::execute,
+            () -> removeLevel(commandContext, levelService, target, levelRef)
+        );
+    }
+
+    private void removeLevel(
+        CommandContext commandContext,
+        LevelServiceImpl levelService,
+        PlayerRef playerRef,
+        int levelRef
+    ) {
         var playerUUID = playerRef.getUuid();
         var currentLevel = levelService.getLevel(playerUUID);
 
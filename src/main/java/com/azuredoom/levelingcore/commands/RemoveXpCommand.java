@@ -18,6 +18,7 @@ import javax.annotation.Nonnull;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
 
 /**
  * The RemoveXpCommand class is responsible for handling the logic to remove experience points (XP) from a player's
@@ -60,8 +61,22 @@ public class RemoveXpCommand extends AbstractPlayerCommand {
             commandContext.sendMessage(CommandLang.NOT_INITIALIZED);
             return;
         }
-        playerRef = this.playerArg.get(commandContext);
+        var target = this.playerArg.get(commandContext);
         var xpRef = this.xpArg.get(commandContext);
+        // The target's data is loaded off the world thread first, so the command never waits for the database
+        levelService.whenLoaded(
+            target.getUuid(),
+            world::execute,
+            () -> removeXp(commandContext, levelService, target, xpRef)
+        );
+    }
+
+    private void removeXp(
+        CommandContext commandContext,
+        LevelServiceImpl levelService,
+        PlayerRef playerRef,
+        int xpRef
+    ) {
         var playerUUID = playerRef.getUuid();
         var currentXp = levelService.getXp(playerUUID);
         var totalXp = levelService.getXp(playerUUID);
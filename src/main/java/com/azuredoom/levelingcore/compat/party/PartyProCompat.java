@@ -1,6 +1,5 @@
 package com.azuredoom.levelingcore.compat.party;
 
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.util.Config;
 import me.tsumori.partypro.api.PartyProAPI;
@@ -9,11 +8,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.level.LevelServiceImpl;
-import com.azuredoom.levelingcore.ui.hud.XPBarHud;
-import com.azuredoom.levelingcore.utils.NotificationsUtil;
 import com.azuredoom.levelingcore.utils.PartyCompatUtil;
 
 public class PartyProCompat {
@@ -25,16 +23,12 @@ public class PartyProCompat {
         UUID playerUuid,
         LevelServiceImpl levelService,
         Config<GUIConfig> config,
-        PlayerRef playerRef
+        Executor executor
     ) {
         var cfg = config.get();
         var party = PartyProAPI.getInstance().getPartyByPlayer(playerUuid);
         if (party == null || !cfg.isEnablePartyPluginXPShareCompat()) {
-            if (!cfg.isDisableXPGainNotification() && !levelService.isMaxLevel(playerUuid)) {
-                NotificationsUtil.sendXPGainNotification(playerRef, xp);
-            }
-            levelService.addXp(playerUuid, xp);
-            XPBarHud.updateHud(playerRef);
+            levelService.queueXp(playerUuid, xp, executor);
             return;
         }
         var members = Arrays.stream(party.getAllMembers().toArray(new UUID[0]))
@@ -98,29 +92,7 @@ public class PartyProCompat {
             if (award <= 0)
                 continue;
 
-            var player = Universe.get().getPlayer(uuid);
-
-            if (!cfg.isDisableXPGainNotification() && !levelService.isMaxLevel(uuid)) {
-                if (player != null) {
-                    NotificationsUtil.sendXPGainNotification(
-                        player,
-                        award
-                    );
-                } else if (uuid.equals(playerUuid)) {
-                    NotificationsUtil.sendXPGainNotification(
-                        playerRef,
-                        award
-                    );
-                }
-            }
-
-            levelService.addXp(uuid, award);
-
-            if (player != null) {
-                XPBarHud.updateHud(player);
-            } else if (uuid.equals(playerUuid)) {
-                XPBarHud.updateHud(playerRef);
-            }
+            levelService.queueXp(uuid, award, executor);
         }
     }
 
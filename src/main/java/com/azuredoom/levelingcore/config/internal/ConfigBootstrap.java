@@ -2,15 +2,22 @@ package com.azuredoom.levelingcore.config.internal;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.database.AsyncLevelRepository;
+import com.azuredoom.levelingcore.database.DatabaseCircuitBreaker;
 import com.azuredoom.levelingcore.database.DataSourceFactory;
 import com.azuredoom.levelingcore.database.JdbcLevelRepository;
+import com.azuredoom.levelingcore.database.ProgressJournal;
+import com.azuredoom.levelingcore.database.SqlDialect;
+import com.azuredoom.levelingcore.database.WriteBehindFlusher;
 import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
 import com.azuredoom.levelingcore.level.LevelServiceImpl;
 import com.azuredoom.levelingcore.level.rewards.RewardEntry;
 import com.azuredoom.levelingcore.level.stats.StatsPerLevelMapping;
+import com.azuredoom.levelingcore.playerdata.OfflinePlayerCache;
 
 /**
  * ConfigBootstrap is a utility class that initializes and configures the core components of the LevelingCore system.
@@ -30,6 +37,7 @@ public final class ConfigBootstrap {
      */
     public record Bootstrap(
         LevelServiceImpl service,
+        LevelProgression progression,
         StatsPerLevelMapping statsPerLevel,
         Map<String, Integer> xpMapping,
         Map<Integer, List<RewardEntry>> levelRewardMapping,
@@ -56,19 +64,61 @@ public final class ConfigBootstrap {
         }
         var config = ConfigManager.loadOrCreate(dataDir);
         var formulaDescriptor = LevelFormulaFactory.descriptorFromConfig(config);
-        var formula = LevelFormulaFactory.fromConfig(config);
+        var progression = LevelFormulaFactory.progressionFromConfig(config);
+        var formula = progression.formula();
         var ds = DataSourceFactory.create(
             config.database.jdbcUrl,
             config.database.username,
             config.database.password,
             config.database.maxPoolSize
         );
-        var repo = new JdbcLevelRepository(ds);
+        var repo = new JdbcLevelRepository(
+            ds,
+            SqlDialect.fromJdbcUrl(config.database.jdbcUrl),
+            config.database.batchSize,
+            new DatabaseCircuitBreaker(
+                config.database.circuitFailureThreshold,
+                config.database.circuitSlowCallMs,
+                config.database.circuitOpenMs
+            )
+        );
 
+        // The journal lives next to the config directory, in the mod's data directory.
+        var journal = config.persistence.writeBehind && config.persistence.journal
+            ? new ProgressJournal(
+                dataDir.toAbsolutePath().normalize().getParent().resolve("journal"),
+                config.persistence.journalSyncMs
+            )
+            : null;
+        if (journal != null) {
+            // Recovered XP was earned under the previously stored formula, so it has to be in the database before a
+            // formula change is recorded and migrated.
+            journal.replay(repo);
+        }
         if (config.formula.migrateXP) {
-            repo.migrateFormulaIfNeeded(formula, formulaDescriptor);
+            repo.migrateFormulaIfNeeded(
+                formula,
+                formulaDescriptor,
+                migrationStrategy(config.formula.migrationStrategy),
+                // Every worker holds a pooled connection for its whole range
+                Math.min(config.formula.migrationThreads, config.database.maxPoolSize),
+                config.formula.migrationChunkSize
+            );
+        }
+        var flusher = config.persistence.writeBehind
+            ? new WriteBehindFlusher(
+                repo,
+                config.persistence.flushIntervalMs,
+                config.persistence.maxBatchSize,
+                journal
+            )
+            : null;
+        var asyncRepo = new AsyncLevelRepository(repo, config.database.maxPoolSize);
+        var offlineCache = new OfflinePlayerCache(config.persistence.offlineCacheMaxEntries);
+        var service = new LevelServiceImpl(formula, repo, asyncRepo, flusher, offlineCache);
+        if (config.persistence.coherencePollMs > 0) {
+            service.startCoherencePolling(config.persistence.coherencePollMs);
         }
-        var service = new LevelServiceImpl(formula, repo);
         var statsPerLevel = LevelingCore.statsPerLevel;
         var xpMapping = LevelingCore.xpMapping;
         var levelRewardMapping = LevelingCore.levelRewardMapping;
@@ -81,6 +131,7 @@ public final class ConfigBootstrap {
 
         return new Bootstrap(
             service,
+            progression,
             statsPerLevel,
             xpMapping,
             levelRewardMapping,
@@ -90,7 +141,26 @@ public final class ConfigBootstrap {
             mobBiomeMapping,
             mobEnvironmentMapping,
             mobOverrideMapping,
-            repo::close
+            () -> {
+                service.shutdown();
+                if (journal != null) {
+                    journal.close();
+                }
+                repo.close();
+            }
         );
     }
+
+    /**
+     * Parses the configured {@code formula.migrationStrategy}.
+     *
+     * @throws LevelingCoreException If the value is not a known strategy.
+     */
+    private static JdbcLevelRepository.MigrationStrategy migrationStrategy(String value) {
+        try {
+            return JdbcLevelRepository.MigrationStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new LevelingCoreException("Unknown formula.migrationStrategy: " + value, e);
+        }
+    }
 }
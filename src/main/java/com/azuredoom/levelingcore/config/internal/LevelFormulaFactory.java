@@ -5,13 +5,16 @@ import java.util.Base64;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
+import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
 import com.azuredoom.levelingcore.level.formulas.CustomExpressionLevelFormula;
 import com.azuredoom.levelingcore.level.formulas.ExponentialLevelFormula;
 import com.azuredoom.levelingcore.level.formulas.LevelFormula;
 import com.azuredoom.levelingcore.level.formulas.LinearLevelFormula;
+import com.azuredoom.levelingcore.level.formulas.PrecomputedLevelFormula;
 import com.azuredoom.levelingcore.level.formulas.loader.LevelTableLoader;
 
 /**
@@ -30,6 +33,9 @@ public final class LevelFormulaFactory {
      * formula to use (e.g., "EXPONENTIAL", "LINEAR", "TABLE", and "CUSTOM") and initializes the appropriate
      * implementation with the parameters specified in the configuration. If the configuration is null or invalid, a
      * default {@link ExponentialLevelFormula} is returned.
+     * <p>
+     * Computed formulas (exponential, linear and custom) are wrapped in a {@link PrecomputedLevelFormula}, which
+     * materialises their XP thresholds up to {@code formula.precomputeMaxLevels} once at startup.
      *
      * @param config the configuration object containing the formula type and its associated parameters. Must not be
      *               null and must specify a valid type ("EXPONENTIAL", "LINEAR", "TABLE", or "CUSTOM").
@@ -49,19 +55,19 @@ public final class LevelFormulaFactory {
                 double baseXp = config.formula.exponential.baseXp;
                 double exponent = config.formula.exponential.exponent;
                 var maxLevel = config.formula.exponential.maxLevel;
-                yield new ExponentialLevelFormula(baseXp, exponent, maxLevel);
+                yield precompute(new ExponentialLevelFormula(baseXp, exponent, maxLevel), config);
             }
             case "LINEAR" -> {
                 long xpPerLevel = config.formula.linear.xpPerLevel;
                 var maxLevel = config.formula.linear.maxLevel;
-                yield new LinearLevelFormula(xpPerLevel, maxLevel);
+                yield precompute(new LinearLevelFormula(xpPerLevel, maxLevel), config);
             }
             case "TABLE" -> LevelTableLoader.loadOrCreateFromDataDir(config.formula.table.file);
             case "CUSTOM" -> {
                 var expr = config.formula.custom.xpForLevel;
                 var constants = config.formula.custom.constants;
                 var maxLevel = config.formula.custom.maxLevel;
-                yield new CustomExpressionLevelFormula(expr, constants, maxLevel);
+                yield precompute(new CustomExpressionLevelFormula(expr, constants, maxLevel), config);
             }
             default -> throw new LevelingCoreException(
                 "Unknown formula.type '" + config.formula.type + "'. Expected EXPONENTIAL or LINEAR."
@@ -69,6 +75,45 @@ public final class LevelFormulaFactory {
         };
     }
 
+    /**
+     * Builds the {@link LevelProgression} for the provided configuration: the formula returned by
+     * {@link #fromConfig(LevelingCoreConfig)} together with its maximum level. For TABLE formulas this is the only
+     * time the level table is read from disk.
+     *
+     * @param config the configuration object containing the formula type and its associated parameters
+     * @return an immutable {@link LevelProgression} snapshot
+     * @throws LevelingCoreException if the specified formula type is unknown or unsupported.
+     */
+    public static LevelProgression progressionFromConfig(LevelingCoreConfig config) {
+        var formula = fromConfig(config);
+        var type = config == null || config.formula == null || config.formula.type == null
+            ? "EXPONENTIAL"
+            : config.formula.type.trim().toUpperCase(Locale.ROOT);
+        return new LevelProgression(type, formula, Math.max(1, formula.getMaxLevel()));
+    }
+
+    /**
+     * Wraps the given formula in a {@link PrecomputedLevelFormula} using the configured materialisation cap. If the
+     * cap is 0 or less, or the formula's XP thresholds are not non-decreasing, the formula is returned unchanged.
+     *
+     * @param formula the formula to precompute
+     * @param config  the configuration holding {@code formula.precomputeMaxLevels}
+     * @return the precomputed formula, or {@code formula} itself if it cannot be precomputed
+     */
+    private static LevelFormula precompute(LevelFormula formula, LevelingCoreConfig config) {
+        var cap = config.formula.precomputeMaxLevels;
+        if (cap < 1) {
+            return formula;
+        }
+        try {
+            return new PrecomputedLevelFormula(formula, cap);
+        } catch (IllegalArgumentException e) {
+            LevelingCore.LOGGER.at(Level.WARNING)
+                .log("Not precomputing XP thresholds: {0}", e.getMessage());
+            return formula;
+        }
+    }
+
     /**
      * Constructs a {@link FormulaDescriptor} based on the provided {@link LevelingCoreConfig}. The type and parameters
      * for the descriptor are determined by the configuration's formula settings. Supports the following formula types:
@@ -119,15 +164,7 @@ public final class LevelFormulaFactory {
      */
     public static LevelFormula formulaFromDescriptor(FormulaDescriptor d) {
         var type = d.type().trim().toUpperCase(Locale.ROOT);
-
-        Map<String, String> map = new HashMap<>();
-        if (d.params() != null && !d.params().isBlank()) {
-            for (var part : d.params().split(";")) {
-                var kv = part.split("=", 2);
-                if (kv.length == 2)
-                    map.put(kv[0].trim(), kv[1].trim());
-            }
-        }
+        var map = paramsOf(d);
 
         return switch (type) {
             case "EXPONENTIAL" -> new ExponentialLevelFormula(
@@ -154,6 +191,24 @@ public final class LevelFormulaFactory {
         };
     }
 
+    /**
+     * Splits the {@code key=value;key=value} parameters of a {@link FormulaDescriptor} into a map.
+     *
+     * @param d the formula descriptor whose parameters to parse
+     * @return the parameters by name; empty if the descriptor has none
+     */
+    public static Map<String, String> paramsOf(FormulaDescriptor d) {
+        Map<String, String> map = new HashMap<>();
+        if (d.params() != null && !d.params().isBlank()) {
+            for (var part : d.params().split(";")) {
+                var kv = part.split("=", 2);
+                if (kv.length == 2)
+                    map.put(kv[0].trim(), kv[1].trim());
+            }
+        }
+        return map;
+    }
+
     /**
      * Encodes the given string into a Base64 URL-safe format without padding.
      *
@@ -0,0 +1,24 @@
+package com.azuredoom.levelingcore.config.internal;
+
+import com.azuredoom.levelingcore.level.formulas.LevelFormula;
+
+/**
+ * An immutable snapshot of the configured level progression, built once at startup by
+ * {@link LevelFormulaFactory#progressionFromConfig(LevelingCoreConfig)}.
+ * <p>
+ * Hot paths that need the maximum level read it from here instead of re-deriving it from the configuration, which for
+ * TABLE formulas would mean reading the level table from disk again.
+ * <p>
+ * Fields:
+ * <p>
+ * - type: The normalized formula type (e.g., "EXPONENTIAL", "TABLE").
+ * <p>
+ * - formula: The {@link LevelFormula} used to convert between XP and levels.
+ * <p>
+ * - maxLevel: The maximum level supported by the formula, always greater than or equal to 1.
+ */
+public record LevelProgression(
+    String type,
+    LevelFormula formula,
+    int maxLevel
+) {}
@@ -13,6 +13,8 @@ public class LevelingCoreConfig {
 
     public Formula formula = new Formula();
 
+    public Persistence persistence = new Persistence();
+
     public static class Database {
 
         public String jdbcUrl = "jdbc:h2:file:./data/levelingcore/levelingcore;MODE=PostgreSQL";
@@ -22,6 +24,33 @@ public class LevelingCoreConfig {
         public String password = "";
 
         public int maxPoolSize = 10;
+
+        public int batchSize = 500;
+
+        public int circuitFailureThreshold = 3;
+
+        public long circuitSlowCallMs = 2000;
+
+        public long circuitOpenMs = 30000;
+    }
+
+    public static class Persistence {
+
+        public boolean writeBehind = true;
+
+        public long flushIntervalMs = 5000;
+
+        public int maxBatchSize = 500;
+
+        public long evictionDelayMs = 30000;
+
+        public int offlineCacheMaxEntries = 1000;
+
+        public long coherencePollMs = 0;
+
+        public boolean journal = true;
+
+        public long journalSyncMs = 100;
     }
 
     public static class Formula {
@@ -30,6 +59,14 @@ public class LevelingCoreConfig {
 
         public Boolean migrateXP = true;
 
+        public String migrationStrategy = "EAGER";
+
+        public int migrationThreads = 4;
+
+        public int migrationChunkSize = 5000;
+
+        public int precomputeMaxLevels = 1000000;
+
         public Exponential exponential = new Exponential();
 
         public Linear linear = new Linear();
@@ -0,0 +1,145 @@
+package com.azuredoom.levelingcore.database;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+
+/**
+ * Asynchronous front for {@link JdbcLevelRepository}. Every operation runs on its own virtual thread and completes a
+ * {@link CompletableFuture}, so callers such as the world thread never wait on JDBC.
+ * <p>
+ * The number of operations touching the database at the same time is bounded by a semaphore sized to the connection
+ * pool. Excess operations park their (cheap) virtual thread on the semaphore instead of piling up inside the pool and
+ * running into its connection timeout.
+ */
+public class AsyncLevelRepository implements AutoCloseable {
+
+    private final JdbcLevelRepository repository;
+
+    private final ExecutorService executor;
+
+    private final Semaphore permits;
+
+    /**
+     * Creates an asynchronous repository.
+     *
+     * @param repository     The blocking repository the operations are delegated to.
+     * @param maxConcurrency The maximum number of operations running against the database at once. Should match the
+     *                       connection pool size. Must be greater than or equal to 1.
+     * @throws IllegalArgumentException If {@code maxConcurrency} is less than 1.
+     */
+    public AsyncLevelRepository(JdbcLevelRepository repository, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1 (got: " + maxConcurrency + ")");
+        }
+        this.repository = repository;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("LevelingCore-DB-", 0).factory()
+        );
+    }
+
+    /**
+     * Loads a player's data asynchronously.
+     *
+     * @param id The unique identifier of the player as a {@link UUID}.
+     * @return A future completed with the stored {@link PlayerLevelData}, or with {@code null} if no data exists for
+     *         the given UUID. Completed exceptionally with a {@link LevelingCoreException} if the load fails.
+     */
+    public CompletableFuture<PlayerLevelData> loadAsync(UUID id) {
+        return submit(() -> repository.load(id));
+    }
+
+    /**
+     * Saves a player's data asynchronously.
+     *
+     * @param data The {@link PlayerLevelData} to save.
+     * @return A future completed once the data has been written, or completed exceptionally with a
+     *         {@link LevelingCoreException} if the save fails.
+     */
+    public CompletableFuture<Void> saveAsync(PlayerLevelData data) {
+        return submit(() -> {
+            repository.save(data);
+            return null;
+        });
+    }
+
+    /**
+     * Saves the data of many players asynchronously as a single batched transaction.
+     *
+     * @param data The {@link PlayerLevelData} instances to save. The collection is copied, so the caller may reuse it.
+     * @return A future completed once all data has been written, or completed exceptionally with a
+     *         {@link LevelingCoreException} if the save fails.
+     */
+    public CompletableFuture<Void> saveAllAsync(Collection<PlayerLevelData> data) {
+        var snapshot = List.copyOf(data);
+        return submit(() -> {
+            repository.saveAll(snapshot);
+            return null;
+        });
+    }
+
+    /**
+     * Writes a player's changes buffered by the given write-behind flusher asynchronously; see
+     * {@link WriteBehindFlusher#flush(PlayerLevelData)}.
+     *
+     * @param flusher The write-behind flusher holding the player's unsaved changes.
+     * @param data    The {@link PlayerLevelData} to write.
+     * @return A future completed once the data has been written, or completed exceptionally with a
+     *         {@link LevelingCoreException} if the write fails. The data then stays queued in the flusher.
+     */
+    public CompletableFuture<Void> flushAsync(WriteBehindFlusher flusher, PlayerLevelData data) {
+        return submit(() -> {
+            flusher.flush(data);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given operation on a virtual thread once a database permit is available.
+     *
+     * @param operation The blocking repository operation.
+     * @param <T>       The result type of the operation.
+     * @return A future completed with the operation's result.
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LevelingCoreException("Interrupted while waiting for a database permit", e);
+            }
+            try {
+                return operation.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops accepting new operations and waits for the running ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -46,6 +46,8 @@ public final class DataSourceFactory {
         }
 
         cfg.setDriverClassName(driverClassNameFor(jdbcUrl));
+        applyBatchRewriteHints(cfg, jdbcUrl);
+        applyAffectedRowsHint(cfg, jdbcUrl);
 
         cfg.setMaximumPoolSize(maxPoolSize);
         cfg.setMinimumIdle(1);
@@ -131,6 +133,50 @@ public final class DataSourceFactory {
         return query.startsWith(key + "=") || query.contains("&" + key + "=");
     }
 
+    /**
+     * Enables the driver-side rewriting of JDBC batches into multi-row statements, which turns a batch of N upserts
+     * into a handful of round trips. MySQL uses {@code rewriteBatchedStatements} and PostgreSQL uses
+     * {@code reWriteBatchedInserts}. A hint is only applied if the JDBC URL does not already set it, so an explicit
+     * value in the URL always wins. MariaDB and H2 need no hint.
+     *
+     * @param cfg     The Hikari configuration to add the driver properties to.
+     * @param jdbcUrl The JDBC URL used for the database connection.
+     */
+    private static void applyBatchRewriteHints(HikariConfig cfg, String jdbcUrl) {
+        var lower = jdbcUrl.toLowerCase();
+        var q = lower.indexOf('?');
+        var query = q < 0 ? "" : lower.substring(q + 1);
+
+        if (lower.startsWith("jdbc:mysql:") && !containsQueryParam(query, "rewritebatchedstatements")) {
+            cfg.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+        if (lower.startsWith("jdbc:postgresql:") && !containsQueryParam(query, "rewritebatchedinserts")) {
+            cfg.addDataSourceProperty("reWriteBatchedInserts", "true");
+        }
+    }
+
+    /**
+     * Makes MySQL and MariaDB report the number of rows an update changed instead of the number of rows it matched, as
+     * the other databases do. Callers tell an insert from an existing row by the update count of
+     * {@link SqlDialect#insertIfAbsent}, whose no-op {@code ON DUPLICATE KEY UPDATE} would otherwise count as 1. The
+     * hint is only applied if the JDBC URL does not already set {@code useAffectedRows}.
+     *
+     * @param cfg     The Hikari configuration to add the driver property to.
+     * @param jdbcUrl The JDBC URL used for the database connection.
+     */
+    private static void applyAffectedRowsHint(HikariConfig cfg, String jdbcUrl) {
+        var lower = jdbcUrl.toLowerCase();
+        var q = lower.indexOf('?');
+        var query = q < 0 ? "" : lower.substring(q + 1);
+
+        if (
+            (lower.startsWith("jdbc:mysql:") || lower.startsWith("jdbc:mariadb:"))
+                && !containsQueryParam(query, "useaffectedrows")
+        ) {
+            cfg.addDataSourceProperty("useAffectedRows", "true");
+        }
+    }
+
     /**
      * Checks if the provided JDBC URL corresponds to an H2 database.
      *
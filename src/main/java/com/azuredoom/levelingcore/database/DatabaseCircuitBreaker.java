@@ -0,0 +1,214 @@
+package com.azuredoom.levelingcore.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.exceptions.DatabaseUnavailableException;
+
+/**
+ * Circuit breaker guarding the database operations of {@link JdbcLevelRepository}. Every operation reports whether it
+ * failed and how long it took; an operation slower than {@code slowCallMs} per row it writes counts as a failure. After
+ * {@code failureThreshold} consecutive failures the circuit opens and operations are rejected with a
+ * {@link DatabaseUnavailableException} without touching the connection pool.
+ * <p>
+ * Once {@code openMs} has passed, the next operation is let through as a probe while the circuit is half-open; every
+ * other operation is still rejected. A successful probe closes the circuit again, a failed one re-opens it for another
+ * {@code openMs}.
+ */
+public class DatabaseCircuitBreaker {
+
+    private final int failureThreshold;
+
+    private final long slowCallNanos;
+
+    private final long openNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicLong openedAt = new AtomicLong();
+
+    private final LongAdder trips = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder slowCalls = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureThreshold The number of consecutive failed or slow operations that opens the circuit. Must be
+     *                         greater than 0.
+     * @param slowCallMs       The duration in milliseconds per row above which an operation counts as failed. Must
+     *                         be greater than 0.
+     * @param openMs           How long in milliseconds the circuit stays open before a probe is let through. Must be
+     *                         greater than 0.
+     * @throws IllegalArgumentException If any argument is not positive.
+     */
+    public DatabaseCircuitBreaker(int failureThreshold, long slowCallMs, long openMs) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be >= 1 (got: " + failureThreshold + ")");
+        }
+        if (slowCallMs <= 0) {
+            throw new IllegalArgumentException("slowCallMs must be > 0");
+        }
+        if (openMs <= 0) {
+            throw new IllegalArgumentException("openMs must be > 0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Returns whether operations are currently let through without restriction.
+     *
+     * @return {@code true} if the circuit is closed.
+     */
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    /**
+     * Admits an operation. While the circuit is open, the first call after {@code openMs} moves it to half-open and is
+     * admitted as the probe.
+     *
+     * @throws DatabaseUnavailableException If the circuit is open, or half-open with a probe already running.
+     */
+    public void acquire() {
+        var current = state.get();
+        if (current == State.CLOSED) {
+            return;
+        }
+        if (
+            current == State.OPEN && System.nanoTime() - openedAt.get() >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)
+        ) {
+            return;
+        }
+        rejected.increment();
+        throw new DatabaseUnavailableException("Database circuit is " + current.name().toLowerCase());
+    }
+
+    /**
+     * Rejects an operation like {@link #acquire()} would, but without admitting it as the half-open probe. Used to fail
+     * before doing any work for an operation that is only admitted later.
+     *
+     * @throws DatabaseUnavailableException If the circuit is open and {@code openMs} has not passed yet, or half-open.
+     */
+    public void ensureAvailable() {
+        var current = state.get();
+        if (current == State.CLOSED || (current == State.OPEN && System.nanoTime() - openedAt.get() >= openNanos)) {
+            return;
+        }
+        rejected.increment();
+        throw new DatabaseUnavailableException("Database circuit is " + current.name().toLowerCase());
+    }
+
+    /**
+     * Records a completed single-row operation. A slow operation is recorded as a failure.
+     *
+     * @param elapsedNanos How long the operation took.
+     */
+    public void recordSuccess(long elapsedNanos) {
+        recordSuccess(elapsedNanos, 1);
+    }
+
+    /**
+     * Records a completed operation that wrote the given number of rows, such as a batched save. The operation is
+     * recorded as a failure if it took longer than {@code slowCallMs} per row, so a healthy batch, including one sent
+     * as the half-open probe, is not held to the limit of a single-row operation.
+     *
+     * @param elapsedNanos How long the operation took.
+     * @param rows         The number of rows the operation wrote. Values below 1 count as 1.
+     */
+    public void recordSuccess(long elapsedNanos, int rows) {
+        if (elapsedNanos > slowCallNanos * Math.max(1, rows)) {
+            slowCalls.increment();
+            recordFailure();
+            return;
+        }
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            LevelingCore.LOGGER.at(Level.INFO).log("Database circuit closed, database access resumed");
+        }
+    }
+
+    /**
+     * Records a failed operation, opening the circuit if the threshold is reached or the failed operation was the
+     * half-open probe.
+     */
+    public void recordFailure() {
+        failures.increment();
+        var failed = consecutiveFailures.incrementAndGet();
+        var current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failed >= failureThreshold)) {
+            openedAt.set(System.nanoTime());
+            if (state.compareAndSet(current, State.OPEN)) {
+                trips.increment();
+                LevelingCore.LOGGER.at(Level.WARNING)
+                    .log(
+                        "Database circuit opened after {0} consecutive failed or slow operations, retrying in {1} ms",
+                        failed,
+                        TimeUnit.NANOSECONDS.toMillis(openNanos)
+                    );
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the circuit state and counters.
+     *
+     * @return The current {@link Stats}.
+     */
+    public Stats stats() {
+        return new Stats(state.get(), trips.sum(), failures.sum(), slowCalls.sum(), rejected.sum());
+    }
+
+    /**
+     * The state of the circuit.
+     */
+    public enum State {
+        /**
+         * Operations run normally.
+         */
+        CLOSED,
+        /**
+         * Operations are rejected without touching the database.
+         */
+        OPEN,
+        /**
+         * A single probe operation is running; all others are rejected.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Counters of a {@link DatabaseCircuitBreaker}.
+     *
+     * @param state     The current state of the circuit.
+     * @param trips     How often the circuit has opened.
+     * @param failures  The number of failed operations, including slow ones.
+     * @param slowCalls The number of operations that took longer than the slow-call threshold.
+     * @param rejected  The number of operations rejected while the circuit was not closed.
+     */
+    public record Stats(
+        State state,
+        long trips,
+        long failures,
+        long slowCalls,
+        long rejected
+    ) {}
+}
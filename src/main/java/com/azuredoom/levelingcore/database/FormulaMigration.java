@@ -0,0 +1,544 @@
+package com.azuredoom.levelingcore.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.logging.Level;
+import javax.sql.DataSource;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.config.internal.FormulaDescriptor;
+import com.azuredoom.levelingcore.config.internal.LevelFormulaFactory;
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+import com.azuredoom.levelingcore.level.formulas.LevelFormula;
+
+/**
+ * Rewrites the XP of every stored player whose {@code formula_version} is older than a target formula version so that
+ * each player keeps their level. Every row is converted from the formula of its own version, looked up through the
+ * given function, and is stamped with the target version in the same update, so a row is never converted twice.
+ * <p>
+ * Rows stored under a LINEAR or EXPONENTIAL formula are converted first, set-based: the level of such a row can be
+ * approximated by an SQL expression, so the distinct approximate levels present are read with one query, the exact XP
+ * range and new XP of every candidate level are computed from the formulas into {@code levelingcore_formula_buckets},
+ * and the database rewrites all rows of the formula version with one UPDATE joined against that table. Rows whose XP
+ * is not covered by a bucket, such as those at the maximum level, stay stale for the streaming pass.
+ * <p>
+ * The rows still stale after that, including all rows of TABLE and CUSTOM formulas, are split into one
+ * {@code player_id} range per worker thread. Each worker pages through its range by key, {@code chunkSize} rows at a
+ * time, on its own connection, and commits every chunk together with its position in {@code levelingcore_meta}. An
+ * interrupted migration to the same version resumes every range where it stopped on the next start; a migration to a
+ * newer version starts over with new ranges and picks up whatever rows are still stale.
+ */
+final class FormulaMigration {
+
+    static final String TARGET_VERSION_KEY = "formula.migration.version";
+
+    static final String BOUNDS_KEY = "formula.migration.bounds";
+
+    static final String CURSOR_KEY_PREFIX = "formula.migration.cursor.";
+
+    static final String DONE = "done";
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final DataSource dataSource;
+
+    private final SqlDialect dialect;
+
+    private final IntFunction<LevelFormula> formulas;
+
+    private final IntFunction<FormulaDescriptor> descriptors;
+
+    private final int targetVersion;
+
+    private final LevelFormula newFormula;
+
+    private final int threads;
+
+    private final int chunkSize;
+
+    private final String metaPutSql;
+
+    private final Map<Long, Long> newXpByVersionAndLevel = new ConcurrentHashMap<>();
+
+    private final AtomicLong migrated = new AtomicLong();
+
+    private final AtomicLong lastReport = new AtomicLong();
+
+    private volatile boolean aborted;
+
+    private long convertedInDatabase;
+
+    private long remaining;
+
+    private long startedAt;
+
+    FormulaMigration(
+        DataSource dataSource,
+        SqlDialect dialect,
+        IntFunction<LevelFormula> formulas,
+        IntFunction<FormulaDescriptor> descriptors,
+        int targetVersion,
+        int threads,
+        int chunkSize
+    ) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.formulas = formulas;
+        this.descriptors = descriptors;
+        this.targetVersion = targetVersion;
+        this.newFormula = formulas.apply(targetVersion);
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.metaPutSql = dialect.upsert("levelingcore_meta", List.of("meta_key"), List.of("meta_value"));
+    }
+
+    /**
+     * Returns whether a migration was interrupted before all of its ranges were done.
+     *
+     * @param dataSource The data source of the database to check.
+     * @return {@code true} if migration state is left in {@code levelingcore_meta}.
+     * @throws SQLException If the meta table cannot be read.
+     */
+    static boolean isPending(DataSource dataSource) throws SQLException {
+        return metaGet(dataSource, TARGET_VERSION_KEY) != null;
+    }
+
+    /**
+     * Migrates every stale player to the target formula version, resuming an interrupted migration to the same
+     * version, and removes the migration state once all players are converted.
+     *
+     * @throws LevelingCoreException If a chunk cannot be read or written. Chunks committed before the failure stay
+     *                               migrated and are skipped by the next attempt.
+     */
+    void run() {
+        try {
+            var bounds = loadOrCreateBounds();
+            startedAt = System.nanoTime();
+            convertedInDatabase = convertClosedForm();
+            var partitions = bounds.size() + 1;
+            var cursors = new ArrayList<String>(partitions);
+            for (var i = 0; i < partitions; i++) {
+                cursors.add(metaGet(dataSource, CURSOR_KEY_PREFIX + i));
+            }
+            remaining = countRemaining(bounds, cursors);
+            if (remaining == 0) {
+                finish();
+                logCompleted();
+                return;
+            }
+            lastReport.set(System.nanoTime());
+            LevelingCore.LOGGER.at(Level.INFO)
+                .log(
+                    "Migrating {0} players in {1} ranges to formula version {2}",
+                    remaining,
+                    partitions,
+                    targetVersion
+                );
+
+            var executor = Executors.newFixedThreadPool(
+                Math.min(threads, partitions),
+                Thread.ofPlatform().name("LevelingCore-FormulaMigration-", 0).factory()
+            );
+            try {
+                var futures = new ArrayList<Future<?>>(partitions);
+                for (var i = 0; i < partitions; i++) {
+                    var partition = i;
+                    var upper = i < bounds.size() ? UUID.fromString(bounds.get(i)) : null;
+                    var cursor = cursors.get(i);
+                    if (DONE.equals(cursor)) {
+                        continue;
+                    }
+                    var lower = cursor != null ? UUID.fromString(cursor)
+                        : i > 0 ? UUID.fromString(bounds.get(i - 1)) : null;
+                    futures.add(executor.submit(() -> {
+                        migratePartition(partition, lower, upper);
+                        return null;
+                    }));
+                }
+                for (var future : futures) {
+                    future.get();
+                }
+            } finally {
+                // A failed range stops the others at their next chunk; none may still be committing once this returns
+                aborted = true;
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+
+            finish();
+            logCompleted();
+        } catch (ExecutionException e) {
+            throw new LevelingCoreException(
+                "Failed to migrate XP to preserve levels",
+                e.getCause() instanceof Exception cause ? cause : e
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LevelingCoreException("Interrupted while migrating XP to preserve levels", e);
+        } catch (SQLException e) {
+            throw new LevelingCoreException("Failed to migrate XP to preserve levels", e);
+        }
+    }
+
+    private void logCompleted() {
+        LevelingCore.LOGGER.at(Level.INFO)
+            .log(
+                "Formula migration completed: {0} players in {1} s",
+                convertedInDatabase + migrated.get(),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt)
+            );
+    }
+
+    /**
+     * Converts the stale rows of every formula version that has a closed-form level, each version with one UPDATE in
+     * its own transaction.
+     *
+     * @return The number of converted rows.
+     */
+    long convertClosedForm() throws SQLException {
+        var converted = 0L;
+        try (var c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                for (var version : staleVersions(c)) {
+                    var level = levelExpression(descriptors.apply(version));
+                    if (level == null) {
+                        continue;
+                    }
+                    var start = System.nanoTime();
+                    var rows = convertClosedForm(c, version, level);
+                    c.commit();
+                    converted += rows;
+                    LevelingCore.LOGGER.at(Level.INFO)
+                        .log(
+                            "Converted {0} players from formula version {1} in the database in {2} ms",
+                            rows,
+                            version,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                        );
+                }
+            } catch (SQLException | RuntimeException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * Fills {@code levelingcore_formula_buckets} for one formula version and rewrites its rows against it.
+     * <p>
+     * A bucket is only created for a level whose whole XP range maps to that level under the old formula, checked at
+     * both ends with {@link LevelFormula#getLevelForXp}, so a row converted here gets exactly the XP the streaming pass
+     * would give it. The approximate level computed by the database may be off by one from the exact level because of
+     * floating-point rounding, so each approximate level gets buckets for its neighbors as well; the UPDATE matches
+     * on the approximate level and the XP range together.
+     *
+     * @return The number of converted rows.
+     */
+    private long convertClosedForm(Connection c, int version, String level) throws SQLException {
+        var from = formulas.apply(version);
+        try (var stmt = c.createStatement()) {
+            stmt.executeUpdate("DELETE FROM levelingcore_formula_buckets");
+        }
+        var select = "SELECT DISTINCT " + level + " FROM player_levels WHERE formula_version = ?";
+        var insert = "INSERT INTO levelingcore_formula_buckets (approx_level, min_xp, max_xp, new_xp)"
+            + " VALUES (?, ?, ?, ?)";
+        try (var psSel = c.prepareStatement(select); var psIns = c.prepareStatement(insert)) {
+            psSel.setInt(1, version);
+            try (var rs = psSel.executeQuery()) {
+                while (rs.next()) {
+                    var approx = rs.getLong(1);
+                    // The approximation is the level minus one for both formulas
+                    for (var candidate = approx; candidate <= approx + 2; candidate++) {
+                        if (candidate < 1 || candidate >= from.getMaxLevel()) {
+                            continue;
+                        }
+                        var lvl = (int) candidate;
+                        var minXp = from.getXpForLevel(lvl);
+                        var maxXp = from.getXpForLevel(lvl + 1) - 1;
+                        if (maxXp < minXp || from.getLevelForXp(minXp) != lvl || from.getLevelForXp(maxXp) != lvl) {
+                            continue;
+                        }
+                        psIns.setLong(1, approx);
+                        psIns.setLong(2, minXp);
+                        psIns.setLong(3, maxXp);
+                        psIns.setLong(4, newFormula.getXpForLevel(lvl));
+                        psIns.addBatch();
+                    }
+                }
+            }
+            psIns.executeBatch();
+        }
+        var bucket = "FROM levelingcore_formula_buckets b WHERE b.approx_level = " + level
+            + " AND player_levels.xp BETWEEN b.min_xp AND b.max_xp";
+        var update = "UPDATE player_levels SET xp = (SELECT b.new_xp " + bucket + "), formula_version = ?,"
+            + " version = version + 1, updated_at = ? WHERE formula_version = ? AND EXISTS (SELECT 1 " + bucket + ")";
+        long rows;
+        try (var ps = c.prepareStatement(update)) {
+            ps.setInt(1, targetVersion);
+            ps.setLong(2, System.currentTimeMillis());
+            ps.setInt(3, version);
+            rows = ps.executeUpdate();
+        }
+        try (var stmt = c.createStatement()) {
+            stmt.executeUpdate("DELETE FROM levelingcore_formula_buckets");
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the formula versions that still have rows older than the target version.
+     */
+    private List<Integer> staleVersions(Connection c) throws SQLException {
+        var versions = new ArrayList<Integer>();
+        try (
+            var ps = c.prepareStatement(
+                "SELECT DISTINCT formula_version FROM player_levels WHERE formula_version < ?"
+            )
+        ) {
+            ps.setInt(1, targetVersion);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    versions.add(rs.getInt(1));
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Returns an SQL expression over {@code player_levels.xp} that approximates the level, minus one, under the given
+     * formula, or {@code null} if the formula has no closed form. The parameters are inlined as numeric literals so
+     * that the expression is identical wherever it appears in a statement.
+     */
+    private static String levelExpression(FormulaDescriptor desc) {
+        var params = LevelFormulaFactory.paramsOf(desc);
+        return switch (desc.type().trim().toUpperCase(Locale.ROOT)) {
+            case "LINEAR" -> "FLOOR(player_levels.xp / " + Long.parseLong(params.getOrDefault("xpPerLevel", "100"))
+                + ")";
+            case "EXPONENTIAL" -> "FLOOR(POWER(player_levels.xp / "
+                + Double.parseDouble(params.getOrDefault("baseXp", "100.0")) + ", "
+                + 1.0 / Double.parseDouble(params.getOrDefault("exponent", "1.7")) + "))";
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the upper bounds of all ranges but the last. A migration to the same version that was already started
+     * keeps its ranges; otherwise the stale rows are split into ranges of roughly equal size, which are stored together
+     * with the target version in one transaction.
+     */
+    private List<String> loadOrCreateBounds() throws SQLException {
+        if (Integer.toString(targetVersion).equals(metaGet(dataSource, TARGET_VERSION_KEY))) {
+            var stored = metaGet(dataSource, BOUNDS_KEY);
+            return stored == null || stored.isEmpty() ? List.of() : List.of(stored.split(","));
+        }
+        try (var c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            var rows = count(c, null, null);
+            var partitions = (int) Math.min(threads, Math.max(1, (rows + chunkSize - 1) / chunkSize));
+            var bounds = new ArrayList<String>(partitions - 1);
+            var sql = "SELECT player_id FROM player_levels WHERE formula_version < ?"
+                + " ORDER BY player_id LIMIT 1 OFFSET ?";
+            try (var ps = c.prepareStatement(sql)) {
+                ps.setInt(1, targetVersion);
+                for (var i = 1; i < partitions; i++) {
+                    ps.setLong(2, rows * i / partitions - 1);
+                    try (var rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            bounds.add(dialect.readUuid(rs, "player_id").toString());
+                        }
+                    }
+                }
+            }
+            try (var ps = c.prepareStatement("DELETE FROM levelingcore_meta WHERE meta_key LIKE ?")) {
+                ps.setString(1, CURSOR_KEY_PREFIX + "%");
+                ps.executeUpdate();
+            }
+            metaPut(c, BOUNDS_KEY, String.join(",", bounds));
+            metaPut(c, TARGET_VERSION_KEY, Integer.toString(targetVersion));
+            c.commit();
+            return bounds;
+        }
+    }
+
+    /**
+     * Converts the rows of one range after {@code lower} up to and including {@code upper}, one committed chunk at a
+     * time. A {@code null} bound leaves that side of the range open.
+     */
+    private void migratePartition(int partition, UUID lower, UUID upper) throws SQLException {
+        var update = "UPDATE player_levels SET xp = ?, formula_version = ?, version = version + 1, updated_at = ?"
+            + " WHERE player_id = ?";
+        try (var c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try (var psUpd = c.prepareStatement(update)) {
+                while (!aborted) {
+                    var rows = 0;
+                    var now = System.currentTimeMillis();
+                    try (var psSel = c.prepareStatement(chunkSelect(lower != null, upper != null))) {
+                        psSel.setInt(1, targetVersion);
+                        var index = 2;
+                        if (lower != null) {
+                            dialect.bindUuid(psSel, index++, lower);
+                        }
+                        if (upper != null) {
+                            dialect.bindUuid(psSel, index, upper);
+                        }
+                        try (var rs = psSel.executeQuery()) {
+                            while (rs.next()) {
+                                rows++;
+                                lower = dialect.readUuid(rs, "player_id");
+                                psUpd.setLong(1, convert(rs.getLong(2), rs.getInt(3)));
+                                psUpd.setInt(2, targetVersion);
+                                psUpd.setLong(3, now);
+                                dialect.bindUuid(psUpd, 4, lower);
+                                psUpd.addBatch();
+                            }
+                        }
+                    }
+                    if (rows == 0) {
+                        metaPut(c, CURSOR_KEY_PREFIX + partition, DONE);
+                        c.commit();
+                        return;
+                    }
+                    psUpd.executeBatch();
+                    metaPut(c, CURSOR_KEY_PREFIX + partition, lower.toString());
+                    c.commit();
+                    reportProgress(migrated.addAndGet(rows));
+                }
+            } catch (SQLException | RuntimeException e) {
+                aborted = true;
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the XP that keeps a player stored under the given formula version at the same level under the target
+     * formula. Results are cached per version and level.
+     */
+    private long convert(long xp, int fromVersion) {
+        var level = formulas.apply(fromVersion).getLevelForXp(xp);
+        return newXpByVersionAndLevel.computeIfAbsent(
+            ((long) fromVersion << 32) | (level & 0xFFFFFFFFL),
+            key -> newFormula.getXpForLevel(level)
+        );
+    }
+
+    /**
+     * Returns the query that locks and reads the next chunk of stale rows in a range. Only the first chunk of the first
+     * range has no lower bound, and only the last range has no upper bound.
+     */
+    private String chunkSelect(boolean hasLower, boolean hasUpper) {
+        return "SELECT player_id, xp, formula_version FROM player_levels WHERE formula_version < ?"
+            + (hasLower ? " AND player_id > ?" : "")
+            + (hasUpper ? " AND player_id <= ?" : "")
+            + " ORDER BY player_id LIMIT " + chunkSize + " FOR UPDATE";
+    }
+
+    /**
+     * Logs the number of migrated players and an estimate of the remaining time, at most once per
+     * {@link #PROGRESS_INTERVAL_NANOS}.
+     */
+    private void reportProgress(long done) {
+        var now = System.nanoTime();
+        var last = lastReport.get();
+        if (now - last < PROGRESS_INTERVAL_NANOS || !lastReport.compareAndSet(last, now)) {
+            return;
+        }
+        var elapsed = now - startedAt;
+        var etaSeconds = remaining > done ? (long) (elapsed / 1e9 * (remaining - done) / done) : 0;
+        LevelingCore.LOGGER.at(Level.INFO)
+            .log(
+                "Formula migration progress: {0}/{1} players ({2}%), about {3} s remaining",
+                done,
+                remaining,
+                remaining > 0 ? Math.min(100, done * 100 / remaining) : 100,
+                etaSeconds
+            );
+    }
+
+    /**
+     * Removes the migration state.
+     */
+    private void finish() throws SQLException {
+        try (
+            var c = dataSource.getConnection();
+            var ps = c.prepareStatement("DELETE FROM levelingcore_meta WHERE meta_key LIKE ?")
+        ) {
+            ps.setString(1, "formula.migration.%");
+            ps.executeUpdate();
+        }
+    }
+
+    private long countRemaining(List<String> bounds, List<String> cursors) throws SQLException {
+        var total = 0L;
+        try (var c = dataSource.getConnection()) {
+            for (var i = 0; i < cursors.size(); i++) {
+                var cursor = cursors.get(i);
+                if (DONE.equals(cursor)) {
+                    continue;
+                }
+                var lower = cursor != null ? UUID.fromString(cursor)
+                    : i > 0 ? UUID.fromString(bounds.get(i - 1)) : null;
+                var upper = i < bounds.size() ? UUID.fromString(bounds.get(i)) : null;
+                total += count(c, lower, upper);
+            }
+        }
+        return total;
+    }
+
+    private long count(Connection c, UUID lower, UUID upper) throws SQLException {
+        var sql = "SELECT COUNT(*) FROM player_levels WHERE formula_version < ?"
+            + (lower != null ? " AND player_id > ?" : "")
+            + (upper != null ? " AND player_id <= ?" : "");
+        try (var ps = c.prepareStatement(sql)) {
+            ps.setInt(1, targetVersion);
+            var index = 2;
+            if (lower != null) {
+                dialect.bindUuid(ps, index++, lower);
+            }
+            if (upper != null) {
+                dialect.bindUuid(ps, index, upper);
+            }
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static String metaGet(DataSource dataSource, String key) throws SQLException {
+        try (
+            var c = dataSource.getConnection();
+            var ps = c.prepareStatement("SELECT meta_value FROM levelingcore_meta WHERE meta_key = ?")
+        ) {
+            ps.setString(1, key);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private void metaPut(Connection c, String key, String value) throws SQLException {
+        try (var ps = c.prepareStatement(metaPutSql)) {
+            ps.setString(1, key);
+            ps.setString(2, value);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -3,105 +3,296 @@ package com.azuredoom.levelingcore.database;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import javax.sql.DataSource;
 
 import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.config.internal.FormulaDescriptor;
 import com.azuredoom.levelingcore.config.internal.LevelFormulaFactory;
+import com.azuredoom.levelingcore.exceptions.DatabaseUnavailableException;
 import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
 import com.azuredoom.levelingcore.level.formulas.LevelFormula;
 import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
 
 /**
  * A repository implementation for managing player leveling data and metadata in a database using JDBC. This class
  * provides methods for creating the necessary tables, storing, updating, migrating, and retrieving player-related data,
  * such as experience points (XP) and metadata key-value pairs. It abstracts database operations and ensures consistent
  * data handling for the player leveling system.
+ * <p>
+ * Player rows carry a {@code version} that is incremented on every write, and writes are conditional on the version
+ * the server last saw. When several servers share one database and one of them loses the race, the repository reads
+ * the current row, rebases the local changes onto it with {@link PlayerLevelData#rebase} and retries, so no server
+ * overwrites the progress another one made. Every write also stamps {@code updated_at}, which
+ * {@link #loadChangedSince(long)} uses to find rows changed by other servers.
+ * <p>
+ * The tables are created and upgraded by the versioned steps of {@link SchemaMigrations} when the repository is
+ * constructed; a database whose schema is current only costs a single SELECT.
+ * <p>
+ * Most writes only change XP through awards and losses. Those are sent as an unconditional delta,
+ * {@code xp = GREATEST(0, xp + ?)}, of the XP gained since the stored snapshot, so awards from several servers or
+ * threads commute and never conflict. The resulting row is read back in the same transaction and the cached player is
+ * reconciled to it. XP that was assigned, for example by setting a player's level, is written with the conditional
+ * update like any other change.
+ * <p>
+ * Player reads and writes go through a {@link DatabaseCircuitBreaker}. While the database is failing or too slow the
+ * circuit opens, and these operations throw a {@link DatabaseUnavailableException} immediately instead of waiting for
+ * the connection pool.
  */
 public class JdbcLevelRepository {
 
+    /**
+     * The default number of rows sent per {@code executeBatch} call by {@link #saveAll(Collection)}.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * The number of times a write is retried after losing a version conflict before it fails.
+     */
+    public static final int MAX_CONFLICT_RETRIES = 5;
+
+    /**
+     * The number of consecutive failed or slow operations that opens the default circuit breaker.
+     */
+    public static final int DEFAULT_CIRCUIT_FAILURE_THRESHOLD = 3;
+
+    /**
+     * The duration in milliseconds above which the default circuit breaker counts an operation as failed.
+     */
+    public static final long DEFAULT_CIRCUIT_SLOW_CALL_MS = 2_000L;
+
+    /**
+     * How long in milliseconds the default circuit breaker stays open before it probes the database again.
+     */
+    public static final long DEFAULT_CIRCUIT_OPEN_MS = 30_000L;
+
+    /**
+     * The default number of worker threads used by {@link #migrateFormulaIfNeeded(LevelFormula, FormulaDescriptor)}.
+     */
+    public static final int DEFAULT_MIGRATION_THREADS = 4;
+
+    /**
+     * The default number of rows converted and committed per chunk of a formula migration.
+     */
+    public static final int DEFAULT_MIGRATION_CHUNK_SIZE = 5_000;
+
+    private static final List<String> PLAYER_COLUMNS = List.of(
+        "xp",
+        "str",
+        "agi",
+        "per",
+        "vit",
+        "intelligence",
+        "con",
+        "ability_points",
+        "used_ability_points"
+    );
+
+    private static final String DELTA_XP_SQL = """
+        UPDATE player_levels SET xp = GREATEST(0, xp + ?), version = version + 1, updated_at = ? WHERE player_id = ?
+        """;
+
+    private static final String SELECT_PLAYER_SQL = """
+        SELECT player_id, xp, str, agi, per, vit, intelligence, con, ability_points, used_ability_points, version,
+            formula_version
+        FROM player_levels
+        """;
+
+    private static final String UPGRADE_FORMULA_SQL = """
+        UPDATE player_levels SET xp = ?, formula_version = ?, version = version + 1, updated_at = ?
+        WHERE player_id = ? AND version = ?
+        """;
+
+    private static final String FORMULA_VERSION_KEY = "formula.version";
+
+    private static final String FORMULA_HISTORY_KEY_PREFIX = "formula.history.";
+
     private final DataSource dataSource;
 
+    private final SqlDialect dialect;
+
+    private final String insertSql;
+
+    private final String updateSql;
+
+    private final String metaPutSql;
+
+    private final int batchSize;
+
+    private final DatabaseCircuitBreaker breaker;
+
+    private final Map<Integer, LevelFormula> formulaHistory = new ConcurrentHashMap<>();
+
+    private volatile int formulaVersion;
+
+    private volatile LevelFormula currentFormula;
+
+    private volatile RebaseListener rebaseListener = (data, before) -> {};
+
+    /**
+     * Creates a repository for the given data source, detecting the SQL dialect from the JDBC URL reported by the
+     * connection metadata.
+     *
+     * @param dataSource The data source to read from and write to.
+     * @throws LevelingCoreException If the connection metadata cannot be read or the database is not supported.
+     */
     public JdbcLevelRepository(DataSource dataSource) {
-        this.dataSource = dataSource;
-        createTableIfNotExists();
+        this(dataSource, detectDialect(dataSource));
     }
 
     /**
-     * Ensures the existence of the "player_levels" table in the database. If the table does not already exist, it
-     * creates a new table with the necessary schema. The table consists of the following columns: - `player_id`: A
-     * unique identifier for the player, represented as a VARCHAR(36), and used as the primary key. - `xp`: A BIGINT
-     * column to store the player's experience points (XP), which cannot be null.
-     * <p>
-     * This method establishes a connection to the database using the provided DataSource and executes a SQL "CREATE
-     * TABLE IF NOT EXISTS" statement to create the table if it does not already exist. If any exception occurs during
-     * the operation, it wraps and rethrows the exception as a {@link LevelingCoreException} to provide a clear context
-     * about the failure.
-     * <p>
-     * Implementation Notes: - Uses a try-with-resources block to ensure the proper closure of the database connection
-     * and statement. - The method is private and intended to be used internally within the class during initialization
-     * to guarantee the schema's availability.
+     * Creates a repository for the given data source using the given SQL dialect.
+     *
+     * @param dataSource The data source to read from and write to.
+     * @param dialect    The {@link SqlDialect} of the database behind the data source.
+     */
+    public JdbcLevelRepository(DataSource dataSource, SqlDialect dialect) {
+        this(dataSource, dialect, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a repository for the given data source using the given SQL dialect and JDBC batch size.
      *
-     * @throws LevelingCoreException if the table creation fails due to database connectivity issues or an error in the
-     *                               SQL operation.
-     */
-    private void createTableIfNotExists() {
-        var sql = """
-            CREATE TABLE IF NOT EXISTS player_levels (
-                player_id VARCHAR(36) PRIMARY KEY,
-                xp BIGINT NOT NULL
+     * @param dataSource The data source to read from and write to.
+     * @param dialect    The {@link SqlDialect} of the database behind the data source.
+     * @param batchSize  The number of rows sent per {@code executeBatch} call by {@link #saveAll(Collection)}. Must be
+     *                   greater than 0.
+     * @throws IllegalArgumentException If the batch size is not positive.
+     */
+    public JdbcLevelRepository(DataSource dataSource, SqlDialect dialect, int batchSize) {
+        this(
+            dataSource,
+            dialect,
+            batchSize,
+            new DatabaseCircuitBreaker(
+                DEFAULT_CIRCUIT_FAILURE_THRESHOLD,
+                DEFAULT_CIRCUIT_SLOW_CALL_MS,
+                DEFAULT_CIRCUIT_OPEN_MS
             )
-            """;
+        );
+    }
 
-        try (
-            Connection connection = dataSource.getConnection();
-            Statement stmt = connection.createStatement()
-        ) {
-            stmt.execute(sql);
-
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS str INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS agi INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS per INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS vit INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS intelligence INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS con INT DEFAULT 0 NOT NULL");
-            stmt.execute("ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS ability_points INT DEFAULT 5 NOT NULL");
-            stmt.execute(
-                "ALTER TABLE player_levels ADD COLUMN IF NOT EXISTS used_ability_points INT DEFAULT 0 NOT NULL"
-            );
-        } catch (Exception e) {
-            throw new LevelingCoreException("Failed to create player_levels table", e);
+    /**
+     * Creates a repository for the given data source using the given SQL dialect, JDBC batch size and circuit breaker.
+     *
+     * @param dataSource The data source to read from and write to.
+     * @param dialect    The {@link SqlDialect} of the database behind the data source.
+     * @param batchSize  The number of rows sent per {@code executeBatch} call by {@link #saveAll(Collection)}. Must be
+     *                   greater than 0.
+     * @param breaker    The circuit breaker guarding player reads and writes.
+     * @throws IllegalArgumentException If the batch size is not positive.
+     */
+    public JdbcLevelRepository(
+        DataSource dataSource,
+        SqlDialect dialect,
+        int batchSize,
+        DatabaseCircuitBreaker breaker
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be >= 1 (got: " + batchSize + ")");
         }
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+        this.batchSize = batchSize;
+        this.breaker = breaker;
+        var writeColumns = new ArrayList<>(PLAYER_COLUMNS);
+        writeColumns.add("version");
+        writeColumns.add("updated_at");
+        this.updateSql = "UPDATE player_levels SET " + String.join(" = ?, ", writeColumns)
+            + " = ? WHERE player_id = ? AND version = ?";
+        writeColumns.add("formula_version");
+        this.insertSql = dialect.insertIfAbsent("player_levels", List.of("player_id"), writeColumns);
+        this.metaPutSql = dialect.upsert("levelingcore_meta", List.of("meta_key"), List.of("meta_value"));
+        SchemaMigrations.migrate(dataSource, dialect);
+        var storedFormulaVersion = metaGet(FORMULA_VERSION_KEY);
+        this.formulaVersion = storedFormulaVersion == null ? 0 : Integer.parseInt(storedFormulaVersion);
     }
 
     /**
-     * Ensures the existence of the "levelingcore_meta" table in the database. If the table does not exist, it creates
-     * it with the specified schema.
-     * <p>
-     * The "levelingcore_meta" table is defined with the following structure: - `meta_key`: A VARCHAR(64) that serves as
-     * the primary key. - `meta_value`: A VARCHAR(255) that cannot be null.
-     * <p>
-     * This method uses the provided data source to establish a database connection and executes the SQL statement to
-     * create the table. If the table already exists, the SQL statement has no effect.
-     * <p>
-     * If an error occurs during table creation, a {@link LevelingCoreException} is thrown.
+     * Determines the {@link SqlDialect} of the database behind the given data source from its connection metadata.
      *
-     * @throws LevelingCoreException if a database access error occurs or table creation fails.
+     * @param dataSource The data source to inspect.
+     * @return The detected {@link SqlDialect}.
+     * @throws LevelingCoreException If the connection metadata cannot be read or the database is not supported.
      */
-    private void createMetaTableIfNotExists() {
-        var sql = """
-            CREATE TABLE IF NOT EXISTS levelingcore_meta (
-                meta_key VARCHAR(64) PRIMARY KEY,
-                meta_value VARCHAR(255) NOT NULL
-            )
-            """;
-        try (var c = dataSource.getConnection(); var s = c.createStatement()) {
-            s.execute(sql);
+    private static SqlDialect detectDialect(DataSource dataSource) {
+        try (var c = dataSource.getConnection()) {
+            return SqlDialect.fromJdbcUrl(c.getMetaData().getURL());
         } catch (Exception e) {
-            throw new LevelingCoreException("Failed to create levelingcore_meta table", e);
+            throw new LevelingCoreException("Failed to detect SQL dialect", e);
+        }
+    }
+
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+
+    public DatabaseCircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Sets the listener notified when a save rebases a player onto changes another server made to their row. It is
+     * called once the player's write lock has been released.
+     *
+     * @param listener The {@link RebaseListener} to notify.
+     */
+    public void setRebaseListener(RebaseListener listener) {
+        this.rebaseListener = listener;
+    }
+
+    /**
+     * Notifies the {@link RebaseListener} of the players rebased by a save. A failing listener does not fail the save.
+     */
+    private void notifyRebased(List<Rebased> rebased) {
+        for (var entry : rebased) {
+            try {
+                rebaseListener.onRebase(entry.data(), entry.before());
+            } catch (RuntimeException e) {
+                LevelingCore.LOGGER.at(Level.WARNING)
+                    .withCause(e)
+                    .log("Rebase listener failed for player {0}", entry.data().getPlayerId());
+            }
+        }
+    }
+
+    /**
+     * Runs a player read or write through the circuit breaker, recording whether it failed and how long it took.
+     *
+     * @throws DatabaseUnavailableException If the circuit is open.
+     */
+    private <T> T guarded(Supplier<T> operation) {
+        return guarded(1, operation);
+    }
+
+    /**
+     * Runs a write of the given number of rows through the circuit breaker, which judges its duration per row.
+     *
+     * @throws DatabaseUnavailableException If the circuit is open.
+     */
+    private <T> T guarded(int rows, Supplier<T> operation) {
+        breaker.acquire();
+        var start = System.nanoTime();
+        try {
+            var result = operation.get();
+            breaker.recordSuccess(System.nanoTime() - start, rows);
+            return result;
+        } catch (RuntimeException e) {
+            breaker.recordFailure();
+            throw e;
         }
     }
 
@@ -134,9 +325,9 @@ public class JdbcLevelRepository {
      * Inserts or updates a metadata key-value pair in the database. If the specified key already exists, its
      * corresponding value is updated. If the key does not exist, a new entry is inserted.
      * <p>
-     * This operation ensures consistent storage of metadata in the "levelingcore_meta" table. The method uses two SQL
-     * statements: 1. An "UPDATE" statement to modify the value of an existing key. 2. An "INSERT" statement to create a
-     * new key-value pair if the update does not affect any rows.
+     * This operation ensures consistent storage of metadata in the "levelingcore_meta" table. The write is a single
+     * dialect-native upsert statement (see {@link SqlDialect#upsert}), so it is one round trip and is safe when two
+     * threads write the same key concurrently.
      * <p>
      * Any database operation failure is wrapped and rethrown as a {@link LevelingCoreException}.
      *
@@ -144,224 +335,592 @@ public class JdbcLevelRepository {
      * @param value The metadata value as a {@link String}. It is stored or updated in association with the provided
      *              key.
      * @throws LevelingCoreException If any database operation fails, such as connection issues, invalid SQL, or errors
-     *                               during the update or insert process.
+     *                               during the upsert.
      */
     private void metaPut(String key, String value) {
-        var update = "UPDATE levelingcore_meta SET meta_value = ? WHERE meta_key = ?";
-        var insert = "INSERT INTO levelingcore_meta (meta_key, meta_value) VALUES (?, ?)";
-        try (var c = dataSource.getConnection()) {
-            int changed;
-            try (var ps = c.prepareStatement(update)) {
-                ps.setString(1, value);
-                ps.setString(2, key);
-                changed = ps.executeUpdate();
-            }
-            if (changed == 0) {
-                try (var ps = c.prepareStatement(insert)) {
-                    ps.setString(1, key);
-                    ps.setString(2, value);
-                    ps.executeUpdate();
-                }
-            }
+        try (var c = dataSource.getConnection(); var ps = c.prepareStatement(metaPutSql)) {
+            ps.setString(1, key);
+            ps.setString(2, value);
+            ps.executeUpdate();
         } catch (Exception e) {
             throw new LevelingCoreException("Failed to write meta key: " + key, e);
         }
     }
 
+    /**
+     * Migrates the XP data across all players in the database to align with a new leveling formula while maintaining
+     * the same player levels, using the {@link MigrationStrategy#EAGER} strategy with
+     * {@link #DEFAULT_MIGRATION_THREADS} workers and chunks of {@link #DEFAULT_MIGRATION_CHUNK_SIZE} rows.
+     *
+     * @param newFormula The new leveling formula represented by a {@link LevelFormula}.
+     * @param newDesc    The descriptor of the new formula, represented as a {@link FormulaDescriptor}.
+     * @throws LevelingCoreException If any database operation fails while performing the data migration.
+     * @see #migrateFormulaIfNeeded(LevelFormula, FormulaDescriptor, MigrationStrategy, int, int)
+     */
+    public void migrateFormulaIfNeeded(LevelFormula newFormula, FormulaDescriptor newDesc) {
+        migrateFormulaIfNeeded(
+            newFormula,
+            newDesc,
+            MigrationStrategy.EAGER,
+            DEFAULT_MIGRATION_THREADS,
+            DEFAULT_MIGRATION_CHUNK_SIZE
+        );
+    }
+
     /**
      * Migrates the XP data across all players in the database to align with a new leveling formula while maintaining
      * the same player levels. This operation ensures that players retain their current levels after a formula change by
      * recalculating their XP based on the provided {@link LevelFormula} and updating the database content accordingly.
      * <p>
-     * The migration is performed only if the provided formula descriptor differs from the one stored in the database
-     * metadata. If the existing database metadata already matches the new formula descriptor, this method exits without
-     * performing the migration.
-     * <p>
-     * The steps involved in the migration process include: 1. Reading the current formula metadata and comparing it
-     * with the new formula descriptor. 2. Re-calculating each player's XP based on the corresponding level in the new
-     * formula. 3. Updating the database with the re-calculated XP for each player. 4. Storing the new formula
-     * descriptor to metadata upon successful migration.
+     * Every formula gets a formula version, and its descriptor is kept in {@code levelingcore_meta} under that version.
+     * Each player row records the formula version its XP was written under, so a row can always be converted from the
+     * formula it was actually stored with. If the provided descriptor matches the current formula, nothing changes;
+     * otherwise it is recorded as the next formula version and the players are converted according to the strategy:
+     * <ul>
+     * <li>{@link MigrationStrategy#EAGER} converts every stale row now (see {@link FormulaMigration}). Rows stored
+     * under a LINEAR or EXPONENTIAL formula are rewritten by the database with one UPDATE per formula version against a
+     * small table of the levels present. The remaining rows are split into {@code player_id} ranges that are converted
+     * in parallel, each by its own worker and connection in keyset-paginated chunks that are committed independently.
+     * An interrupted migration resumes on the next start, and progress and the estimated remaining time are logged
+     * while it runs.</li>
+     * <li>{@link MigrationStrategy#LAZY} only records the new formula, which takes constant time regardless of the
+     * number of players. A stale row is converted and written back by {@link #load(UUID)} the first time the player is
+     * loaded, so players that never return cost nothing.</li>
+     * </ul>
+     * Stale rows are converted on load with either strategy, so rows left over by an interrupted eager migration or by
+     * an earlier lazy one are always read correctly.
      *
      * @param newFormula The new leveling formula represented by a {@link LevelFormula}. This formula provides methods
      *                   to calculate XP for a given level and vice versa.
      * @param newDesc    The descriptor of the new formula, represented as a {@link FormulaDescriptor}. This descriptor
      *                   consists of the formula type and its parameters, which are used to identify the formula and
      *                   check for differences during migration.
+     * @param strategy   Whether stale players are converted now or when they are next loaded.
+     * @param threads    The number of worker threads of an eager migration, each holding one connection while it runs.
+     * @param chunkSize  The number of rows converted and committed per chunk of an eager migration.
      * @throws LevelingCoreException If any database operation fails, such as connection issues, invalid SQL, or errors
-     *                               while performing the data migration.
+     *                               while performing the data migration. Chunks committed before the failure stay
+     *                               migrated.
      */
-    public void migrateFormulaIfNeeded(LevelFormula newFormula, FormulaDescriptor newDesc) {
-        createMetaTableIfNotExists();
-
+    public void migrateFormulaIfNeeded(
+        LevelFormula newFormula,
+        FormulaDescriptor newDesc,
+        MigrationStrategy strategy,
+        int threads,
+        int chunkSize
+    ) {
         var oldType = metaGet("formula.type");
         var oldParams = metaGet("formula.params");
+        var storedVersion = metaGet(FORMULA_VERSION_KEY);
+        var version = storedVersion == null ? 0 : Integer.parseInt(storedVersion);
+        var changed = false;
 
         if (oldType == null || oldParams == null) {
-            metaPut("formula.type", newDesc.type());
-            metaPut("formula.params", newDesc.params());
-            return;
+            recordFormula(version, newDesc);
+        } else {
+            if (storedVersion == null) {
+                // Rows written before formula versions were tracked are at version 0 under the stored formula
+                recordFormula(0, new FormulaDescriptor(oldType, oldParams));
+            }
+            if (!oldType.equalsIgnoreCase(newDesc.type()) || !oldParams.equals(newDesc.params())) {
+                version++;
+                recordFormula(version, newDesc);
+                changed = true;
+                LevelingCore.LOGGER.at(Level.INFO)
+                    .log("Formula changed to {0}, now formula version {1}", newDesc.type(), version);
+            }
         }
 
-        if (oldType.equalsIgnoreCase(newDesc.type()) && oldParams.equals(newDesc.params())) {
-            return;
+        formulaHistory.put(version, newFormula);
+        formulaVersion = version;
+        currentFormula = newFormula;
+
+        try {
+            if (strategy == MigrationStrategy.EAGER && (changed || FormulaMigration.isPending(dataSource))) {
+                new FormulaMigration(
+                    dataSource,
+                    dialect,
+                    this::formulaForVersion,
+                    this::descriptorForVersion,
+                    version,
+                    threads,
+                    chunkSize
+                ).run();
+            } else if (changed) {
+                LevelingCore.LOGGER.at(Level.INFO)
+                    .log("Players will be converted to formula version {0} when they are next loaded", version);
+            }
+        } catch (SQLException e) {
+            throw new LevelingCoreException("Failed to check for an interrupted formula migration", e);
         }
+    }
 
-        var oldFormula = LevelFormulaFactory.formulaFromDescriptor(
-            new FormulaDescriptor(oldType, oldParams)
-        );
+    /**
+     * Records the descriptor of a formula version and makes it the current formula, in one transaction.
+     */
+    private void recordFormula(int version, FormulaDescriptor desc) {
+        try (var c = dataSource.getConnection()) {
+            c.setAutoCommit(false);
+            try (var ps = c.prepareStatement(metaPutSql)) {
+                for (
+                    var entry : List.of(
+                        Map.entry(FORMULA_HISTORY_KEY_PREFIX + version + ".type", desc.type()),
+                        Map.entry(FORMULA_HISTORY_KEY_PREFIX + version + ".params", desc.params()),
+                        Map.entry(FORMULA_VERSION_KEY, Integer.toString(version)),
+                        Map.entry("formula.type", desc.type()),
+                        Map.entry("formula.params", desc.params())
+                    )
+                ) {
+                    ps.setString(1, entry.getKey());
+                    ps.setString(2, entry.getValue());
+                    ps.executeUpdate();
+                }
+            }
+            c.commit();
+        } catch (Exception e) {
+            throw new LevelingCoreException("Failed to record formula version " + version, e);
+        }
+    }
 
-        LevelingCore.LOGGER.at(Level.INFO).log("Starting formula migration to {0}", newDesc.type());
+    /**
+     * Saves the level-related data for a player. A player without a row is inserted; an existing row is updated only if
+     * its version still matches the version this server last read or wrote. If another server wrote the row in the
+     * meantime, the local changes are rebased onto the current row and the write is retried, up to
+     * {@link #MAX_CONFLICT_RETRIES} times, and the {@link RebaseListener} is notified once the save is done.
+     * <p>
+     * The player's {@link PlayerLevelData#writeLock()} is held for the duration of the save. If a batch is writing the
+     * player, the save waits for it to finish first.
+     *
+     * @param data The {@link PlayerLevelData} instance containing the player's unique identifier and progression.
+     * @throws LevelingCoreException        if any database operation fails, such as connection issues or invalid SQL,
+     *                                      or if the write keeps conflicting with other servers.
+     * @throws DatabaseUnavailableException if the circuit breaker is open.
+     */
+    public void save(PlayerLevelData data) {
+        guarded(() -> {
+            write(data);
+            return null;
+        });
+    }
 
-        final var select = "SELECT player_id, xp FROM player_levels";
+    private void write(PlayerLevelData data) {
+        var rebased = new ArrayList<Rebased>();
+        try {
+            write(data, rebased);
+        } finally {
+            notifyRebased(rebased);
+        }
+    }
 
-        final var createTemp =
-            "CREATE TEMP TABLE IF NOT EXISTS tmp_player_xp (" +
-                "  player_id UUID PRIMARY KEY," +
-                "  xp BIGINT" +
-                ")";
-        final var truncateTemp = "TRUNCATE TABLE tmp_player_xp";
-        final var insertTemp = "INSERT INTO tmp_player_xp (player_id, xp) VALUES (?, ?)";
+    /**
+     * Writes a single player, retrying after version conflicts. The players rebased along the way are added to
+     * {@code rebased}.
+     */
+    private void write(PlayerLevelData data, List<Rebased> rebased) {
+        var lock = data.writeLock();
+        lock.lock();
+        try {
+            data.awaitWrite();
+            try (Connection connection = dataSource.getConnection()) {
+                for (var attempt = 0; !tryWrite(connection, data, rebased); attempt++) {
+                    if (attempt >= MAX_CONFLICT_RETRIES) {
+                        throw new LevelingCoreException(
+                            "Gave up saving player " + data.getPlayerId() + " after " + attempt + " version conflicts"
+                        );
+                    }
+                    resolveConflict(connection, data, rebased);
+                }
+            }
+        } catch (LevelingCoreException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LevelingCoreException("Failed to save player level data", e);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        try (var c = dataSource.getConnection()) {
-            c.setAutoCommit(false);
+    /**
+     * Saves the level-related data of many players at once. Updates of existing rows are sent with
+     * {@code addBatch}/{@code executeBatch} in chunks of the configured batch size over a single connection, and the
+     * whole batch is committed as one transaction. If any chunk fails, the whole transaction is rolled back. Players
+     * whose only change is XP from awards and losses are written as deltas and read back in one query per chunk before
+     * the commit.
+     * <p>
+     * Players whose row was changed by another server in the meantime are not written by the batch; once it has been
+     * committed they are rebased and saved individually through {@link #save(PlayerLevelData)}. Drivers that report
+     * {@link Statement#SUCCESS_NO_INFO} for a batched update are trusted to have written the row.
+     * <p>
+     * No {@link PlayerLevelData#writeLock()} is held while the batch talks to the database. Each player's lock is only
+     * taken to read the state to write and claim the player with {@link PlayerLevelData#tryClaimWrite(Object)}, and
+     * again to record the result and release the claim. Other writes and rebases of a claimed player on this server
+     * wait for the batch, and writes by other servers are caught by the version check. Players already claimed by
+     * another batch are saved individually once this batch is done.
+     *
+     * @param data The {@link PlayerLevelData} instances to save. An empty collection is a no-op.
+     * @throws LevelingCoreException        if any database operation fails, such as connection issues or invalid SQL.
+     * @throws DatabaseUnavailableException if the circuit breaker is open.
+     */
+    public void saveAll(Collection<PlayerLevelData> data) {
+        if (data.isEmpty()) {
+            return;
+        }
+        guarded(data.size(), () -> {
+            writeAll(data);
+            return null;
+        });
+    }
 
-            try (var st = c.createStatement()) {
-                st.execute("SET WRITE_DELAY 1000");
-                st.execute("SET LOCK_MODE 0");
-            } catch (Exception ignored) {}
+    private void writeAll(Collection<PlayerLevelData> data) {
+        var owner = new Object();
+        var claims = new ArrayList<Claim>(data.size());
+        var deferred = new ArrayList<PlayerLevelData>();
+        var rebased = new ArrayList<Rebased>();
+        try {
+            for (var entry : data) {
+                var claim = claim(entry, owner);
+                if (claim != null) {
+                    claims.add(claim);
+                } else {
+                    deferred.add(entry);
+                }
+            }
+            Batch batch = null;
+            try (Connection connection = dataSource.getConnection()) {
+                batch = writeBatch(connection, claims);
+            } catch (Exception e) {
+                throw new LevelingCoreException(
+                    "Failed to save player level data batch (" + data.size() + " players)",
+                    e
+                );
+            } finally {
+                for (var claim : claims) {
+                    settle(claim, owner, batch, rebased);
+                }
+            }
+            deferred.addAll(batch.conflicts());
+            deferred.forEach(entry -> write(entry, rebased));
+        } finally {
+            notifyRebased(rebased);
+        }
+    }
 
-            final var levelToNewXp = new java.util.HashMap<Integer, Long>(1024);
+    /**
+     * Reads the state of a player to write in a batch and claims the player for the batch, holding their write lock
+     * only while doing so.
+     *
+     * @return The claimed state, or {@code null} if another batch is writing the player.
+     */
+    private static Claim claim(PlayerLevelData data, Object owner) {
+        var lock = data.writeLock();
+        lock.lock();
+        try {
+            return data.tryClaimWrite(owner) ? new Claim(data, data.stored(), data.local()) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            try (var st = c.createStatement()) {
-                st.execute(createTemp);
-                st.execute(truncateTemp);
+    /**
+     * Records the outcome of a batch for a claimed player and releases the claim, under the player's write lock.
+     * Players rebased while reconciling XP deltas are added to {@code rebased}.
+     *
+     * @param batch The committed batch, or {@code null} if it failed and nothing was written.
+     */
+    private static void settle(Claim claim, Object owner, Batch batch, List<Rebased> rebased) {
+        var data = claim.data();
+        var lock = data.writeLock();
+        lock.lock();
+        try {
+            data.releaseWrite(owner);
+            if (batch == null) {
+                return;
+            }
+            var written = batch.written().get(data);
+            if (written != null) {
+                data.markStored(written.snapshot(), written.version());
+            }
+            var delta = batch.deltas().get(data);
+            if (delta != null) {
+                reconcile(delta, batch.rows().get(data.getPlayerId()), rebased);
             }
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            try (
-                var psSel = c.prepareStatement(
-                    select,
-                    ResultSet.TYPE_FORWARD_ONLY,
-                    ResultSet.CONCUR_READ_ONLY
-                );
-                var psIns = c.prepareStatement(insertTemp)
-            ) {
-                psSel.setFetchSize(10_000);
-
-                var batch = 0;
-                var processed = 0;
-
-                try (var rs = psSel.executeQuery()) {
-                    while (rs.next()) {
-                        var playerId = rs.getObject(1, UUID.class);
-                        var oldXp = rs.getLong(2);
-
-                        var level = oldFormula.getLevelForXp(oldXp);
-
-                        Long newXpObj = levelToNewXp.get(level);
-                        long newXp;
-                        if (newXpObj != null) {
-                            newXp = newXpObj;
-                        } else {
-                            newXp = newFormula.getXpForLevel(level);
-                            levelToNewXp.put(level, newXp);
-                        }
-
-                        psIns.setObject(1, playerId);
-                        psIns.setLong(2, newXp);
-                        psIns.addBatch();
-
-                        if (++batch >= 10_000) {
-                            psIns.executeBatch();
-                            batch = 0;
-                        }
-
-                        processed++;
-                        if ((processed % 50_000) == 0) {
-                            LevelingCore.LOGGER.at(Level.INFO).log("Migration staging progress: {0} rows", processed);
-                        }
+    /**
+     * Writes the claimed state of the given players in one transaction. Nothing is recorded on the players; the
+     * returned outcome is applied by {@link #settle} once the transaction has been committed.
+     */
+    private Batch writeBatch(Connection connection, List<Claim> claims) throws SQLException {
+        var autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (
+            PreparedStatement update = connection.prepareStatement(updateSql);
+            PreparedStatement delta = connection.prepareStatement(DELTA_XP_SQL);
+            PreparedStatement insert = connection.prepareStatement(insertSql)
+        ) {
+            var now = System.currentTimeMillis();
+            var batched = new ArrayList<Write>();
+            var batchedDeltas = new ArrayList<Write>();
+            var written = new ArrayList<Write>(claims.size());
+            var deltas = new ArrayList<Write>();
+            var conflicts = new ArrayList<PlayerLevelData>();
+            for (var claim : claims) {
+                var entry = claim.data();
+                var stored = claim.stored();
+                var local = claim.local();
+                var snapshot = local.snapshot();
+                if (stored.exists() && snapshot.equals(stored.snapshot())) {
+                    continue;
+                }
+                if (isXpDelta(stored, local)) {
+                    bindDelta(delta, entry.getPlayerId(), snapshot.xp() - stored.snapshot().xp(), now);
+                    delta.addBatch();
+                    batchedDeltas.add(new Write(entry, snapshot, stored.version()));
+                    if (batchedDeltas.size() >= batchSize) {
+                        executeUpdates(delta, batchedDeltas, deltas, conflicts);
+                    }
+                } else if (stored.exists()) {
+                    bindUpdate(update, entry.getPlayerId(), snapshot, stored.version(), now);
+                    update.addBatch();
+                    batched.add(new Write(entry, snapshot, stored.version() + 1));
+                    if (batched.size() >= batchSize) {
+                        executeUpdates(update, batched, written, conflicts);
+                    }
+                } else {
+                    // Inserts of new players are rare and sent one by one, since some drivers do not report the
+                    // update counts of rewritten insert batches.
+                    bindInsert(insert, entry.getPlayerId(), snapshot, now);
+                    if (insert.executeUpdate() > 0) {
+                        written.add(new Write(entry, snapshot, 0L));
+                    } else {
+                        conflicts.add(entry);
                     }
                 }
+            }
+            if (!batched.isEmpty()) {
+                executeUpdates(update, batched, written, conflicts);
+            }
+            if (!batchedDeltas.isEmpty()) {
+                executeUpdates(delta, batchedDeltas, deltas, conflicts);
+            }
+            var rows = readBack(connection, deltas);
+            connection.commit();
+            return new Batch(byPlayer(written), byPlayer(deltas), rows, conflicts);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
 
-                if (batch > 0) {
-                    psIns.executeBatch();
+    private static Map<PlayerLevelData, Write> byPlayer(List<Write> writes) {
+        var map = new IdentityHashMap<PlayerLevelData, Write>(writes.size());
+        writes.forEach(write -> map.put(write.data(), write));
+        return map;
+    }
+
+    private static void executeUpdates(
+        PreparedStatement update,
+        List<Write> batched,
+        List<Write> written,
+        List<PlayerLevelData> conflicts
+    ) throws SQLException {
+        var counts = update.executeBatch();
+        for (var i = 0; i < batched.size(); i++) {
+            if (counts[i] == 0) {
+                conflicts.add(batched.get(i).data());
+            } else {
+                written.add(batched.get(i));
+            }
+        }
+        batched.clear();
+    }
+
+    /**
+     * Reads the rows of the players written as XP deltas, in chunks of the configured batch size.
+     */
+    private Map<UUID, PlayerLevelData> readBack(Connection connection, List<Write> deltas) throws SQLException {
+        var rows = new HashMap<UUID, PlayerLevelData>(deltas.size() * 2);
+        for (var from = 0; from < deltas.size(); from += batchSize) {
+            var chunk = deltas.subList(from, Math.min(from + batchSize, deltas.size()));
+            var placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            var sql = SELECT_PLAYER_SQL + " WHERE player_id IN (" + placeholders + ")";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (var i = 0; i < chunk.size(); i++) {
+                    dialect.bindUuid(ps, i + 1, chunk.get(i).data().getPlayerId());
+                }
+                var rs = ps.executeQuery();
+                while (rs.next()) {
+                    var row = readPlayer(dialect.readUuid(rs, "player_id"), rs);
+                    rows.put(row.getPlayerId(), row);
                 }
             }
+        }
+        return rows;
+    }
 
-            c.commit();
+    /**
+     * Returns whether the local state differs from the stored row in XP only and the XP was only changed by awards and
+     * losses, so it can be written as a delta. XP that was assigned, for example by setting the player's level, is
+     * written with the conditional update instead, so it is not merged with XP other servers added.
+     */
+    private static boolean isXpDelta(PlayerLevelData.StoredState stored, PlayerLevelData.LocalState local) {
+        var snapshot = local.snapshot();
+        return !local.xpAssigned()
+            && stored.exists()
+            && snapshot.withXp(stored.snapshot().xp()).equals(stored.snapshot());
+    }
 
-            LevelingCore.LOGGER.at(Level.INFO).log("Formula migration completed successfully");
-        } catch (Exception e) {
-            throw new LevelingCoreException("Failed to migrate XP to preserve levels", e);
+    /**
+     * Reconciles a player written as an XP delta with the row read back afterwards. The row contains the delta along
+     * with any change other servers made, so the player is rebased onto it as if the written snapshot had been stored
+     * under the previous version; XP gained locally after the snapshot was taken is kept on top.
+     *
+     * @param write   The delta write, carrying the version the row had before it.
+     * @param row     The row read back after the write, or {@code null} if it has been deleted since.
+     * @param rebased Receives the player if the row contained changes made by other servers.
+     */
+    private static void reconcile(Write write, PlayerLevelData row, List<Rebased> rebased) {
+        var data = write.data();
+        if (row == null) {
+            data.markStored(write.snapshot(), -1L);
+            return;
+        }
+        data.markStored(write.snapshot(), write.version());
+        var before = data.snapshot();
+        data.rebase(row.stored().snapshot(), row.stored().version());
+        // Only a row that other servers changed as well differs from what was written here.
+        if (!row.stored().snapshot().equals(write.snapshot())) {
+            rebased.add(new Rebased(data, before));
         }
-
-        // Only update meta after successful commit
-        metaPut("formula.type", newDesc.type());
-        metaPut("formula.params", newDesc.params());
     }
 
     /**
-     * Saves the level-related data for a player. This method updates the player's experience points (XP) in the
-     * database if an entry for the player already exists. If no entry exists, a new row is created.
-     * <p>
-     * The method uses two SQL statements: 1. An "UPDATE" statement to modify the player's existing XP value if the
-     * player ID is found. 2. An "INSERT" statement to create a new entry with the player ID and XP if the update
-     * operation did not affect any rows.
-     * <p>
-     * This method ensures that player XP data is consistently stored in the database and handles scenarios where a
-     * player record needs to be either updated or inserted.
+     * Performs a single write of the player's current snapshot: an XP delta if only XP changed through awards and
+     * losses, otherwise a conditional update or an insert.
      *
-     * @param data The {@link PlayerLevelData} instance containing the player's unique identifier and XP value. The
-     *             unique identifier is used to check for existing database entries, and the XP value is saved or
-     *             updated accordingly.
-     * @throws LevelingCoreException if any database operation fails, such as connection issues or invalid SQL.
+     * @return {@code true} if the row was written; {@code false} if another server wrote it first.
      */
-    public void save(PlayerLevelData data) {
-        var updateSql =
-            """
-                    UPDATE player_levels
-                    SET xp = ?, str = ?, agi = ?, per = ?, vit = ?, intelligence = ?, con = ?, ability_points = ?, used_ability_points = ?
-                    WHERE player_id = ?
-                """;
-        var insertSql = """
-                INSERT INTO player_levels
-                (player_id, xp, str, agi, per, vit, intelligence, con, ability_points, used_ability_points)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (Connection connection = dataSource.getConnection()) {
-            int updated;
+    private boolean tryWrite(Connection connection, PlayerLevelData data, List<Rebased> rebased) throws SQLException {
+        var stored = data.stored();
+        var local = data.local();
+        var snapshot = local.snapshot();
+        var now = System.currentTimeMillis();
+        if (stored.exists() && snapshot.equals(stored.snapshot())) {
+            return true;
+        }
+        if (isXpDelta(stored, local)) {
+            try (PreparedStatement ps = connection.prepareStatement(DELTA_XP_SQL)) {
+                bindDelta(ps, data.getPlayerId(), snapshot.xp() - stored.snapshot().xp(), now);
+                if (ps.executeUpdate() == 0) {
+                    return false;
+                }
+            }
+            reconcile(new Write(data, snapshot, stored.version()), load(connection, data.getPlayerId()), rebased);
+        } else if (stored.exists()) {
             try (PreparedStatement ps = connection.prepareStatement(updateSql)) {
-                ps.setLong(1, data.getXp());
-                ps.setInt(2, data.getStr());
-                ps.setInt(3, data.getAgi());
-                ps.setInt(4, data.getPer());
-                ps.setInt(5, data.getVit());
-                ps.setInt(6, data.getIntelligence());
-                ps.setInt(7, data.getCon());
-                ps.setInt(8, data.getAbilityPoints());
-                ps.setInt(9, data.getUsedAbilityPoints());
-                ps.setString(10, data.getPlayerId().toString());
-                updated = ps.executeUpdate();
+                bindUpdate(ps, data.getPlayerId(), snapshot, stored.version(), now);
+                if (ps.executeUpdate() == 0) {
+                    return false;
+                }
             }
-
-            if (updated == 0) {
-                try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
-                    ps.setString(1, data.getPlayerId().toString());
-                    ps.setLong(2, data.getXp());
-                    ps.setInt(3, data.getStr());
-                    ps.setInt(4, data.getAgi());
-                    ps.setInt(5, data.getPer());
-                    ps.setInt(6, data.getVit());
-                    ps.setInt(7, data.getIntelligence());
-                    ps.setInt(8, data.getCon());
-                    ps.setInt(9, data.getAbilityPoints());
-                    ps.setInt(10, data.getUsedAbilityPoints());
-                    ps.executeUpdate();
+            data.markStored(snapshot, stored.version() + 1);
+        } else {
+            try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
+                bindInsert(ps, data.getPlayerId(), snapshot, now);
+                if (ps.executeUpdate() == 0) {
+                    return false;
                 }
             }
-        } catch (Exception e) {
-            throw new LevelingCoreException("Failed to save player level data", e);
+            data.markStored(snapshot, 0L);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the player's current row after a lost version conflict and rebases the local changes onto it, adding the
+     * player to {@code rebased}. If the row has been deleted, the next write inserts it again.
+     */
+    private void resolveConflict(Connection connection, PlayerLevelData data, List<Rebased> rebased)
+        throws SQLException {
+        var remote = load(connection, data.getPlayerId());
+        if (remote == null) {
+            data.markStored(data.stored().snapshot(), -1L);
+            return;
         }
+        var remoteStored = remote.stored();
+        var before = data.snapshot();
+        if (data.rebase(remoteStored.snapshot(), remoteStored.version())) {
+            rebased.add(new Rebased(data, before));
+        }
+        LevelingCore.LOGGER.at(Level.FINE)
+            .log(
+                "Player {0} was changed by another server, rebased onto version {1}",
+                data.getPlayerId(),
+                remoteStored.version()
+            );
+    }
+
+    /**
+     * Binds the progression columns, the new version and {@code updated_at} of the conditional update, followed by the
+     * player's identifier and the expected version.
+     */
+    private void bindUpdate(
+        PreparedStatement ps,
+        UUID playerId,
+        PlayerSnapshot snapshot,
+        long expectedVersion,
+        long updatedAt
+    ) throws SQLException {
+        var index = bindColumns(ps, 1, snapshot);
+        ps.setLong(index++, expectedVersion + 1);
+        ps.setLong(index++, updatedAt);
+        dialect.bindUuid(ps, index++, playerId);
+        ps.setLong(index, expectedVersion);
+    }
+
+    /**
+     * Binds the XP delta, {@code updated_at} and the player's identifier of the delta update.
+     */
+    private void bindDelta(PreparedStatement ps, UUID playerId, long xpDelta, long updatedAt) throws SQLException {
+        ps.setLong(1, xpDelta);
+        ps.setLong(2, updatedAt);
+        dialect.bindUuid(ps, 3, playerId);
+    }
+
+    /**
+     * Binds the player's identifier, progression columns, initial version, {@code updated_at} and current formula
+     * version of the insert-if-absent statement, in the column order produced by {@link SqlDialect#insertIfAbsent}.
+     */
+    private void bindInsert(PreparedStatement ps, UUID playerId, PlayerSnapshot snapshot, long updatedAt)
+        throws SQLException {
+        dialect.bindUuid(ps, 1, playerId);
+        var index = bindColumns(ps, 2, snapshot);
+        ps.setLong(index++, 0L);
+        ps.setLong(index++, updatedAt);
+        ps.setInt(index, formulaVersion);
+    }
+
+    /**
+     * Binds the progression columns in {@code PLAYER_COLUMNS} order, starting at the given parameter index.
+     *
+     * @return The index of the next parameter.
+     */
+    private static int bindColumns(PreparedStatement ps, int index, PlayerSnapshot snapshot) throws SQLException {
+        ps.setLong(index++, snapshot.xp());
+        ps.setInt(index++, snapshot.str());
+        ps.setInt(index++, snapshot.agi());
+        ps.setInt(index++, snapshot.per());
+        ps.setInt(index++, snapshot.vit());
+        ps.setInt(index++, snapshot.intelligence());
+        ps.setInt(index++, snapshot.con());
+        ps.setInt(index++, snapshot.abilityPoints());
+        ps.setInt(index++, snapshot.usedAbilityPoints());
+        return index;
     }
 
     /**
@@ -373,40 +932,174 @@ public class JdbcLevelRepository {
      * @param id The unique identifier of the player as a {@link UUID}.
      * @return A {@link PlayerLevelData} instance containing the player's XP and unique identifier, or null if no data
      *         exists for the given UUID.
-     * @throws LevelingCoreException if any database operation fails, such as connection issues or invalid SQL.
+     * @throws LevelingCoreException        if any database operation fails, such as connection issues or invalid SQL.
+     * @throws DatabaseUnavailableException if the circuit breaker is open.
      */
     public PlayerLevelData load(UUID id) {
-        var sql = """
-                SELECT xp, str, agi, per, vit, intelligence, con, ability_points, used_ability_points
-                FROM player_levels
-                WHERE player_id = ?
-            """;
+        return guarded(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return load(connection, id);
+            } catch (Exception e) {
+                throw new LevelingCoreException("Failed to load player level data", e);
+            }
+        });
+    }
 
-        try (
-            Connection connection = dataSource.getConnection();
-            PreparedStatement ps = connection.prepareStatement(sql)
-        ) {
+    /**
+     * Reads the player's row, first converting it to the current formula if it was stored under an older formula
+     * version.
+     */
+    private PlayerLevelData load(Connection connection, UUID id) throws SQLException {
+        for (var attempt = 0; attempt <= MAX_CONFLICT_RETRIES; attempt++) {
+            try (PreparedStatement ps = connection.prepareStatement(SELECT_PLAYER_SQL + " WHERE player_id = ?")) {
+                dialect.bindUuid(ps, 1, id);
 
-            ps.setString(1, id.toString());
+                var rs = ps.executeQuery();
+                if (!rs.next()) {
+                    return null;
+                }
+                var row = readPlayer(id, rs);
+                var rowFormulaVersion = rs.getInt("formula_version");
+                if (!isStale(rowFormulaVersion)) {
+                    return row;
+                }
+                var upgraded = upgradeFormula(connection, row, rowFormulaVersion);
+                if (upgraded != null) {
+                    return upgraded;
+                }
+            }
+        }
+        throw new LevelingCoreException("Player " + id + " kept changing while converting it to the current formula");
+    }
 
-            var rs = ps.executeQuery();
-            if (rs.next()) {
-                var data = new PlayerLevelData(id);
-                data.setXp(rs.getLong("xp"));
-                data.setStr(rs.getInt("str"));
-                data.setAgi(rs.getInt("agi"));
-                data.setPer(rs.getInt("per"));
-                data.setVit(rs.getInt("vit"));
-                data.setIntelligence(rs.getInt("intelligence"));
-                data.setCon(rs.getInt("con"));
-                data.setAbilityPoints(rs.getInt("ability_points"));
-                data.setUsedAbilityPoints(rs.getInt("used_ability_points"));
-                return data;
+    /**
+     * Returns whether a row stored under the given formula version has to be converted before use. Rows are never
+     * converted before {@link #migrateFormulaIfNeeded} has set the current formula, and rows another server wrote
+     * under a newer formula version are left alone.
+     */
+    private boolean isStale(int rowFormulaVersion) {
+        return currentFormula != null && rowFormulaVersion < formulaVersion;
+    }
+
+    /**
+     * Converts a row stored under an older formula version to the current formula, keeping the player's level, and
+     * writes it back conditionally on its row version.
+     *
+     * @return The converted row, or {@code null} if another server changed the row in the meantime.
+     */
+    private PlayerLevelData upgradeFormula(Connection connection, PlayerLevelData row, int fromVersion)
+        throws SQLException {
+        var target = currentFormula;
+        var targetVersion = formulaVersion;
+        var stored = row.stored();
+        var xp = stored.snapshot().xp();
+        var newXp = target.getXpForLevel(formulaForVersion(fromVersion).getLevelForXp(xp));
+        try (PreparedStatement ps = connection.prepareStatement(UPGRADE_FORMULA_SQL)) {
+            ps.setLong(1, newXp);
+            ps.setInt(2, targetVersion);
+            ps.setLong(3, System.currentTimeMillis());
+            dialect.bindUuid(ps, 4, row.getPlayerId());
+            ps.setLong(5, stored.version());
+            if (ps.executeUpdate() == 0) {
+                return null;
             }
-            return null;
-        } catch (Exception e) {
-            throw new LevelingCoreException("Failed to load player level data", e);
         }
+        LevelingCore.LOGGER.at(Level.FINE)
+            .log(
+                "Converted player {0} from formula version {1} to {2}: {3} -> {4} XP",
+                row.getPlayerId(),
+                fromVersion,
+                targetVersion,
+                xp,
+                newXp
+            );
+        return new PlayerLevelData(row.getPlayerId(), stored.snapshot().withXp(newXp), stored.version() + 1);
+    }
+
+    /**
+     * Returns the formula that was current under the given formula version, rebuilding it from the descriptor
+     * recorded in {@code levelingcore_meta} the first time it is needed.
+     *
+     * @throws LevelingCoreException If no formula was recorded for the version.
+     */
+    private LevelFormula formulaForVersion(int version) {
+        return formulaHistory.computeIfAbsent(
+            version,
+            v -> LevelFormulaFactory.formulaFromDescriptor(descriptorForVersion(v))
+        );
+    }
+
+    /**
+     * Returns the descriptor recorded in {@code levelingcore_meta} for the given formula version.
+     *
+     * @throws LevelingCoreException If no formula was recorded for the version.
+     */
+    private FormulaDescriptor descriptorForVersion(int version) {
+        var type = metaGet(FORMULA_HISTORY_KEY_PREFIX + version + ".type");
+        var params = metaGet(FORMULA_HISTORY_KEY_PREFIX + version + ".params");
+        if (type == null || params == null) {
+            throw new LevelingCoreException("No formula recorded for formula version " + version);
+        }
+        return new FormulaDescriptor(type, params);
+    }
+
+    /**
+     * Loads every player whose row was written after the given time, by this or any other server sharing the
+     * database. Used to detect cached players that another server has changed.
+     *
+     * @param sinceMillis The time in epoch milliseconds; rows with a later {@code updated_at} are returned.
+     * @return The changed players, each carrying the version of its row.
+     * @throws LevelingCoreException        if any database operation fails, such as connection issues or invalid SQL.
+     * @throws DatabaseUnavailableException if the circuit breaker is open.
+     */
+    public List<PlayerLevelData> loadChangedSince(long sinceMillis) {
+        return guarded(() -> {
+            try (
+                Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(SELECT_PLAYER_SQL + " WHERE updated_at > ?")
+            ) {
+                ps.setLong(1, sinceMillis);
+
+                var changed = new ArrayList<PlayerLevelData>();
+                var stale = new ArrayList<UUID>();
+                var rs = ps.executeQuery();
+                while (rs.next()) {
+                    var id = dialect.readUuid(rs, "player_id");
+                    if (isStale(rs.getInt("formula_version"))) {
+                        stale.add(id);
+                    } else {
+                        changed.add(readPlayer(id, rs));
+                    }
+                }
+                for (var id : stale) {
+                    var row = load(connection, id);
+                    if (row != null) {
+                        changed.add(row);
+                    }
+                }
+                return changed;
+            } catch (Exception e) {
+                throw new LevelingCoreException("Failed to load changed player level data", e);
+            }
+        });
+    }
+
+    private static PlayerLevelData readPlayer(UUID id, ResultSet rs) throws SQLException {
+        return new PlayerLevelData(
+            id,
+            new PlayerSnapshot(
+                rs.getLong("xp"),
+                rs.getInt("str"),
+                rs.getInt("agi"),
+                rs.getInt("per"),
+                rs.getInt("vit"),
+                rs.getInt("intelligence"),
+                rs.getInt("con"),
+                rs.getInt("ability_points"),
+                rs.getInt("used_ability_points")
+            ),
+            rs.getLong("version")
+        );
     }
 
     /**
@@ -425,7 +1118,7 @@ public class JdbcLevelRepository {
             PreparedStatement ps = connection.prepareStatement(sql)
         ) {
 
-            ps.setString(1, id.toString());
+            dialect.bindUuid(ps, 1, id);
             var rs = ps.executeQuery();
             return rs.next();
         } catch (Exception e) {
@@ -452,4 +1145,73 @@ public class JdbcLevelRepository {
             throw new LevelingCoreException("Failed to close JDBC datasource", e);
         }
     }
+
+    /**
+     * How {@link #migrateFormulaIfNeeded(LevelFormula, FormulaDescriptor, MigrationStrategy, int, int)} converts the
+     * stored players after a formula change.
+     */
+    public enum MigrationStrategy {
+        /**
+         * Every stored player is converted at startup.
+         */
+        EAGER,
+        /**
+         * Only the new formula is recorded at startup; each player is converted the first time it is loaded.
+         */
+        LAZY
+    }
+
+    /**
+     * Notified when a save rebases a player onto a row another server changed, so whoever caches the player can react
+     * to the values that changed underneath it.
+     */
+    @FunctionalInterface
+    public interface RebaseListener {
+
+        /**
+         * Called after the given player has been rebased.
+         *
+         * @param data   The rebased player, holding the merged values.
+         * @param before The player's snapshot right before the rebase.
+         */
+        void onRebase(PlayerLevelData data, PlayerSnapshot before);
+    }
+
+    /**
+     * A player rebased during a save, together with their snapshot before the rebase.
+     */
+    private record Rebased(
+        PlayerLevelData data,
+        PlayerSnapshot before
+    ) {}
+
+    /**
+     * The state of a player claimed for a batch, read under the player's write lock.
+     */
+    private record Claim(
+        PlayerLevelData data,
+        PlayerLevelData.StoredState stored,
+        PlayerLevelData.LocalState local
+    ) {}
+
+    /**
+     * The outcome of a committed batch: the snapshots written as absolute values and as XP deltas, the rows read back
+     * after the XP deltas, and the players that lost a version conflict.
+     */
+    private record Batch(
+        Map<PlayerLevelData, Write> written,
+        Map<PlayerLevelData, Write> deltas,
+        Map<UUID, PlayerLevelData> rows,
+        List<PlayerLevelData> conflicts
+    ) {}
+
+    /**
+     * A snapshot written by a batch, recorded as stored once the batch has been committed. For an XP delta the version
+     * is the one the row had before the write; the new version is read back.
+     */
+    private record Write(
+        PlayerLevelData data,
+        PlayerSnapshot snapshot,
+        long version
+    ) {}
 }
@@ -0,0 +1,458 @@
+package com.azuredoom.levelingcore.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+import com.azuredoom.levelingcore.playerdata.PlayerField;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
+
+/**
+ * Append-only local journal of player changes that are buffered in memory by the {@link WriteBehindFlusher}, so that
+ * they survive a crash of the server before they reach the database.
+ * <p>
+ * Every buffered change appends one fixed-size binary record of the player's unsaved changes: a sequence number, the
+ * player's UUID, a bit mask of the {@link PlayerField}s that differ from the player's stored row, the version of that
+ * row, the XP gained or lost since it, the player's current values and a CRC32. A record therefore describes all
+ * unsaved changes of the player relative to a row version, and the player's latest record supersedes the earlier ones.
+ * The flusher appends a record after every write as well, which leaves nothing to replay for the written changes.
+ * <p>
+ * Appends only copy the record into a memory buffer; a background thread writes the buffer through a
+ * {@link FileChannel} and forces it to disk every {@code syncIntervalMs}, so one fsync commits all changes made in that
+ * interval.
+ * <p>
+ * The journal is split into segment files. {@link #checkpoint()} starts a new segment, and once the flusher has
+ * written every pending player the segments before the checkpoint are deleted with {@link #release(long)}. Segments
+ * left over from a crash are applied to the database by {@link #replay(JdbcLevelRepository)} at startup.
+ */
+public final class ProgressJournal implements AutoCloseable {
+
+    /**
+     * The size in bytes of one record: sequence, UUID, field mask, base row version, XP delta, the nine progression
+     * values and the CRC32.
+     */
+    public static final int RECORD_SIZE = 88;
+
+    /**
+     * Set in a record's field mask if the player's XP was assigned rather than changed by awards and losses.
+     */
+    private static final int XP_ASSIGNED = 1 << 31;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+
+    private final List<Path> recovered;
+
+    private final ScheduledExecutorService syncer;
+
+    private final Object bufferLock = new Object();
+
+    private final Object ioLock = new Object();
+
+    private ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 256);
+
+    private ByteBuffer spare = ByteBuffer.allocate(RECORD_SIZE * 256);
+
+    private long sequence;
+
+    private FileChannel channel;
+
+    private long segmentId;
+
+    private long segmentRecords;
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and starts the background sync thread. Segments
+     * already present in the directory are kept for {@link #replay(JdbcLevelRepository)}; new records go to a fresh
+     * segment.
+     *
+     * @param directory      The directory holding the segment files.
+     * @param syncIntervalMs The delay in milliseconds between two group commits. Must be greater than 0.
+     * @throws IllegalArgumentException If the interval is not positive.
+     * @throws LevelingCoreException    If the directory or the new segment cannot be created.
+     */
+    public ProgressJournal(Path directory, long syncIntervalMs) {
+        if (syncIntervalMs <= 0) {
+            throw new IllegalArgumentException("syncIntervalMs must be > 0");
+        }
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            var segments = new TreeMap<Long, Path>();
+            try (var files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (var file : files) {
+                    segments.put(segmentId(file), file);
+                }
+            }
+            this.recovered = new ArrayList<>(segments.values());
+            this.segmentId = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+            this.channel = openSegment(segmentId);
+        } catch (IOException e) {
+            throw new LevelingCoreException("Failed to open progression journal in " + directory, e);
+        }
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "LevelingCore-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Scheduled last, so the sync thread sees the opened segment
+        this.syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                LevelingCore.LOGGER.at(Level.WARNING).withCause(e).log("Failed to sync progression journal");
+            }
+        }, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a record of the player's unsaved changes relative to their stored row. The stored state and the current
+     * values are read while the record's sequence number is assigned, so a record with a higher sequence number never
+     * describes an older state of the same player. Appended after a write, the record marks the written changes as
+     * saved. Does not wait for the disk.
+     *
+     * @param data The player to record.
+     */
+    public void append(PlayerLevelData data) {
+        synchronized (bufferLock) {
+            if (buffer.remaining() < RECORD_SIZE) {
+                var grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+            // The stored state is read first: it only moves forward to snapshots taken before the local one
+            var stored = data.stored();
+            var local = data.local();
+            var snapshot = local.snapshot();
+            var mask = 0;
+            for (var field : PlayerField.values()) {
+                if (field.get(stored.snapshot()) != field.get(snapshot)) {
+                    mask |= 1 << field.ordinal();
+                }
+            }
+            if (local.xpAssigned()) {
+                mask |= XP_ASSIGNED;
+            }
+            var start = buffer.position();
+            buffer.putLong(++sequence);
+            buffer.putLong(data.getPlayerId().getMostSignificantBits());
+            buffer.putLong(data.getPlayerId().getLeastSignificantBits());
+            buffer.putInt(mask);
+            buffer.putLong(stored.version());
+            buffer.putLong(snapshot.xp() - stored.snapshot().xp());
+            buffer.putLong(snapshot.xp());
+            buffer.putInt(snapshot.str());
+            buffer.putInt(snapshot.agi());
+            buffer.putInt(snapshot.per());
+            buffer.putInt(snapshot.vit());
+            buffer.putInt(snapshot.intelligence());
+            buffer.putInt(snapshot.con());
+            buffer.putInt(snapshot.abilityPoints());
+            buffer.putInt(snapshot.usedAbilityPoints());
+            var crc = new CRC32();
+            crc.update(buffer.array(), start, RECORD_SIZE - Integer.BYTES);
+            buffer.putInt((int) crc.getValue());
+        }
+    }
+
+    /**
+     * Writes all buffered records to the current segment and forces them to disk.
+     *
+     * @throws LevelingCoreException If the segment cannot be written.
+     */
+    public void sync() {
+        synchronized (ioLock) {
+            ByteBuffer toWrite;
+            synchronized (bufferLock) {
+                if (buffer.position() == 0) {
+                    return;
+                }
+                toWrite = buffer;
+                buffer = spare;
+                spare = toWrite;
+            }
+            toWrite.flip();
+            try {
+                segmentRecords += toWrite.remaining() / RECORD_SIZE;
+                while (toWrite.hasRemaining()) {
+                    channel.write(toWrite);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new LevelingCoreException("Failed to write progression journal", e);
+            } finally {
+                toWrite.clear();
+            }
+        }
+    }
+
+    /**
+     * Syncs the buffered records and starts a new segment, so that every record appended so far is in a segment that
+     * {@link #release(long)} can delete once the changes have been written to the database.
+     *
+     * @return The checkpoint to pass to {@link #release(long)}.
+     * @throws LevelingCoreException If the journal cannot be written or the new segment cannot be created.
+     */
+    public long checkpoint() {
+        synchronized (ioLock) {
+            sync();
+            if (segmentRecords == 0) {
+                return segmentId - 1;
+            }
+            try {
+                channel.close();
+                channel = openSegment(segmentId + 1);
+            } catch (IOException e) {
+                throw new LevelingCoreException("Failed to start a new progression journal segment", e);
+            }
+            segmentRecords = 0;
+            return segmentId++;
+        }
+    }
+
+    /**
+     * Deletes the segments up to the given checkpoint. Must only be called once every change recorded before the
+     * checkpoint has been written to the database.
+     *
+     * @param checkpoint A value returned by {@link #checkpoint()}.
+     */
+    public void release(long checkpoint) {
+        try (var files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (var file : files) {
+                if (segmentId(file) <= checkpoint && !recovered.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            LevelingCore.LOGGER.at(Level.WARNING).withCause(e).log("Failed to delete progression journal segments");
+        }
+    }
+
+    /**
+     * Applies the segments left over from the previous run to the database and deletes them. For every player, the
+     * unsaved changes of their last valid record are applied to the row:
+     * <ul>
+     * <li>XP gained or lost through awards is added to the stored XP as a delta, so it is merged with XP other servers
+     * wrote in the meantime.</li>
+     * <li>Assigned XP and the other changed fields are set to the recorded values only if the row still has the version
+     * the record was based on. If the row has moved on, another server or this one before the crash wrote it later, and
+     * its values are kept.</li>
+     * </ul>
+     * A torn record at the end of a segment ends that segment.
+     * <p>
+     * Must be called before the level service starts serving players.
+     *
+     * @param repository The repository to write the recovered changes to.
+     * @return The number of players whose changes were recovered.
+     * @throws LevelingCoreException If a segment cannot be read or the changes cannot be written.
+     */
+    public int replay(JdbcLevelRepository repository) {
+        if (recovered.isEmpty()) {
+            return 0;
+        }
+        var latest = new HashMap<UUID, Recovered>();
+        for (var segment : recovered) {
+            readSegment(segment, latest);
+        }
+        var batch = new ArrayList<PlayerLevelData>(latest.size());
+        for (var entry : latest.entrySet()) {
+            var recovered = entry.getValue();
+            if (!recovered.hasChanges()) {
+                continue;
+            }
+            var stored = repository.load(entry.getKey());
+            var data = stored != null ? stored : new PlayerLevelData(entry.getKey());
+            recovered.applyTo(data);
+            batch.add(data);
+        }
+        repository.saveAll(batch);
+        for (var segment : recovered) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new LevelingCoreException("Failed to delete replayed journal segment " + segment, e);
+            }
+        }
+        recovered.clear();
+        LevelingCore.LOGGER.at(Level.INFO)
+            .log("Recovered unsaved progression of {0} players from the journal", batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Reads the valid records of a segment into the per-player map, keeping the record with the highest sequence
+     * number.
+     */
+    private static void readSegment(Path segment, Map<UUID, Recovered> latest) {
+        try (var in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            var record = ByteBuffer.allocate(RECORD_SIZE);
+            var crc = new CRC32();
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && in.read(record) > 0) {}
+                if (record.position() < RECORD_SIZE) {
+                    if (record.position() > 0) {
+                        LevelingCore.LOGGER.at(Level.WARNING).log("Ignoring torn record at the end of {0}", segment);
+                    }
+                    return;
+                }
+                crc.reset();
+                crc.update(record.array(), 0, RECORD_SIZE - Integer.BYTES);
+                record.flip();
+                if (record.getInt(RECORD_SIZE - Integer.BYTES) != (int) crc.getValue()) {
+                    LevelingCore.LOGGER.at(Level.WARNING).log("Ignoring corrupt record in {0}", segment);
+                    return;
+                }
+                var seq = record.getLong();
+                var id = new UUID(record.getLong(), record.getLong());
+                var mask = record.getInt();
+                var baseVersion = record.getLong();
+                var xpDelta = record.getLong();
+                var values = new PlayerSnapshot(
+                    record.getLong(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt(),
+                    record.getInt()
+                );
+                latest.merge(
+                    id,
+                    new Recovered(seq, mask, baseVersion, xpDelta, values),
+                    (a, b) -> b.sequence() > a.sequence() ? b : a
+                );
+            }
+        } catch (IOException e) {
+            throw new LevelingCoreException("Failed to read journal segment " + segment, e);
+        }
+    }
+
+    /**
+     * Stops the sync thread, syncs the remaining records and closes the current segment, deleting it if it is empty.
+     */
+    @Override
+    public void close() {
+        syncer.shutdown();
+        try {
+            if (!syncer.awaitTermination(10, TimeUnit.SECONDS)) {
+                syncer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            syncer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            sync();
+            try {
+                channel.close();
+                if (segmentRecords == 0) {
+                    Files.deleteIfExists(segmentPath(segmentId));
+                }
+            } catch (IOException e) {
+                throw new LevelingCoreException("Failed to close progression journal", e);
+            }
+        }
+    }
+
+    private FileChannel openSegment(long id) throws IOException {
+        return FileChannel.open(
+            segmentPath(id),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        );
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%016d", id) + SEGMENT_SUFFIX);
+    }
+
+    private static long segmentId(Path file) {
+        var name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * The latest record of one player.
+     *
+     * @param sequence    The record's sequence number.
+     * @param mask        The fields that differed from the stored row, plus {@link #XP_ASSIGNED}.
+     * @param baseVersion The version of the stored row the record is relative to, or -1 if there was none.
+     * @param xpDelta     The XP gained or lost since the stored row.
+     * @param values      The player's values when the record was appended.
+     */
+    private record Recovered(
+        long sequence,
+        int mask,
+        long baseVersion,
+        long xpDelta,
+        PlayerSnapshot values
+    ) {
+
+        boolean hasChanges() {
+            return (mask & ~XP_ASSIGNED) != 0;
+        }
+
+        boolean changed(PlayerField field) {
+            return (mask & (1 << field.ordinal())) != 0;
+        }
+
+        /**
+         * Applies the recorded changes to the player's current row.
+         */
+        void applyTo(PlayerLevelData data) {
+            var current = data.stored().version() <= baseVersion;
+            var xpAssigned = (mask & XP_ASSIGNED) != 0;
+            if (changed(PlayerField.XP) && !xpAssigned) {
+                data.mutateAdditive(s -> s.withXp(s.xp() + xpDelta));
+            }
+            if (!current) {
+                return;
+            }
+            data.mutate(stored -> {
+                var result = stored;
+                for (var field : PlayerField.values()) {
+                    if (!changed(field)) {
+                        continue;
+                    }
+                    result = switch (field) {
+                        case XP -> xpAssigned ? result.withXp(values.xp()) : result;
+                        case STR -> result.withStr(values.str());
+                        case AGI -> result.withAgi(values.agi());
+                        case PER -> result.withPer(values.per());
+                        case VIT -> result.withVit(values.vit());
+                        case INTELLIGENCE -> result.withIntelligence(values.intelligence());
+                        case CON -> result.withCon(values.con());
+                        case ABILITY_POINTS -> result.withAbilityPoints(values.abilityPoints());
+                        case USED_ABILITY_POINTS -> result.withUsedAbilityPoints(values.usedAbilityPoints());
+                    };
+                }
+                return result;
+            });
+        }
+    }
+}
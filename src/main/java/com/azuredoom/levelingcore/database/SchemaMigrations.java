@@ -0,0 +1,566 @@
+package com.azuredoom.levelingcore.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import javax.sql.DataSource;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+
+/**
+ * Versioned schema migrations for the LevelingCore tables. The schema version is stored under
+ * {@value #VERSION_KEY} in the {@code levelingcore_meta} table, and only the numbered steps above it are run, each in
+ * its own transaction together with the version bump. A database that is already up to date is checked with a single
+ * SELECT.
+ * <p>
+ * Steps receive the {@link SqlDialect} and must be safe to run against a database created by an older LevelingCore
+ * release that did not track its schema version. They therefore check the JDBC metadata before adding columns or
+ * indexes instead of relying on {@code IF NOT EXISTS}, which MySQL does not support on {@code ALTER TABLE}. MySQL
+ * also commits DDL implicitly, which is another reason every step must tolerate being run twice.
+ */
+final class SchemaMigrations {
+
+    /**
+     * The {@code levelingcore_meta} key holding the schema version.
+     */
+    static final String VERSION_KEY = "schema.version";
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "create player_levels and levelingcore_meta", SchemaMigrations::createTables),
+        new Migration(2, "add stat and ability point columns", SchemaMigrations::addStatColumns),
+        new Migration(3, "add row version and updated_at", SchemaMigrations::addRowVersioning),
+        new Migration(4, "store player ids as compact UUIDs", SchemaMigrations::convertPlayerIdToUuid),
+        new Migration(5, "add per-row formula version", SchemaMigrations::addFormulaVersion),
+        new Migration(6, "create levelingcore_formula_buckets", SchemaMigrations::createFormulaBuckets)
+    );
+
+    private static final int COPY_BATCH_SIZE = 1_000;
+
+    /**
+     * The {@code levelingcore_meta} key of the lock row held while {@code player_levels} is converted to UUID keys.
+     */
+    static final String UUID_CONVERSION_LOCK_KEY = "schema.uuid_conversion.lock";
+
+    /**
+     * How long the lock row may go without a heartbeat before it is considered left behind by a server that died.
+     */
+    private static final long LOCK_STALE_MS = 5 * 60_000L;
+
+    private static final List<String> PLAYER_VALUE_COLUMNS = List.of(
+        "xp",
+        "str",
+        "agi",
+        "per",
+        "vit",
+        "intelligence",
+        "con",
+        "ability_points",
+        "used_ability_points",
+        "version",
+        "updated_at"
+    );
+
+    private SchemaMigrations() {}
+
+    /**
+     * Returns the schema version the migrations bring the database to.
+     *
+     * @return The number of the last migration step.
+     */
+    static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    /**
+     * Brings the schema of the given database up to {@link #latestVersion()}.
+     *
+     * @param dataSource The data source of the database to migrate.
+     * @param dialect    The {@link SqlDialect} of the database.
+     * @throws LevelingCoreException If the version cannot be read or a step fails. Steps that completed before the
+     *                               failure stay applied.
+     */
+    static void migrate(DataSource dataSource, SqlDialect dialect) {
+        try (var connection = dataSource.getConnection()) {
+            var current = readVersion(connection);
+            if (current > latestVersion()) {
+                LevelingCore.LOGGER.at(Level.WARNING)
+                    .log(
+                        "Database schema version {0} is newer than this LevelingCore release supports ({1})",
+                        current,
+                        latestVersion()
+                    );
+                return;
+            }
+            for (var migration : MIGRATIONS) {
+                if (migration.version() > current) {
+                    apply(connection, dialect, migration);
+                }
+            }
+        } catch (LevelingCoreException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LevelingCoreException("Failed to migrate database schema", e);
+        }
+    }
+
+    /**
+     * Reads the stored schema version. A database without the meta table or without a stored version is at version 0.
+     */
+    private static int readVersion(Connection connection) {
+        try (
+            var ps = connection.prepareStatement("SELECT meta_value FROM levelingcore_meta WHERE meta_key = ?")
+        ) {
+            ps.setString(1, VERSION_KEY);
+            var rs = ps.executeQuery();
+            return rs.next() ? Integer.parseInt(rs.getString(1)) : 0;
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Runs a single step and records its version in one transaction.
+     */
+    private static void apply(Connection connection, SqlDialect dialect, Migration migration) {
+        try {
+            connection.setAutoCommit(false);
+            migration.step().apply(connection, dialect);
+            try (
+                var ps = connection.prepareStatement(
+                    dialect.upsert("levelingcore_meta", List.of("meta_key"), List.of("meta_value"))
+                )
+            ) {
+                ps.setString(1, VERSION_KEY);
+                ps.setString(2, Integer.toString(migration.version()));
+                ps.executeUpdate();
+            }
+            connection.commit();
+            LevelingCore.LOGGER.at(Level.INFO)
+                .log("Applied database migration {0}: {1}", migration.version(), migration.description());
+        } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {}
+            throw new LevelingCoreException(
+                "Failed to apply database migration " + migration.version() + " (" + migration.description() + ")",
+                e
+            );
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    private static void createTables(Connection connection, SqlDialect dialect) throws SQLException {
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS player_levels (
+                    player_id VARCHAR(36) PRIMARY KEY,
+                    xp BIGINT NOT NULL
+                )
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS levelingcore_meta (
+                    meta_key VARCHAR(64) PRIMARY KEY,
+                    meta_value VARCHAR(255) NOT NULL
+                )
+                """);
+        }
+    }
+
+    private static void addStatColumns(Connection connection, SqlDialect dialect) throws SQLException {
+        addColumnIfMissing(connection, "player_levels", "str", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "agi", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "per", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "vit", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "intelligence", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "con", "INT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "ability_points", "INT DEFAULT 5 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "used_ability_points", "INT DEFAULT 0 NOT NULL");
+    }
+
+    private static void addRowVersioning(Connection connection, SqlDialect dialect) throws SQLException {
+        addColumnIfMissing(connection, "player_levels", "version", "BIGINT DEFAULT 0 NOT NULL");
+        addColumnIfMissing(connection, "player_levels", "updated_at", "BIGINT DEFAULT 0 NOT NULL");
+        createIndexIfMissing(connection, "player_levels", "idx_player_levels_updated_at", "updated_at");
+    }
+
+    /**
+     * Moves {@code player_levels} from a {@code VARCHAR(36)} key to {@link SqlDialect#uuidType()}. The rows are copied
+     * into {@code player_levels_uuid} in keyset-paginated batches, each committed on its own so no long-running lock is
+     * held. Once every row has been copied, the old table is dropped and the new one renamed. Each stage checks what an
+     * interrupted earlier run left behind, so the step resumes where it stopped; rows copied by the earlier run are
+     * overwritten with their current values.
+     * <p>
+     * The conversion needs exclusive access to the database. The server running it holds the
+     * {@value #UUID_CONVERSION_LOCK_KEY} row in {@code levelingcore_meta}, and other servers starting meanwhile refuse
+     * to start until it is released. Servers running an older release do not know the lock, so they must be stopped
+     * before the first server is upgraded; rows they write while the table is copied would be lost.
+     */
+    private static void convertPlayerIdToUuid(Connection connection, SqlDialect dialect) throws SQLException {
+        if (hasLegacyTable(connection) || tableExists(connection, "player_levels_uuid")) {
+            var lock = ConversionLock.acquire(connection, dialect);
+            try {
+                // Checked again under the lock, another server may have finished the conversion in the meantime
+                if (hasLegacyTable(connection)) {
+                    copyAndDropLegacyTable(connection, dialect, lock);
+                }
+                if (tableExists(connection, "player_levels_uuid")) {
+                    try (var stmt = connection.createStatement()) {
+                        stmt.execute("ALTER TABLE player_levels_uuid RENAME TO player_levels");
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                lock.release();
+            }
+        }
+        createIndexIfMissing(connection, "player_levels", "idx_player_levels_updated_at", "updated_at");
+    }
+
+    private static boolean hasLegacyTable(Connection connection) throws SQLException {
+        return tableExists(connection, "player_levels") && hasStringKey(connection);
+    }
+
+    private static void copyAndDropLegacyTable(Connection connection, SqlDialect dialect, ConversionLock lock)
+        throws SQLException {
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS player_levels_uuid (
+                    player_id %s PRIMARY KEY,
+                    xp BIGINT NOT NULL,
+                    str INT DEFAULT 0 NOT NULL,
+                    agi INT DEFAULT 0 NOT NULL,
+                    per INT DEFAULT 0 NOT NULL,
+                    vit INT DEFAULT 0 NOT NULL,
+                    intelligence INT DEFAULT 0 NOT NULL,
+                    con INT DEFAULT 0 NOT NULL,
+                    ability_points INT DEFAULT 5 NOT NULL,
+                    used_ability_points INT DEFAULT 0 NOT NULL,
+                    version BIGINT DEFAULT 0 NOT NULL,
+                    updated_at BIGINT DEFAULT 0 NOT NULL
+                )
+                """.formatted(dialect.uuidType()));
+        }
+        connection.commit();
+        var skipped = copyRows(connection, dialect, lock);
+        var legacyRows = count(connection, "player_levels");
+        var copiedRows = count(connection, "player_levels_uuid");
+        if (copiedRows < legacyRows - skipped) {
+            throw new SQLException(
+                "Copied " + copiedRows + " of " + (legacyRows - skipped) + " player rows, keeping player_levels"
+            );
+        }
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE player_levels");
+        }
+        connection.commit();
+        LevelingCore.LOGGER.at(Level.INFO).log("Copied {0} players to compact UUID keys", copiedRows);
+    }
+
+    /**
+     * Copies the rows of {@code player_levels} into {@code player_levels_uuid}, overwriting rows that are already there
+     * and skipping rows whose key is not a valid UUID. Every batch is committed together with a heartbeat of the lock.
+     *
+     * @return The number of rows skipped because of an invalid key.
+     */
+    private static long copyRows(Connection connection, SqlDialect dialect, ConversionLock lock) throws SQLException {
+        var columns = String.join(", ", PLAYER_VALUE_COLUMNS);
+        var select = "SELECT player_id, " + columns + " FROM player_levels WHERE player_id > ?"
+            + " ORDER BY player_id LIMIT " + COPY_BATCH_SIZE;
+        var upsert = dialect.upsert("player_levels_uuid", List.of("player_id"), PLAYER_VALUE_COLUMNS);
+        var skipped = 0L;
+        var last = "";
+        try (var ps = connection.prepareStatement(select); var ins = connection.prepareStatement(upsert)) {
+            while (true) {
+                ps.setString(1, last);
+                var rows = 0;
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                        last = rs.getString(1);
+                        UUID id;
+                        try {
+                            id = UUID.fromString(last.trim());
+                        } catch (IllegalArgumentException e) {
+                            LevelingCore.LOGGER.at(Level.WARNING).log("Skipping player row with invalid id {0}", last);
+                            skipped++;
+                            continue;
+                        }
+                        dialect.bindUuid(ins, 1, id);
+                        for (var i = 0; i < PLAYER_VALUE_COLUMNS.size(); i++) {
+                            ins.setObject(i + 2, rs.getObject(i + 2));
+                        }
+                        ins.addBatch();
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                ins.executeBatch();
+                lock.heartbeat();
+                connection.commit();
+            }
+        }
+        return skipped;
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (var stmt = connection.createStatement(); var rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        var md = connection.getMetaData();
+        try (
+            var rs = md.getTables(
+                connection.getCatalog(),
+                connection.getSchema(),
+                identifier(connection, table),
+                new String[] { "TABLE" }
+            )
+        ) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Returns whether {@code player_levels.player_id} still has the character type of older releases.
+     */
+    private static boolean hasStringKey(Connection connection) throws SQLException {
+        var md = connection.getMetaData();
+        try (
+            var rs = md.getColumns(
+                connection.getCatalog(),
+                connection.getSchema(),
+                identifier(connection, "player_levels"),
+                identifier(connection, "player_id")
+            )
+        ) {
+            if (!rs.next()) {
+                return false;
+            }
+            var type = rs.getInt("DATA_TYPE");
+            return type == Types.VARCHAR || type == Types.CHAR || type == Types.NVARCHAR || type == Types.NCHAR;
+        }
+    }
+
+    private static void addFormulaVersion(Connection connection, SqlDialect dialect) throws SQLException {
+        addColumnIfMissing(connection, "player_levels", "formula_version", "INT DEFAULT 0 NOT NULL");
+    }
+
+    /**
+     * Creates the table the set-based formula migration fills with the XP range and new XP of every level it converts
+     * (see {@link FormulaMigration}). It is empty outside a migration.
+     */
+    private static void createFormulaBuckets(Connection connection, SqlDialect dialect) throws SQLException {
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS levelingcore_formula_buckets (
+                    approx_level BIGINT NOT NULL,
+                    min_xp BIGINT NOT NULL,
+                    max_xp BIGINT NOT NULL,
+                    new_xp BIGINT NOT NULL,
+                    PRIMARY KEY (approx_level, min_xp)
+                )
+                """);
+        }
+    }
+
+    private static void addColumnIfMissing(Connection connection, String table, String column, String definition)
+        throws SQLException {
+        var md = connection.getMetaData();
+        try (
+            var rs = md.getColumns(
+                connection.getCatalog(),
+                connection.getSchema(),
+                identifier(connection, table),
+                identifier(connection, column)
+            )
+        ) {
+            if (rs.next()) {
+                return;
+            }
+        }
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    private static void createIndexIfMissing(Connection connection, String table, String index, String columns)
+        throws SQLException {
+        var md = connection.getMetaData();
+        try (
+            var rs = md.getIndexInfo(
+                connection.getCatalog(),
+                connection.getSchema(),
+                identifier(connection, table),
+                false,
+                false
+            )
+        ) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    /**
+     * Converts an unquoted identifier to the case the database stores it in, for metadata lookups.
+     */
+    private static String identifier(Connection connection, String name) throws SQLException {
+        var md = connection.getMetaData();
+        if (md.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        if (md.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase();
+        }
+        return name;
+    }
+
+    /**
+     * The {@value #UUID_CONVERSION_LOCK_KEY} row in {@code levelingcore_meta}. Its value is the time of the holder's
+     * last heartbeat, so a lock left behind by a server that died can be taken over once it is stale.
+     */
+    private static final class ConversionLock {
+
+        private final Connection connection;
+
+        private String value;
+
+        private ConversionLock(Connection connection, String value) {
+            this.connection = connection;
+            this.value = value;
+        }
+
+        /**
+         * Inserts the lock row, or takes it over if its heartbeat is older than {@link #LOCK_STALE_MS}, and commits.
+         *
+         * @throws SQLException If another server holds the lock.
+         */
+        static ConversionLock acquire(Connection connection, SqlDialect dialect) throws SQLException {
+            var now = Long.toString(System.currentTimeMillis());
+            var insert = dialect.insertIfAbsent("levelingcore_meta", List.of("meta_key"), List.of("meta_value"));
+            try (var ps = connection.prepareStatement(insert)) {
+                ps.setString(1, UUID_CONVERSION_LOCK_KEY);
+                ps.setString(2, now);
+                if (ps.executeUpdate() > 0) {
+                    connection.commit();
+                    return new ConversionLock(connection, now);
+                }
+            }
+            String held = null;
+            try (
+                var ps = connection.prepareStatement("SELECT meta_value FROM levelingcore_meta WHERE meta_key = ?")
+            ) {
+                ps.setString(1, UUID_CONVERSION_LOCK_KEY);
+                var rs = ps.executeQuery();
+                if (rs.next()) {
+                    held = rs.getString(1);
+                }
+            }
+            if (held != null && isStale(held)) {
+                var lock = new ConversionLock(connection, held);
+                lock.heartbeat();
+                connection.commit();
+                LevelingCore.LOGGER.at(Level.WARNING)
+                    .log("Took over the stale {0} row of a server that stopped converting", UUID_CONVERSION_LOCK_KEY);
+                return lock;
+            }
+            throw new SQLException(
+                "Another server is converting player_levels to UUID keys; if none is, delete the "
+                    + UUID_CONVERSION_LOCK_KEY + " row from levelingcore_meta"
+            );
+        }
+
+        private static boolean isStale(String heartbeat) {
+            try {
+                return System.currentTimeMillis() - Long.parseLong(heartbeat) > LOCK_STALE_MS;
+            } catch (NumberFormatException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Refreshes the heartbeat as part of the current transaction.
+         *
+         * @throws SQLException If another server has taken the lock over in the meantime.
+         */
+        void heartbeat() throws SQLException {
+            var millis = System.currentTimeMillis();
+            // Always differs from the held value, so the update changes the row even within the same millisecond and
+            // is counted on drivers that report affected rather than matched rows
+            var now = Long.toString(millis);
+            if (now.equals(value)) {
+                now = Long.toString(millis + 1);
+            }
+            try (
+                var ps = connection.prepareStatement(
+                    "UPDATE levelingcore_meta SET meta_value = ? WHERE meta_key = ? AND meta_value = ?"
+                )
+            ) {
+                ps.setString(1, now);
+                ps.setString(2, UUID_CONVERSION_LOCK_KEY);
+                ps.setString(3, value);
+                if (ps.executeUpdate() == 0) {
+                    throw new SQLException("Lost the " + UUID_CONVERSION_LOCK_KEY + " lock to another server");
+                }
+            }
+            value = now;
+        }
+
+        /**
+         * Deletes the lock row and commits.
+         */
+        void release() throws SQLException {
+            try (
+                var ps = connection.prepareStatement(
+                    "DELETE FROM levelingcore_meta WHERE meta_key = ? AND meta_value = ?"
+                )
+            ) {
+                ps.setString(1, UUID_CONVERSION_LOCK_KEY);
+                ps.setString(2, value);
+                ps.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * A single schema change applied by a {@link Migration}.
+     */
+    @FunctionalInterface
+    interface Step {
+
+        void apply(Connection connection, SqlDialect dialect) throws SQLException;
+    }
+
+    /**
+     * A numbered schema migration step.
+     *
+     * @param version     The schema version the database is at once the step has run.
+     * @param description A short description for the log.
+     * @param step        The schema change.
+     */
+    record Migration(
+        int version,
+        String description,
+        Step step
+    ) {}
+}
@@ -0,0 +1,178 @@
+package com.azuredoom.levelingcore.database;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The SQL dialects supported by {@link JdbcLevelRepository}. Each dialect knows how to express a single-statement
+ * upsert ("insert or update") and insert-if-absent in its native syntax, so a write is one round trip and is safe even
+ * when two threads or servers write the same key at the same time.
+ * <p>
+ * Player UUIDs are stored in the most compact type each database offers (see {@link #uuidType()}) and are bound and
+ * read through {@link #bindUuid} and {@link #readUuid}, without going through their string form.
+ * <p>
+ * The dialect is selected from the JDBC URL scheme in the same way {@link DataSourceFactory} selects the driver class.
+ */
+public enum SqlDialect {
+
+    /**
+     * H2, using {@code MERGE INTO ... KEY (...) VALUES (...)}. This syntax works regardless of the H2 compatibility
+     * mode set in the URL.
+     */
+    H2,
+
+    /**
+     * PostgreSQL, using {@code INSERT ... ON CONFLICT (...) DO UPDATE SET ...}.
+     */
+    POSTGRESQL,
+
+    /**
+     * MySQL and MariaDB, using {@code INSERT ... ON DUPLICATE KEY UPDATE ...}.
+     */
+    MYSQL;
+
+    /**
+     * Determines the dialect from the given JDBC URL.
+     *
+     * @param jdbcUrl The JDBC URL used to establish a database connection. Supports schemes: mysql, mariadb,
+     *                postgresql, h2.
+     * @return The {@link SqlDialect} matching the URL scheme.
+     * @throws IllegalArgumentException If the JDBC URL is null or its scheme is not supported.
+     */
+    public static SqlDialect fromJdbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null) {
+            throw new IllegalArgumentException("jdbcUrl must not be null");
+        }
+        var url = jdbcUrl.toLowerCase();
+
+        if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+            return MYSQL;
+        }
+        if (url.startsWith("jdbc:postgresql:")) {
+            return POSTGRESQL;
+        }
+        if (url.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        throw new IllegalArgumentException(
+            "Unsupported jdbcUrl scheme. Supported: mysql, mariadb, postgresql, h2. Got: " + jdbcUrl
+        );
+    }
+
+    /**
+     * Builds a single-statement upsert for the given table. Parameters are bound in column order: first the key
+     * columns, then the value columns.
+     *
+     * @param table        The table to write to.
+     * @param keyColumns   The primary key columns identifying the row.
+     * @param valueColumns The columns to insert, or to overwrite when the row already exists.
+     * @return The upsert SQL in this dialect's native syntax.
+     */
+    public String upsert(String table, List<String> keyColumns, List<String> valueColumns) {
+        var columns = new ArrayList<String>(keyColumns.size() + valueColumns.size());
+        columns.addAll(keyColumns);
+        columns.addAll(valueColumns);
+
+        var columnList = String.join(", ", columns);
+        var placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
+        var keyList = String.join(", ", keyColumns);
+
+        return switch (this) {
+            case H2 -> "MERGE INTO " + table + " (" + columnList + ") KEY (" + keyList + ") VALUES (" + placeholders
+                + ")";
+            case POSTGRESQL -> "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"
+                + " ON CONFLICT (" + keyList + ") DO UPDATE SET "
+                + valueColumns.stream().map(c -> c + " = EXCLUDED." + c).collect(Collectors.joining(", "));
+            case MYSQL -> "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"
+                + " ON DUPLICATE KEY UPDATE "
+                + valueColumns.stream().map(c -> c + " = VALUES(" + c + ")").collect(Collectors.joining(", "));
+        };
+    }
+
+    /**
+     * Builds a single-statement insert that leaves an existing row untouched. Parameters are bound in column order:
+     * first the key columns, then the value columns. The update count is 1 if the row was inserted and 0 if a row with
+     * the same key already existed.
+     *
+     * @param table        The table to write to.
+     * @param keyColumns   The primary key columns identifying the row.
+     * @param valueColumns The remaining columns to insert.
+     * @return The insert SQL in this dialect's native syntax.
+     */
+    public String insertIfAbsent(String table, List<String> keyColumns, List<String> valueColumns) {
+        var columns = new ArrayList<String>(keyColumns.size() + valueColumns.size());
+        columns.addAll(keyColumns);
+        columns.addAll(valueColumns);
+
+        var columnList = String.join(", ", columns);
+        var placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", "));
+
+        return switch (this) {
+            case H2 -> "MERGE INTO " + table + " t USING (VALUES (" + placeholders + ")) s (" + columnList + ")"
+                + " ON " + keyColumns.stream().map(c -> "t." + c + " = s." + c).collect(Collectors.joining(" AND "))
+                + " WHEN NOT MATCHED THEN INSERT (" + columnList + ") VALUES ("
+                + columns.stream().map(c -> "s." + c).collect(Collectors.joining(", ")) + ")";
+            case POSTGRESQL -> "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"
+                + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO NOTHING";
+            // INSERT IGNORE would also turn errors other than duplicate keys into warnings. The no-op update reports 0
+            // affected rows, since DataSourceFactory enables useAffectedRows for MySQL and MariaDB.
+            case MYSQL -> "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"
+                + " ON DUPLICATE KEY UPDATE " + keyColumns.getFirst() + " = " + keyColumns.getFirst();
+        };
+    }
+
+    /**
+     * Returns the column type used for player UUIDs: the native {@code UUID} type on H2 and PostgreSQL and
+     * {@code BINARY(16)} on MySQL and MariaDB.
+     *
+     * @return The SQL column type.
+     */
+    public String uuidType() {
+        return this == MYSQL ? "BINARY(16)" : "UUID";
+    }
+
+    /**
+     * Binds a UUID parameter in the representation of {@link #uuidType()}.
+     *
+     * @param ps    The statement to bind.
+     * @param index The parameter index.
+     * @param id    The UUID to bind.
+     * @throws SQLException If the parameter cannot be bound.
+     */
+    public void bindUuid(PreparedStatement ps, int index, UUID id) throws SQLException {
+        if (this == MYSQL) {
+            var bytes = ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits());
+            ps.setBytes(index, bytes.array());
+        } else {
+            ps.setObject(index, id);
+        }
+    }
+
+    /**
+     * Reads a UUID column stored as {@link #uuidType()}.
+     *
+     * @param rs     The result set positioned on a row.
+     * @param column The column label.
+     * @return The UUID, or {@code null} if the column is SQL {@code NULL}.
+     * @throws SQLException If the column cannot be read.
+     */
+    public UUID readUuid(ResultSet rs, String column) throws SQLException {
+        if (this == MYSQL) {
+            var bytes = rs.getBytes(column);
+            if (bytes == null) {
+                return null;
+            }
+            var buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        return rs.getObject(column, UUID.class);
+    }
+}
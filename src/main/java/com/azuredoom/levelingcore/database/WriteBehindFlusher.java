@@ -0,0 +1,246 @@
+package com.azuredoom.levelingcore.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.exceptions.DatabaseUnavailableException;
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+
+/**
+ * Write-behind persistence for {@link PlayerLevelData}. Instead of writing to the database on every change, callers
+ * mark the data dirty and a background thread periodically writes all dirty players in batches of at most
+ * {@code maxBatchSize}, each batch being a single {@link JdbcLevelRepository#saveAll} transaction. Several changes to
+ * the same player between two flushes are coalesced into a single write.
+ * <p>
+ * Writes are serialized so that an older snapshot of a player can never overwrite a newer one, whether the write comes
+ * from the background thread or from a synchronous {@link #flush(PlayerLevelData)} on disconnect.
+ * <p>
+ * The pending queue doubles as the write buffer while the repository's {@link DatabaseCircuitBreaker} is not closed:
+ * synchronous flushes leave the data queued instead of waiting on the database, and the background thread keeps
+ * retrying, its first batch serving as the probe that closes the circuit again and drains the backlog.
+ * <p>
+ * With a {@link ProgressJournal}, changes marked through {@link #markDirty(PlayerLevelData, PlayerLevelData.Change)}
+ * are also journaled, and every write is followed by a journal record of what is left unsaved, so a replay does not
+ * apply written changes again. Every background flush starts with a journal checkpoint, and the journal segments
+ * before it are released once the pending queue has been drained without error.
+ */
+public final class WriteBehindFlusher implements AutoCloseable {
+
+    private final JdbcLevelRepository repository;
+
+    private final int maxBatchSize;
+
+    private final Queue<PlayerLevelData> pending = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService executor;
+
+    private final Object writeLock = new Object();
+
+    private final ProgressJournal journal;
+
+    /**
+     * Creates a flusher and starts its background thread.
+     *
+     * @param repository      The repository the dirty data is written to.
+     * @param flushIntervalMs The delay in milliseconds between two background flushes. Must be greater than 0.
+     * @param maxBatchSize    The maximum number of players written per batch. Must be greater than 0.
+     * @throws IllegalArgumentException If the interval or batch size is not positive.
+     */
+    public WriteBehindFlusher(JdbcLevelRepository repository, long flushIntervalMs, int maxBatchSize) {
+        this(repository, flushIntervalMs, maxBatchSize, null);
+    }
+
+    /**
+     * Creates a flusher that journals the changes it buffers and starts its background thread.
+     *
+     * @param repository      The repository the dirty data is written to.
+     * @param flushIntervalMs The delay in milliseconds between two background flushes. Must be greater than 0.
+     * @param maxBatchSize    The maximum number of players written per batch. Must be greater than 0.
+     * @param journal         The journal buffered changes are recorded in, or {@code null} to disable journaling.
+     * @throws IllegalArgumentException If the interval or batch size is not positive.
+     */
+    public WriteBehindFlusher(
+        JdbcLevelRepository repository,
+        long flushIntervalMs,
+        int maxBatchSize,
+        ProgressJournal journal
+    ) {
+        if (flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("flushIntervalMs must be > 0");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be > 0");
+        }
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.journal = journal;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "LevelingCore-WriteBehind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Scheduled last, so the flush thread sees every field set
+        this.executor.scheduleWithFixedDelay(
+            this::flushPending,
+            flushIntervalMs,
+            flushIntervalMs,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Marks the given data dirty and schedules it for the next background flush. Calling this repeatedly before the
+     * flush runs only results in one write.
+     *
+     * @param data The player data that changed.
+     */
+    public void markDirty(PlayerLevelData data) {
+        if (data.markDirty()) {
+            pending.add(data);
+        }
+    }
+
+    /**
+     * Marks the given data dirty like {@link #markDirty(PlayerLevelData)} and records the change in the journal, if
+     * any. The data is marked dirty first, so a change in a journal segment is always either written or still queued
+     * when the segment is released.
+     *
+     * @param data   The player data that changed.
+     * @param change The change that was applied to the data.
+     */
+    public void markDirty(PlayerLevelData data, PlayerLevelData.Change change) {
+        markDirty(data);
+        if (journal != null && change.changed()) {
+            journal.append(data);
+        }
+    }
+
+    /**
+     * Returns the number of players waiting to be written, including those held back while the database circuit is
+     * open.
+     *
+     * @return The size of the pending queue.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Synchronously writes the given data if it has unsaved changes. Used when a player disconnects so their
+     * progression is persisted before the cached entry can go away. While the database circuit is not closed, nothing
+     * is written and the data stays dirty and queued for the background flush.
+     *
+     * @param data The player data to write.
+     * @throws LevelingCoreException If the write fails. The data stays dirty and is retried by the background flush.
+     */
+    public void flush(PlayerLevelData data) {
+        if (!repository.getCircuitBreaker().isClosed()) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (!data.clearDirty()) {
+                return;
+            }
+            try {
+                repository.save(data);
+            } catch (RuntimeException e) {
+                markDirty(data);
+                throw e;
+            }
+            journalWritten(List.of(data));
+        }
+    }
+
+    /**
+     * Synchronously writes every pending change, batch by batch, until nothing is left.
+     */
+    public void flushAll() {
+        flushPending();
+    }
+
+    /**
+     * Drains the pending queue in batches of at most {@code maxBatchSize}. Entries that were already written by a
+     * synchronous flush are skipped. If a batch fails or is rejected by the open circuit, its entries are marked dirty
+     * again and retried on the next run.
+     */
+    private void flushPending() {
+        synchronized (writeLock) {
+            var checkpoint = journal != null ? journal.checkpoint() : -1L;
+            while (!pending.isEmpty()) {
+                List<PlayerLevelData> batch = new ArrayList<>(Math.min(maxBatchSize, pending.size()));
+                PlayerLevelData data;
+                while (batch.size() < maxBatchSize && (data = pending.poll()) != null) {
+                    if (data.clearDirty()) {
+                        batch.add(data);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                try {
+                    repository.saveAll(batch);
+                    journalWritten(batch);
+                } catch (DatabaseUnavailableException e) {
+                    batch.forEach(this::markDirty);
+                    return;
+                } catch (RuntimeException e) {
+                    batch.forEach(this::markDirty);
+                    LevelingCore.LOGGER.at(Level.WARNING)
+                        .withCause(e)
+                        .log("Write-behind flush failed, {0} players will be retried", batch.size());
+                    return;
+                }
+            }
+            if (journal != null) {
+                journal.release(checkpoint);
+            }
+        }
+    }
+
+    /**
+     * Records the state of the given players after they were written and syncs the journal, so the journaled changes
+     * that reached the database are not replayed after a crash. A journal failure does not fail the write.
+     */
+    private void journalWritten(List<PlayerLevelData> written) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            written.forEach(journal::append);
+            journal.sync();
+        } catch (RuntimeException e) {
+            LevelingCore.LOGGER.at(Level.WARNING)
+                .withCause(e)
+                .log("Failed to record {0} written players in the progression journal", written.size());
+        }
+    }
+
+    /**
+     * Stops the background thread and synchronously writes everything that is still pending.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        if (!pending.isEmpty()) {
+            LevelingCore.LOGGER.at(Level.SEVERE)
+                .log("Database unavailable at shutdown, {0} players could not be written", pending.size());
+        }
+    }
+}
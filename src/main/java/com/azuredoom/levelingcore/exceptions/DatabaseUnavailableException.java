@@ -0,0 +1,17 @@
+package com.azuredoom.levelingcore.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Thrown instead of running a database operation while the database circuit breaker is open, so that callers fail
+ * immediately rather than waiting for a connection from an unhealthy pool.
+ */
+public class DatabaseUnavailableException extends LevelingCoreException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public DatabaseUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -17,6 +17,7 @@ import javax.annotation.Nonnull;
 
 import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
+import com.azuredoom.levelingcore.level.PlayerEdit;
 
 public class SkillPointResetInteraction extends SimpleInstantInteraction {
 
@@ -91,13 +92,7 @@ public class SkillPointResetInteraction extends SimpleInstantInteraction {
             return;
         }
 
-        levelService.setUsedAbilityPoints(playerRef.getUuid(), 0);
-        levelService.setStr(playerRef.getUuid(), 0);
-        levelService.setAgi(playerRef.getUuid(), 0);
-        levelService.setPer(playerRef.getUuid(), 0);
-        levelService.setVit(playerRef.getUuid(), 0);
-        levelService.setInt(playerRef.getUuid(), 0);
-        levelService.setCon(playerRef.getUuid(), 0);
+        levelService.edit(playerRef.getUuid(), PlayerEdit::resetStats);
 
         context.getState().state = InteractionState.Finished;
     }
@@ -94,4 +94,6 @@ public class CommandLang {
         "commands.levelingcore.removelevel.canremovelevelzero"
     );
 
+    public static final Message DB_STATUS = Message.translation("commands.levelingcore.dbstatus");
+
 }
@@ -1,67 +1,459 @@
 package com.azuredoom.levelingcore.level;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.database.AsyncLevelRepository;
+import com.azuredoom.levelingcore.database.DatabaseCircuitBreaker;
 import com.azuredoom.levelingcore.database.JdbcLevelRepository;
+import com.azuredoom.levelingcore.database.WriteBehindFlusher;
+import com.azuredoom.levelingcore.exceptions.DatabaseUnavailableException;
 import com.azuredoom.levelingcore.level.formulas.LevelFormula;
 import com.azuredoom.levelingcore.listeners.*;
+import com.azuredoom.levelingcore.playerdata.OfflinePlayerCache;
+import com.azuredoom.levelingcore.playerdata.PlayerField;
 import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
-import com.azuredoom.levelingcore.utils.LevelingUtil;
+import com.azuredoom.levelingcore.playerdata.PlayerSlotTable;
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
 
 /**
  * Used for managing player levels and experience points (XP). This class provides methods to retrieve, modify, and
  * calculate levels and XP for individual players. It also supports notifying listeners for level-up, level-down, XP
  * gain, and XP loss events.
  */
-public class LevelServiceImpl {
+public final class LevelServiceImpl {
+
+    /**
+     * How far before the previous poll {@link #refreshRemoteChanges()} looks for changed rows, covering clock
+     * differences between servers and writes that were still in flight during the previous poll.
+     */
+    private static final long COHERENCE_OVERLAP_MS = 10_000L;
 
     private final LevelFormula formula;
 
     private final JdbcLevelRepository repository;
 
-    private final Map<UUID, PlayerLevelData> cache = new ConcurrentHashMap<>();
+    private final AsyncLevelRepository asyncRepository;
 
-    private final List<LevelDownListener> levelDownListeners = new ArrayList<>();
+    private final WriteBehindFlusher flusher;
 
-    private final List<LevelUpListener> levelUpListeners = new ArrayList<>();
+    private final OfflinePlayerCache offlineCache;
 
-    private final List<XpGainListener> xpGainListeners = new ArrayList<>();
+    private final Map<UUID, PlayerLevelData> cache = new ConcurrentHashMap<>();
+
+    /**
+     * The online players, each mapped to the generation of their current session. Every {@link #markOnline(UUID)}
+     * starts a new generation, so an eviction scheduled for an earlier session can tell that the player reconnected.
+     */
+    private final Map<UUID, Long> online = new ConcurrentHashMap<>();
 
-    private final List<XpLossListener> xpLossListeners = new ArrayList<>();
+    private final AtomicLong onlineGenerations = new AtomicLong();
 
-    private final List<StrengthListener> strListeners = new ArrayList<>();
+    private final Map<UUID, CompletableFuture<PlayerLevelData>> loading = new ConcurrentHashMap<>();
 
-    private final List<AgilityListener> agiListeners = new ArrayList<>();
+    private final Map<UUID, Object> pendingEvictions = new ConcurrentHashMap<>();
 
-    private final List<PerceptionListener> perListeners = new ArrayList<>();
+    private final LevelingEventBus events = new LevelingEventBus();
 
-    private final List<VitalityListener> vitListeners = new ArrayList<>();
+    private final XpAccumulator xpAccumulator = new XpAccumulator(this);
 
-    private final List<IntelligenceListener> intListeners = new ArrayList<>();
+    private final PlayerSlotTable slots;
 
-    private final List<ConstitutionListener> conListeners = new ArrayList<>();
+    private volatile long coherenceWatermark = System.currentTimeMillis();
 
-    private final List<AbilityPointsListener> abilityPointsListeners = new ArrayList<>();
+    private volatile ScheduledExecutorService coherencePoller;
 
     public LevelServiceImpl(LevelFormula formula, JdbcLevelRepository repository) {
+        this(formula, repository, null);
+    }
+
+    /**
+     * Creates a level service that persists changes through the given {@link WriteBehindFlusher}. When the flusher is
+     * {@code null}, every change is written to the repository synchronously.
+     *
+     * @param formula    The formula used to convert between XP and levels.
+     * @param repository The repository player data is loaded from and saved to.
+     * @param flusher    The write-behind flusher, or {@code null} to save synchronously.
+     */
+    public LevelServiceImpl(LevelFormula formula, JdbcLevelRepository repository, WriteBehindFlusher flusher) {
+        this(formula, repository, new AsyncLevelRepository(repository, 1), flusher, new OfflinePlayerCache(1000));
+    }
+
+    /**
+     * Creates a level service that loads player data through the given {@link AsyncLevelRepository} and persists
+     * changes of online players through the given {@link WriteBehindFlusher}.
+     *
+     * @param formula         The formula used to convert between XP and levels.
+     * @param repository      The repository player data is saved to when write-behind is disabled, and that offline
+     *                        players are written through to.
+     * @param asyncRepository The asynchronous repository player data is loaded through.
+     * @param flusher         The write-behind flusher, or {@code null} to save synchronously.
+     * @param offlineCache    The bounded cache used for players that are not online.
+     */
+    public LevelServiceImpl(
+        LevelFormula formula,
+        JdbcLevelRepository repository,
+        AsyncLevelRepository asyncRepository,
+        WriteBehindFlusher flusher,
+        OfflinePlayerCache offlineCache
+    ) {
         this.formula = formula;
         this.repository = repository;
+        this.asyncRepository = asyncRepository;
+        this.flusher = flusher;
+        this.offlineCache = offlineCache;
+        this.slots = new PlayerSlotTable(formula);
+        // Registered last, so a rebase reported by a concurrent write sees every field set
+        repository.setRebaseListener(this::onRebased);
     }
 
     /**
-     * Retrieves the {@link PlayerLevelData} associated with the given player ID. If the player data is not present in
-     * the cache, it attempts to load it from the repository. If the repository does not contain data for the given ID,
-     * a new instance of {@link PlayerLevelData} is created and cached.
+     * Retrieves the {@link PlayerLevelData} associated with the given player ID. Online players are served from the
+     * online-player cache; other players from the bounded {@link OfflinePlayerCache}. If the player data is not cached,
+     * it is loaded through {@link #loadAsync(UUID)} and this call waits for the result. If the repository does not
+     * contain data for the given ID, a new instance of {@link PlayerLevelData} is created and cached.
+     * <p>
+     * The wait only happens on a cache miss for a player that was not loaded ahead of time. The database I/O itself
+     * always runs on a virtual thread, never inside the cache map, so a slow load does not block other players. World
+     * threads must not rely on this: they go through {@link #whenLoaded(UUID, Executor, Runnable)} or
+     * {@link #loadAsync(UUID)} first, so the synchronous accessors only wait when called from other threads.
      *
      * @param id The unique identifier (UUID) of the player whose level data is being retrieved.
      * @return The {@link PlayerLevelData} associated with the given player ID.
      */
     private PlayerLevelData get(UUID id) {
-        return cache.computeIfAbsent(id, uuid -> {
-            var stored = repository.load(uuid);
-            return stored != null ? stored : new PlayerLevelData(uuid);
+        var cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return loadAsync(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the {@link PlayerLevelData} of the given player into the cache without blocking the caller. Concurrent
+     * calls for the same player share a single database load. If the player is already cached, the returned future is
+     * already complete. Online players are loaded into the online-player cache, everyone else into the bounded
+     * {@link OfflinePlayerCache}.
+     *
+     * @param id The unique identifier (UUID) of the player to load.
+     * @return A future completed with the cached {@link PlayerLevelData} once it is available.
+     */
+    public CompletableFuture<PlayerLevelData> loadAsync(UUID id) {
+        var cached = cache.get(id);
+        if (cached == null && !online.containsKey(id)) {
+            cached = offlineCache.get(id);
+        }
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        var future = loading.computeIfAbsent(
+            id,
+            uuid -> asyncRepository.loadAsync(uuid).thenApply(stored -> admit(uuid, stored))
+        );
+        future.whenComplete((data, error) -> loading.remove(id, future));
+        return future;
+    }
+
+    /**
+     * Runs the given action on the executor once the player's data is cached, without blocking the calling thread. Used
+     * by world-thread code, such as commands and the player ready handler, whose action reads or changes the player
+     * through the synchronous accessors, so that a player whose data is still loading never stalls the world.
+     *
+     * @param id       The unique identifier (UUID) of the player.
+     * @param executor The executor that runs the action, normally the world the caller runs in.
+     * @param action   The action to run once the player's data is cached.
+     * @return A future completed once the action has run. If the data cannot be loaded or the action fails, the failure
+     *         is logged and the future completes exceptionally.
+     */
+    public CompletableFuture<Void> whenLoaded(UUID id, Executor executor, Runnable action) {
+        var future = loadAsync(id).thenRunAsync(action, executor);
+        future.whenComplete((ignored, error) -> {
+            if (error != null) {
+                LevelingCore.LOGGER.at(Level.WARNING).withCause(error).log("Failed to update player data for {0}", id);
+            }
         });
+        return future;
+    }
+
+    /**
+     * Adds freshly loaded player data to the cache tier matching the player's online state. If another thread cached
+     * the player in the meantime, the already cached instance wins.
+     *
+     * @param id     The unique identifier (UUID) of the player.
+     * @param stored The data loaded from the repository, or {@code null} if the player has no stored data yet.
+     * @return The cached {@link PlayerLevelData} instance for the player.
+     */
+    private PlayerLevelData admit(UUID id, PlayerLevelData stored) {
+        var data = stored != null ? stored : new PlayerLevelData(id);
+        if (online.containsKey(id)) {
+            var cached = cache.computeIfAbsent(id, uuid -> {
+                var offline = offlineCache.remove(uuid);
+                return offline != null ? offline : data;
+            });
+            slots.attach(cached);
+            return cached;
+        }
+        return offlineCache.putIfAbsent(id, data);
+    }
+
+    /**
+     * Marks the given player as online. Their data is pinned in the online-player cache, and changes are persisted
+     * through the write-behind flusher (if enabled) instead of being written through. If the player is currently in the
+     * offline cache, their entry is moved over. Each call starts a new session generation, so an eviction scheduled
+     * before a reconnect does not take the player offline again.
+     *
+     * @param id The unique identifier (UUID) of the player that came online.
+     */
+    public void markOnline(UUID id) {
+        online.put(id, onlineGenerations.incrementAndGet());
+        // Serialized with the move in evict, so the entry cannot end up in the offline cache of an online player
+        var data = cache.compute(id, (uuid, cached) -> cached != null ? cached : offlineCache.remove(uuid));
+        if (data != null) {
+            slots.attach(data);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the offline-player cache counters (size, hits, misses and evictions).
+     *
+     * @return The current {@link OfflinePlayerCache.Stats}.
+     */
+    public OfflinePlayerCache.Stats getOfflineCacheStats() {
+        return offlineCache.stats();
+    }
+
+    /**
+     * Returns the state and counters of the circuit breaker guarding the database.
+     *
+     * @return The current {@link DatabaseCircuitBreaker.Stats}.
+     */
+    public DatabaseCircuitBreaker.Stats getDatabaseCircuitStats() {
+        return repository.getCircuitBreaker().stats();
+    }
+
+    /**
+     * Returns the number of players with changes waiting for the write-behind flusher, including those held back while
+     * the database circuit is open.
+     *
+     * @return The number of pending writes, or 0 if write-behind is disabled.
+     */
+    public int getPendingWriteCount() {
+        return flusher != null ? flusher.pendingCount() : 0;
+    }
+
+    /**
+     * Schedules the given player's data to be flushed and removed from the cache after a grace period. Used when a
+     * player disconnects so the cache only holds online players. A reconnect within the grace period cancels the
+     * eviction through {@link #cancelEviction(UUID)}, so quick reconnects do not hit the database again. If the data
+     * could not be written, for example because the database circuit is open, the eviction is retried after another
+     * grace period.
+     *
+     * @param id      The unique identifier (UUID) of the player to evict.
+     * @param delayMs The grace period in milliseconds before the player is evicted.
+     */
+    public void scheduleEviction(UUID id, long delayMs) {
+        scheduleEviction(id, online.get(id), delayMs);
+    }
+
+    /**
+     * Schedules an eviction of the given session generation, or of a player that is already offline if
+     * {@code generation} is {@code null}.
+     */
+    private void scheduleEviction(UUID id, Long generation, long delayMs) {
+        var token = new Object();
+        pendingEvictions.put(id, token);
+        CompletableFuture.delayedExecutor(Math.max(0, delayMs), TimeUnit.MILLISECONDS).execute(() -> {
+            if (!pendingEvictions.remove(id, token)) {
+                return;
+            }
+            try {
+                evict(id, generation);
+            } catch (RuntimeException e) {
+                LevelingCore.LOGGER.at(Level.WARNING).withCause(e).log("Failed to evict player data for {0}", id);
+            }
+            if (!online.containsKey(id) && cache.containsKey(id)) {
+                scheduleEviction(id, null, delayMs);
+            }
+        });
+    }
+
+    /**
+     * Cancels a pending eviction scheduled by {@link #scheduleEviction(UUID, long)}, typically because the player
+     * reconnected within the grace period.
+     *
+     * @param id The unique identifier (UUID) of the player.
+     */
+    public void cancelEviction(UUID id) {
+        pendingEvictions.remove(id);
+    }
+
+    /**
+     * Marks the given player as offline, writes any unsaved changes and moves their data from the online-player cache
+     * to the bounded offline cache, where it can be evicted. If the data changes again while it is being written, it is
+     * kept in the online-player cache and written by the next flush instead.
+     *
+     * @param id The unique identifier (UUID) of the player to evict.
+     */
+    public void evict(UUID id) {
+        evict(id, online.get(id));
+    }
+
+    /**
+     * Evicts the player if they are still in the given session generation, or still offline if {@code generation} is
+     * {@code null}. A player who reconnected in the meantime keeps their data in the online-player cache, including
+     * when the reconnect happens while the data is being written.
+     */
+    private void evict(UUID id, Long generation) {
+        if (generation != null ? !online.remove(id, generation) : online.containsKey(id)) {
+            return;
+        }
+        var data = cache.get(id);
+        if (data == null) {
+            return;
+        }
+        // Written outside the cache map, so the database write does not block other lookups hashing to the same bin
+        if (flusher != null) {
+            flusher.flush(data);
+        }
+        cache.computeIfPresent(id, (uuid, cached) -> {
+            if (cached != data || data.isDirty() || online.containsKey(uuid)) {
+                return cached;
+            }
+            slots.detach(uuid);
+            offlineCache.putIfAbsent(uuid, data);
+            return null;
+        });
+    }
+
+    /**
+     * Brings cached players up to date with rows written by other servers sharing the database. Rows changed since the
+     * previous call are read in one query; cached online players whose row has a newer version are rebased onto it,
+     * keeping any local changes that are not written yet, and stale offline-cache entries are dropped so they are
+     * reloaded on the next lookup. Rebased players are handled like those rebased by a save; see
+     * {@link #onRebased(PlayerLevelData, PlayerSnapshot)}.
+     *
+     * @return The number of cached players that were refreshed or invalidated.
+     */
+    public int refreshRemoteChanges() {
+        var pollStart = System.currentTimeMillis();
+        var refreshed = 0;
+        for (var row : repository.loadChangedSince(coherenceWatermark - COHERENCE_OVERLAP_MS)) {
+            var id = row.getPlayerId();
+            var remote = row.stored();
+            var data = cache.get(id);
+            if (data != null) {
+                var before = data.snapshot();
+                if (data.rebase(remote.snapshot(), remote.version())) {
+                    onRebased(data, before);
+                    refreshed++;
+                }
+            } else if (offlineCache.invalidateIfOlder(id, remote.version())) {
+                refreshed++;
+            }
+        }
+        coherenceWatermark = pollStart;
+        return refreshed;
+    }
+
+    /**
+     * Called when a player was rebased onto changes another server made to their row, either by
+     * {@link #refreshRemoteChanges()} or by the repository resolving a write conflict. Refreshes the player's slot and
+     * notifies the level-up or level-down listeners if the merged XP moved the player to another level.
+     *
+     * @param data   The rebased player.
+     * @param before The player's snapshot right before the rebase.
+     */
+    private void onRebased(PlayerLevelData data, PlayerSnapshot before) {
+        slots.update(data);
+        var id = data.getPlayerId();
+        var oldLevel = levelOf(data, before.xp());
+        var newLevel = levelOf(data, data.getXp());
+        if (newLevel > oldLevel) {
+            events.dispatch(LevelUpListener.class, id, l -> l.onLevelUp(id, oldLevel, newLevel));
+        } else if (newLevel < oldLevel) {
+            events.dispatch(LevelDownListener.class, id, l -> l.onLevelDown(id, oldLevel, newLevel));
+        }
+    }
+
+    /**
+     * Starts calling {@link #refreshRemoteChanges()} on a background thread at a fixed interval. Only needed when
+     * several servers share one database. Stopped by {@link #shutdown()}.
+     *
+     * @param pollIntervalMs The delay in milliseconds between two polls. Must be greater than 0.
+     * @throws IllegalArgumentException If the interval is not positive.
+     * @throws IllegalStateException    If polling has already been started.
+     */
+    public synchronized void startCoherencePolling(long pollIntervalMs) {
+        if (pollIntervalMs <= 0) {
+            throw new IllegalArgumentException("pollIntervalMs must be > 0");
+        }
+        if (coherencePoller != null) {
+            throw new IllegalStateException("Coherence polling is already running");
+        }
+        coherencePoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "LevelingCore-Coherence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        coherencePoller.scheduleWithFixedDelay(() -> {
+            try {
+                refreshRemoteChanges();
+            } catch (DatabaseUnavailableException e) {
+                // Skipped while the database circuit is open; the next successful poll catches up.
+            } catch (RuntimeException e) {
+                LevelingCore.LOGGER.at(Level.WARNING).withCause(e).log("Failed to poll for remote player changes");
+            }
+        }, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether the given player's data is already in the cache, meaning reads and writes for them will not touch
+     * the database.
+     *
+     * @param id The unique identifier (UUID) of the player.
+     * @return {@code true} if the player's data is cached, {@code false} otherwise.
+     */
+    public boolean isLoaded(UUID id) {
+        return cache.containsKey(id);
+    }
+
+    /**
+     * Returns the slot of the given online player in the {@link PlayerSlotTable}. The slot is resolved once per session
+     * and kept on the player's entity in a {@link com.azuredoom.levelingcore.session.PlayerSlotComponent}, so hot paths
+     * such as the damage filters read the player's values from {@link #getSlotTable()} by index.
+     *
+     * @param id The unique identifier (UUID) of the player.
+     * @return The player's slot, or {@link PlayerSlotTable#NO_SLOT} if their data is not loaded for an online player.
+     */
+    public int slotOf(UUID id) {
+        return slots.slotOf(id);
+    }
+
+    /**
+     * Returns the struct-of-arrays table mirroring the progression of online players.
+     *
+     * @return The {@link PlayerSlotTable} of this service.
+     */
+    public PlayerSlotTable getSlotTable() {
+        return slots;
     }
 
     /**
@@ -81,7 +473,30 @@ public class LevelServiceImpl {
      * @return The player's level as an integer, calculated from their XP.
      */
     public int getLevel(UUID id) {
-        return formula.getLevelForXp(get(id).getXp());
+        return get(id).getDerivedLevel(formula).level();
+    }
+
+    /**
+     * Retrieves the total XP required to reach the player's current level. The value is cached alongside the level and
+     * only recomputed when the player's XP leaves the current level.
+     *
+     * @param id The unique identifier (UUID) of the player.
+     * @return The XP floor of the player's current level; 0 for level 1 or below, as in {@link #getXpForLevel(int)}.
+     */
+    public long getLevelFloorXp(UUID id) {
+        var derived = get(id).getDerivedLevel(formula);
+        return derived.level() <= 1 ? 0L : derived.floorXp();
+    }
+
+    /**
+     * Retrieves the total XP required to reach the level after the player's current level. The value is cached
+     * alongside the level and only recomputed when the player's XP leaves the current level.
+     *
+     * @param id The unique identifier (UUID) of the player.
+     * @return The XP required for the next level, as returned by {@link #getXpForLevel(int)} for {@code level + 1}.
+     */
+    public long getNextLevelXp(UUID id) {
+        return get(id).getDerivedLevel(formula).ceilingXp();
     }
 
     /**
@@ -91,7 +506,81 @@ public class LevelServiceImpl {
      * @return {@code true} if the player is at the maximum level, {@code false} otherwise.
      */
     public boolean isMaxLevel(UUID id) {
-        return getLevel(id) >= LevelingUtil.computeMaxLevel();
+        return getLevel(id) >= formula.getMaxLevel();
+    }
+
+    /**
+     * Atomically applies the given operation to the player's data. Concurrent mutations of the same player, for example
+     * XP awarded from several world threads at once, are serialized by compare-and-set so none of them is lost. The
+     * change is persisted and the cached level refreshed if any value changed.
+     * <p>
+     * The operation may be retried against a newer snapshot and must therefore be free of side effects. Listeners are
+     * not notified; callers derive any events from the returned {@link PlayerMutation}.
+     *
+     * @param id The unique identifier (UUID) of the player to mutate.
+     * @param op The operation producing the new snapshot from the current one.
+     * @return The snapshots and levels before and after the mutation.
+     */
+    public PlayerMutation mutate(UUID id, UnaryOperator<PlayerSnapshot> op) {
+        return mutate(get(id), op);
+    }
+
+    private PlayerMutation mutate(PlayerLevelData data, UnaryOperator<PlayerSnapshot> op) {
+        return mutate(data, op, false);
+    }
+
+    /**
+     * Applies the operation to the player and persists the change.
+     *
+     * @param additive Whether the XP change is an award or loss, written as a difference that is merged with XP other
+     *                 servers added, rather than an assignment of the player's XP.
+     */
+    private PlayerMutation mutate(PlayerLevelData data, UnaryOperator<PlayerSnapshot> op, boolean additive) {
+        if (flusher == null) {
+            // Every change is written through, so it is rejected before it is applied while the circuit is open
+            repository.getCircuitBreaker().ensureAvailable();
+        }
+        var change = additive ? data.mutateAdditive(op) : data.mutate(op);
+        var levelBefore = levelOf(data, change.before().xp());
+        var levelAfter = levelOf(data, change.after().xp());
+        if (change.changed()) {
+            persist(data, change);
+            slots.update(data);
+        }
+        return new PlayerMutation(data.getPlayerId(), change.before(), change.after(), levelBefore, levelAfter);
+    }
+
+    /**
+     * Changes several stats and the ability points of a player as one atomic update, for example
+     * {@code edit(id, e -> e.resetStats().setAbilityPoints(points))}. The changes are persisted once and reported
+     * through a single {@link PlayerEditListener} event listing the changed fields; the per-stat and ability point
+     * listeners are not notified. Nothing is persisted or reported if the edit leaves every value unchanged.
+     *
+     * @param id     The unique identifier (UUID) of the player to edit.
+     * @param editor Records the changes on the given {@link PlayerEdit}. It is called once, before the update.
+     * @return The snapshots and levels before and after the edit.
+     */
+    public PlayerMutation edit(UUID id, Consumer<PlayerEdit> editor) {
+        var edit = new PlayerEdit();
+        editor.accept(edit);
+        var mutation = mutate(id, edit::applyTo);
+
+        var changed = PlayerField.changed(mutation.before(), mutation.after());
+        if (!changed.isEmpty()) {
+            events.dispatch(PlayerEditListener.class, id, l -> l.onPlayerEdit(id, changed, mutation));
+        }
+        return mutation;
+    }
+
+    /**
+     * Derives the level for an XP amount of the given player, reusing the player's cached level where possible.
+     *
+     * @param data The player whose cached level is used.
+     * @param xp   The XP amount.
+     * @return The level for {@code xp}.
+     */
+    private int levelOf(PlayerLevelData data, long xp) {
+        return data.derive(formula, xp).level();
     }
 
     public void addLevel(UUID id, int level) {
@@ -100,22 +589,17 @@ public class LevelServiceImpl {
         }
 
         var data = get(id);
-        var oldLevel = getLevel(id);
-
-        int targetLevel = oldLevel + level;
-        if (targetLevel < 1) {
-            targetLevel = 1;
-        }
-
-        var targetXp = formula.getXpForLevel(targetLevel);
-        setDataXP(data, targetXp);
-
-        var newLevel = getLevel(id);
+        var mutation = mutate(data, s -> {
+            var targetLevel = Math.max(1, levelOf(data, s.xp()) + level);
+            return s.withXp(formula.getXpForLevel(targetLevel));
+        });
 
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
         if (newLevel > oldLevel) {
-            levelUpListeners.forEach(l -> l.onLevelUp(id, oldLevel, newLevel));
+            events.dispatch(LevelUpListener.class, id, l -> l.onLevelUp(id, oldLevel, newLevel));
         } else if (newLevel < oldLevel) {
-            levelDownListeners.forEach(l -> l.onLevelDown(id, oldLevel, newLevel));
+            events.dispatch(LevelDownListener.class, id, l -> l.onLevelDown(id, oldLevel, newLevel));
         }
     }
 
@@ -125,19 +609,15 @@ public class LevelServiceImpl {
         }
 
         var data = get(id);
-        var oldLevel = getLevel(id);
-
-        var targetLevel = oldLevel - level;
-        if (targetLevel < 1) {
-            targetLevel = 1;
-        }
-
-        var targetXp = formula.getXpForLevel(targetLevel);
-        setDataXP(data, targetXp);
+        var mutation = mutate(data, s -> {
+            var targetLevel = Math.max(1, levelOf(data, s.xp()) - level);
+            return s.withXp(formula.getXpForLevel(targetLevel));
+        });
 
-        var newLevel = getLevel(id);
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
         if (newLevel < oldLevel) {
-            levelDownListeners.forEach(l -> l.onLevelDown(id, oldLevel, newLevel));
+            events.dispatch(LevelDownListener.class, id, l -> l.onLevelDown(id, oldLevel, newLevel));
         }
     }
 
@@ -151,19 +631,15 @@ public class LevelServiceImpl {
      * @return The new level of the player after the operation.
      */
     public int setLevel(UUID playerId, int level) {
-        var targetLevel = Math.max(level, 1);
-
-        var data = get(playerId);
-        var oldLevel = getLevel(playerId);
-
-        var targetXp = getXpForLevel(targetLevel);
-        setDataXP(data, targetXp);
+        var targetXp = getXpForLevel(Math.max(level, 1));
+        var mutation = mutate(playerId, s -> s.withXp(targetXp));
 
-        var newLevel = getLevel(playerId);
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
         if (newLevel > oldLevel) {
-            levelUpListeners.forEach(l -> l.onLevelUp(playerId, oldLevel, newLevel));
+            events.dispatch(LevelUpListener.class, playerId, l -> l.onLevelUp(playerId, oldLevel, newLevel));
         } else if (newLevel < oldLevel) {
-            levelDownListeners.forEach(l -> l.onLevelDown(playerId, oldLevel, newLevel));
+            events.dispatch(LevelDownListener.class, playerId, l -> l.onLevelDown(playerId, oldLevel, newLevel));
         }
 
         return newLevel;
@@ -194,22 +670,82 @@ public class LevelServiceImpl {
      * @param amount The amount of XP to be added to the player's current XP balance.
      */
     public void addXp(UUID id, long amount) {
-        var data = get(id);
-        var oldLevel = getLevel(id);
+        gainXp(get(id), amount);
+    }
+
+    /**
+     * Queues experience points (XP) for the player associated with the given ID. XP queued for the same player before
+     * it is applied is combined into a single award, applied through {@code executor} once the current tick has
+     * finished. Applying it notifies the XP gain and level-up listeners once with the combined amount, followed by the
+     * {@link XpAwardListener}s.
+     *
+     * @param id       The unique identifier (UUID) of the player receiving the XP.
+     * @param amount   The amount of XP to award.
+     * @param executor The executor that applies the award, normally the world in which the XP was earned.
+     */
+    public void queueXp(UUID id, long amount, Executor executor) {
+        xpAccumulator.add(id, amount, executor);
+    }
+
+    /**
+     * Returns the accumulator holding XP queued through {@link #queueXp(UUID, long, Executor)}.
+     *
+     * @return The {@link XpAccumulator} of this service.
+     */
+    public XpAccumulator getXpAccumulator() {
+        return xpAccumulator;
+    }
 
-        if (isMaxLevel(id)) {
-            setDataXP(data, formula.getXpForLevel(oldLevel));
+    /**
+     * Applies a combined XP award queued in the {@link XpAccumulator}, waiting for the player's data if it is not
+     * cached.
+     */
+    void applyXpAward(UUID id, long amount) {
+        applyXpAward(get(id), amount);
+    }
+
+    /**
+     * Applies a combined XP award queued in the {@link XpAccumulator} to data that has already been loaded.
+     */
+    void applyXpAward(PlayerLevelData data, long amount) {
+        var id = data.getPlayerId();
+        var mutation = gainXp(data, amount);
+        if (mutation == null) {
             return;
         }
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
+        events.dispatch(XpAwardListener.class, id, l -> l.onXpAward(id, amount, oldLevel, newLevel));
+    }
 
-        setDataXP(data, data.getXp() + amount);
+    /**
+     * Adds XP to the player and notifies the XP gain and level-up listeners.
+     *
+     * @return The applied mutation, or {@code null} if the player was already at the maximum level.
+     */
+    private PlayerMutation gainXp(PlayerLevelData data, long amount) {
+        var id = data.getPlayerId();
+        var maxLevel = formula.getMaxLevel();
+        var mutation = mutate(data, s -> {
+            var level = levelOf(data, s.xp());
+            if (level >= maxLevel) {
+                return s.withXp(formula.getXpForLevel(level));
+            }
+            return s.withXp(s.xp() + amount);
+        }, true);
+
+        var oldLevel = mutation.levelBefore();
+        if (oldLevel >= maxLevel) {
+            return null;
+        }
 
-        xpGainListeners.forEach(l -> l.onXpGain(id, amount));
+        events.dispatch(XpGainListener.class, id, l -> l.onXpGain(id, amount));
 
-        var newLevel = getLevel(id);
+        var newLevel = mutation.levelAfter();
         if (newLevel > oldLevel) {
-            levelUpListeners.forEach(l -> l.onLevelUp(id, oldLevel, newLevel));
+            events.dispatch(LevelUpListener.class, id, l -> l.onLevelUp(id, oldLevel, newLevel));
         }
+        return mutation;
     }
 
     /**
@@ -220,16 +756,14 @@ public class LevelServiceImpl {
      * @param amount The amount of XP to remove from the player's total.
      */
     public void removeXp(UUID id, long amount) {
-        var data = get(id);
-        var oldLevel = getLevel(id);
+        var mutation = mutate(get(id), s -> s.withXp(s.xp() - amount), true);
 
-        setDataXP(data, data.getXp() - amount);
+        events.dispatch(XpLossListener.class, id, l -> l.onXpLoss(id, amount));
 
-        xpLossListeners.forEach(l -> l.onXpLoss(id, amount));
-
-        var newLevel = getLevel(id);
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
         if (newLevel < oldLevel) {
-            levelDownListeners.forEach(l -> l.onLevelDown(id, oldLevel, newLevel));
+            events.dispatch(LevelDownListener.class, id, l -> l.onLevelDown(id, oldLevel, newLevel));
         }
     }
 
@@ -241,25 +775,21 @@ public class LevelServiceImpl {
      * @param xp The new experience points (XP) value to assign to the player.
      */
     public void setXp(UUID id, long xp) {
-        var data = get(id);
-        var oldLevel = getLevel(id);
+        var mutation = mutate(id, s -> s.withXp(xp));
 
-        setDataXP(data, xp);
-
-        var newLevel = getLevel(id);
+        var oldLevel = mutation.levelBefore();
+        var newLevel = mutation.levelAfter();
         if (newLevel > oldLevel) {
-            levelUpListeners.forEach(l -> l.onLevelUp(id, oldLevel, newLevel));
+            events.dispatch(LevelUpListener.class, id, l -> l.onLevelUp(id, oldLevel, newLevel));
         } else if (newLevel < oldLevel) {
-            levelDownListeners.forEach(l -> l.onLevelDown(id, oldLevel, newLevel));
+            events.dispatch(LevelDownListener.class, id, l -> l.onLevelDown(id, oldLevel, newLevel));
         }
     }
 
     public void setStr(UUID id, int str) {
-        var data = get(id);
-        data.setStr(str);
-        repository.save(data);
+        mutate(id, s -> s.withStr(str));
 
-        strListeners.forEach(l -> l.onStrengthGain(id, str));
+        events.dispatch(StrengthListener.class, id, l -> l.onStrengthGain(id, str));
     }
 
     public int getStr(UUID id) {
@@ -267,11 +797,9 @@ public class LevelServiceImpl {
     }
 
     public void setAgi(UUID id, int agi) {
-        var data = get(id);
-        data.setAgi(agi);
-        repository.save(data);
+        mutate(id, s -> s.withAgi(agi));
 
-        agiListeners.forEach(l -> l.onAgilityGain(id, agi));
+        events.dispatch(AgilityListener.class, id, l -> l.onAgilityGain(id, agi));
     }
 
     public int getAgi(UUID id) {
@@ -279,11 +807,9 @@ public class LevelServiceImpl {
     }
 
     public void setPer(UUID id, int per) {
-        var data = get(id);
-        data.setPer(per);
-        repository.save(data);
+        mutate(id, s -> s.withPer(per));
 
-        perListeners.forEach(l -> l.onPerceptionGain(id, per));
+        events.dispatch(PerceptionListener.class, id, l -> l.onPerceptionGain(id, per));
     }
 
     public int getPer(UUID id) {
@@ -291,11 +817,9 @@ public class LevelServiceImpl {
     }
 
     public void setVit(UUID id, int vit) {
-        var data = get(id);
-        data.setVit(vit);
-        repository.save(data);
+        mutate(id, s -> s.withVit(vit));
 
-        vitListeners.forEach(l -> l.onVitalityGain(id, vit));
+        events.dispatch(VitalityListener.class, id, l -> l.onVitalityGain(id, vit));
     }
 
     public int getVit(UUID id) {
@@ -303,11 +827,9 @@ public class LevelServiceImpl {
     }
 
     public void setInt(UUID id, int intelligence) {
-        var data = get(id);
-        data.setIntelligence(intelligence);
-        repository.save(data);
+        mutate(id, s -> s.withIntelligence(intelligence));
 
-        intListeners.forEach(l -> l.onIntelligenceGain(id, intelligence));
+        events.dispatch(IntelligenceListener.class, id, l -> l.onIntelligenceGain(id, intelligence));
     }
 
     public int getInt(UUID id) {
@@ -315,11 +837,9 @@ public class LevelServiceImpl {
     }
 
     public void setCon(UUID id, int con) {
-        var data = get(id);
-        data.setCon(con);
-        repository.save(data);
+        mutate(id, s -> s.withCon(con));
 
-        conListeners.forEach(l -> l.onConstitutionGain(id, con));
+        events.dispatch(ConstitutionListener.class, id, l -> l.onConstitutionGain(id, con));
     }
 
     public int getCon(UUID id) {
@@ -327,11 +847,9 @@ public class LevelServiceImpl {
     }
 
     public void setAbilityPoints(UUID id, int abilityPoints) {
-        var data = get(id);
-        data.setAbilityPoints(abilityPoints);
-        repository.save(data);
+        mutate(id, s -> s.withAbilityPoints(abilityPoints));
 
-        abilityPointsListeners.forEach(l -> l.onAbilityPointGain(id, abilityPoints));
+        events.dispatch(AbilityPointsListener.class, id, l -> l.onAbilityPointGain(id, abilityPoints));
     }
 
     public int getAbilityPoints(UUID id) {
@@ -339,8 +857,8 @@ public class LevelServiceImpl {
     }
 
     public int getAvailableAbilityPoints(UUID id) {
-        var data = get(id);
-        return Math.max(0, data.getAbilityPoints() - data.getUsedAbilityPoints());
+        var snapshot = get(id).snapshot();
+        return Math.max(0, snapshot.abilityPoints() - snapshot.usedAbilityPoints());
     }
 
     public int getUsedAbilityPoints(UUID id) {
@@ -351,21 +869,21 @@ public class LevelServiceImpl {
         if (pointsToAdd <= 0)
             return;
 
-        var data = get(id);
-        data.setAbilityPoints(data.getAbilityPoints() + pointsToAdd);
-        repository.save(data);
+        mutate(id, s -> s.withAbilityPoints(s.abilityPoints() + pointsToAdd));
 
-        abilityPointsListeners.forEach(
+        events.dispatch(
+            AbilityPointsListener.class,
+            id,
             l -> l.onAbilityPointGain(id, pointsToAdd)
         );
     }
 
     public void setUsedAbilityPoints(UUID id, int points) {
-        var data = get(id);
-        data.setUsedAbilityPoints(points);
-        repository.save(data);
+        mutate(id, s -> s.withUsedAbilityPoints(points));
 
-        abilityPointsListeners.forEach(
+        events.dispatch(
+            AbilityPointsListener.class,
+            id,
             l -> l.onAbilityPointLoss(id, points)
         );
     }
@@ -374,20 +892,21 @@ public class LevelServiceImpl {
         if (amount <= 0)
             return false;
 
-        var data = get(id);
-
-        int total = data.getAbilityPoints();
-        int used = data.getUsedAbilityPoints();
-        int available = total - used;
+        var mutation = mutate(id, s -> {
+            var available = s.abilityPoints() - s.usedAbilityPoints();
+            if (amount > available) {
+                return s; // not enough points
+            }
+            return s.withUsedAbilityPoints(s.usedAbilityPoints() + amount);
+        });
 
-        if (amount > available) {
-            return false; // not enough points
+        if (mutation.before().usedAbilityPoints() == mutation.after().usedAbilityPoints()) {
+            return false;
         }
 
-        data.setUsedAbilityPoints(used + amount);
-        repository.save(data);
-
-        abilityPointsListeners.forEach(
+        events.dispatch(
+            AbilityPointsListener.class,
+            id,
             l -> l.onAbilityPointUsed(id, amount)
         );
 
@@ -402,7 +921,7 @@ public class LevelServiceImpl {
      * @param listener The {@link LevelDownListener} to be registered for receiving level-down notifications.
      */
     public void registerLevelDownListener(LevelDownListener listener) {
-        levelDownListeners.add(listener);
+        events.subscribe(LevelDownListener.class, listener);
     }
 
     /**
@@ -412,7 +931,52 @@ public class LevelServiceImpl {
      * @return A list of {@link LevelDownListener} objects currently registered to receive level-down notifications.
      */
     public List<LevelDownListener> getLevelDownListeners() {
-        return levelDownListeners;
+        return events.globalListeners(LevelDownListener.class);
+    }
+
+    /**
+     * Registers a listener that is notified only when the given player levels down. Unlike
+     * {@link #registerLevelDownListener(LevelDownListener)}, the listener is not invoked for any other player, and it
+     * is removed by {@link #unregisterListeners(UUID)} when the player leaves.
+     *
+     * @param playerId The unique identifier (UUID) of the player to listen to.
+     * @param listener The {@link LevelDownListener} to be registered.
+     * @return A {@link LevelingEventBus.Subscription} that removes the listener again.
+     */
+    public LevelingEventBus.Subscription registerLevelDownListener(UUID playerId, LevelDownListener listener) {
+        return events.subscribe(LevelDownListener.class, playerId, listener);
+    }
+
+    /**
+     * Registers a listener that is notified only when the given player levels up. Unlike
+     * {@link #registerLevelUpListener(LevelUpListener)}, the listener is not invoked for any other player, and it is
+     * removed by {@link #unregisterListeners(UUID)} when the player leaves.
+     *
+     * @param playerId The unique identifier (UUID) of the player to listen to.
+     * @param listener The {@link LevelUpListener} to be registered.
+     * @return A {@link LevelingEventBus.Subscription} that removes the listener again.
+     */
+    public LevelingEventBus.Subscription registerLevelUpListener(UUID playerId, LevelUpListener listener) {
+        return events.subscribe(LevelUpListener.class, playerId, listener);
+    }
+
+    /**
+     * Removes every listener bound to the given player, for example when they disconnect. Global listeners are kept.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     */
+    public void unregisterListeners(UUID playerId) {
+        events.unsubscribeAll(playerId);
+    }
+
+    /**
+     * Returns the event bus that dispatches level, XP, stat and ability point events. It can be used to subscribe to
+     * listener types that have no dedicated registration method, globally or for a single player.
+     *
+     * @return The {@link LevelingEventBus} of this service.
+     */
+    public LevelingEventBus getEventBus() {
+        return events;
     }
 
     /**
@@ -422,7 +986,7 @@ public class LevelServiceImpl {
      * @param listener The {@link LevelUpListener} to be registered for receiving notifications about level-up events.
      */
     public void registerLevelUpListener(LevelUpListener listener) {
-        levelUpListeners.add(listener);
+        events.subscribe(LevelUpListener.class, listener);
     }
 
     /**
@@ -432,7 +996,7 @@ public class LevelServiceImpl {
      * @return A list of {@link LevelUpListener} objects currently registered to receive level-up notifications.
      */
     public List<LevelUpListener> getLevelUpListeners() {
-        return levelUpListeners;
+        return events.globalListeners(LevelUpListener.class);
     }
 
     /**
@@ -442,7 +1006,7 @@ public class LevelServiceImpl {
      * @param listener The {@link XpGainListener} to be registered for receiving XP gain notifications.
      */
     public void registerXpGainListener(XpGainListener listener) {
-        xpGainListeners.add(listener);
+        events.subscribe(XpGainListener.class, listener);
     }
 
     /**
@@ -452,7 +1016,17 @@ public class LevelServiceImpl {
      * @return A list of {@link XpGainListener} objects currently registered to handle XP gain notifications.
      */
     public List<XpGainListener> getXpGainListeners() {
-        return xpGainListeners;
+        return events.globalListeners(XpGainListener.class);
+    }
+
+    /**
+     * Registers a listener to be notified once a combined XP award queued through
+     * {@link #queueXp(UUID, long, Executor)} has been applied.
+     *
+     * @param listener The {@link XpAwardListener} to be registered.
+     */
+    public void registerXpAwardListener(XpAwardListener listener) {
+        events.subscribe(XpAwardListener.class, listener);
     }
 
     /**
@@ -462,7 +1036,7 @@ public class LevelServiceImpl {
      * @param listener The {@link XpLossListener} to be registered for receiving XP loss notifications.
      */
     public void registerXpLossListener(XpLossListener listener) {
-        xpLossListeners.add(listener);
+        events.subscribe(XpLossListener.class, listener);
     }
 
     /**
@@ -472,67 +1046,165 @@ public class LevelServiceImpl {
      * @return A list of {@link XpLossListener} objects currently registered to receive XP loss notifications.
      */
     public List<XpLossListener> getXpLossListeners() {
-        return xpLossListeners;
+        return events.globalListeners(XpLossListener.class);
+    }
+
+    /**
+     * Registers a listener to be notified of edits made through {@link #edit(UUID, Consumer)}.
+     *
+     * @param listener The {@link PlayerEditListener} to be registered.
+     */
+    public void registerPlayerEditListener(PlayerEditListener listener) {
+        events.subscribe(PlayerEditListener.class, listener);
     }
 
     public void registerStrengthListener(StrengthListener listener) {
-        strListeners.add(listener);
+        events.subscribe(StrengthListener.class, listener);
     }
 
     public List<StrengthListener> getStrengthListeners() {
-        return strListeners;
+        return events.globalListeners(StrengthListener.class);
     }
 
     public void registerAgilityListener(AgilityListener listener) {
-        agiListeners.add(listener);
+        events.subscribe(AgilityListener.class, listener);
     }
 
     public List<AgilityListener> getAgilityListeners() {
-        return agiListeners;
+        return events.globalListeners(AgilityListener.class);
     }
 
     public void registerPerceptionListener(PerceptionListener listener) {
-        perListeners.add(listener);
+        events.subscribe(PerceptionListener.class, listener);
     }
 
     public List<PerceptionListener> getPerceptionListeners() {
-        return perListeners;
+        return events.globalListeners(PerceptionListener.class);
     }
 
     public void registerVitalityListener(VitalityListener listener) {
-        vitListeners.add(listener);
+        events.subscribe(VitalityListener.class, listener);
     }
 
     public List<VitalityListener> getVitalityListeners() {
-        return vitListeners;
+        return events.globalListeners(VitalityListener.class);
     }
 
     public void registerIntelligenceListener(IntelligenceListener listener) {
-        intListeners.add(listener);
+        events.subscribe(IntelligenceListener.class, listener);
     }
 
     public List<IntelligenceListener> getIntelligenceListeners() {
-        return intListeners;
+        return events.globalListeners(IntelligenceListener.class);
     }
 
     public void registerConstitutionListener(ConstitutionListener listener) {
-        conListeners.add(listener);
+        events.subscribe(ConstitutionListener.class, listener);
     }
 
     public List<ConstitutionListener> getConstitutionListeners() {
-        return conListeners;
+        return events.globalListeners(ConstitutionListener.class);
     }
 
     /**
-     * Updates the experience points (XP) of the specified player's level data and persists the changes to the
-     * repository.
+     * Persists the given player data. For online players with write-behind enabled the data is only marked dirty and
+     * written by the background flusher. Otherwise, including for every player held in the offline cache, it is written
+     * through to the repository right away on the {@link AsyncLevelRepository}, so the caller never waits on the
+     * database. The offline cache keeps the entry pinned until the write completes.
+     * <p>
+     * While the database circuit is not closed, every write goes to the write-behind flusher, if enabled, instead.
+     * Without write-behind, changes are rejected before they are applied; see
+     * {@link #mutate(PlayerLevelData, UnaryOperator, boolean)}.
+     * <p>
+     * A failed write-through never leaves the cached data ahead of the database unnoticed. With write-behind the data
+     * is handed to the flusher, which retries it in the background. Without write-behind the change is undone, unless
+     * another change has been made on top of it, and the failure is logged.
      *
-     * @param data The {@link PlayerLevelData} object representing the player's level and experience data to be updated.
-     * @param xp   The new experience points (XP) value to assign to the player. Values less than zero will be adjusted
-     *             to zero by the underlying {@code setXp} method in {@link PlayerLevelData}.
+     * @param data   The {@link PlayerLevelData} that changed.
+     * @param change The change that was applied, journaled along with buffered writes.
      */
-    private void setDataXP(PlayerLevelData data, long xp) {
-        data.setXp(xp);
-        repository.save(data);
+    private void persist(PlayerLevelData data, PlayerLevelData.Change change) {
+        var buffered = cache.get(data.getPlayerId()) == data || !repository.getCircuitBreaker().isClosed();
+        if (flusher != null && buffered) {
+            flusher.markDirty(data, change);
+            return;
+        }
+        asyncRepository.saveAsync(data).whenComplete((ignored, e) -> {
+            if (e == null) {
+                return;
+            }
+            if (flusher == null) {
+                data.mutate(s -> s == change.after() ? change.before() : s);
+                LevelingCore.LOGGER.at(Level.WARNING)
+                    .withCause(e)
+                    .log("Failed to save player {0}, the change was undone", data.getPlayerId());
+                return;
+            }
+            LevelingCore.LOGGER.at(Level.WARNING)
+                .withCause(e)
+                .log("Failed to save player {0}, retrying in the background", data.getPlayerId());
+            flusher.markDirty(data, change);
+        });
+    }
+
+    /**
+     * Applies any XP still queued for the given player and synchronously writes their unsaved changes to the
+     * repository. Writing is a no-op when write-behind is disabled, since changes are then already saved as they
+     * happen.
+     *
+     * @param id The unique identifier (UUID) of the player to flush.
+     */
+    public void flush(UUID id) {
+        xpAccumulator.flush(id);
+        if (flusher == null) {
+            return;
+        }
+        var data = cache.get(id);
+        if (data != null) {
+            flusher.flush(data);
+        }
+    }
+
+    /**
+     * Applies any XP still queued for the given player, writes their unsaved changes on the
+     * {@link AsyncLevelRepository} and schedules their eviction once the write has completed, as
+     * {@link #scheduleEviction(UUID, long)} does. Used when a player disconnects, so the world thread does not wait on
+     * the database. The eviction belongs to the session the player is in when this is called, so a reconnect while the
+     * write is running keeps the player online. A failed write is logged and retried by the eviction.
+     *
+     * @param id      The unique identifier (UUID) of the player who disconnected.
+     * @param delayMs The grace period in milliseconds before the player is evicted.
+     * @return A future completed once the write has finished and the eviction is scheduled.
+     */
+    public CompletableFuture<Void> flushAndScheduleEviction(UUID id, long delayMs) {
+        var generation = online.get(id);
+        xpAccumulator.flush(id);
+        var data = cache.get(id);
+        var written = flusher != null && data != null
+            ? asyncRepository.flushAsync(flusher, data)
+            : CompletableFuture.<Void>completedFuture(null);
+        return written.handle((ignored, e) -> {
+            if (e != null) {
+                LevelingCore.LOGGER.at(Level.WARNING).withCause(e).log("Failed to flush player data for {0}", id);
+            }
+            scheduleEviction(id, generation, delayMs);
+            return null;
+        });
+    }
+
+    /**
+     * Stops coherence polling, applies all queued XP, waits for in-flight asynchronous operations, then stops the
+     * write-behind flusher, if any, and synchronously writes all pending changes, including those of asynchronous
+     * writes that failed. Must be called before the repository is closed.
+     */
+    public void shutdown() {
+        if (coherencePoller != null) {
+            coherencePoller.shutdownNow();
+        }
+        xpAccumulator.flushAll();
+        asyncRepository.close();
+        if (flusher != null) {
+            flusher.close();
+        }
     }
 }
@@ -0,0 +1,85 @@
+package com.azuredoom.levelingcore.level;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
+
+/**
+ * Collects changes to a player's stats and ability points for {@link LevelServiceImpl#edit(UUID, Consumer)}. The
+ * changes are recorded in order and applied to the player's data together as one atomic update, so a reset touching
+ * seven fields is persisted once and reported as a single event.
+ * <p>
+ * Changes are relative to the player's state at the time the edit is applied; {@code add...} methods build on the
+ * player's current value rather than a value read beforehand.
+ */
+public final class PlayerEdit {
+
+    private final List<UnaryOperator<PlayerSnapshot>> changes = new ArrayList<>();
+
+    PlayerEdit() {}
+
+    public PlayerEdit setStr(int str) {
+        return record(s -> s.withStr(str));
+    }
+
+    public PlayerEdit setAgi(int agi) {
+        return record(s -> s.withAgi(agi));
+    }
+
+    public PlayerEdit setPer(int per) {
+        return record(s -> s.withPer(per));
+    }
+
+    public PlayerEdit setVit(int vit) {
+        return record(s -> s.withVit(vit));
+    }
+
+    public PlayerEdit setInt(int intelligence) {
+        return record(s -> s.withIntelligence(intelligence));
+    }
+
+    public PlayerEdit setCon(int con) {
+        return record(s -> s.withCon(con));
+    }
+
+    public PlayerEdit setAbilityPoints(int abilityPoints) {
+        return record(s -> s.withAbilityPoints(abilityPoints));
+    }
+
+    public PlayerEdit addAbilityPoints(int pointsToAdd) {
+        return record(s -> s.withAbilityPoints(s.abilityPoints() + pointsToAdd));
+    }
+
+    public PlayerEdit setUsedAbilityPoints(int usedAbilityPoints) {
+        return record(s -> s.withUsedAbilityPoints(usedAbilityPoints));
+    }
+
+    /**
+     * Sets every stat to zero and refunds all spent ability points.
+     *
+     * @return This edit.
+     */
+    public PlayerEdit resetStats() {
+        return record(s -> new PlayerSnapshot(s.xp(), 0, 0, 0, 0, 0, 0, s.abilityPoints(), 0));
+    }
+
+    private PlayerEdit record(UnaryOperator<PlayerSnapshot> change) {
+        changes.add(change);
+        return this;
+    }
+
+    /**
+     * Applies the recorded changes in order. Free of side effects, so it may be retried against a newer snapshot.
+     */
+    PlayerSnapshot applyTo(PlayerSnapshot snapshot) {
+        var result = snapshot;
+        for (var change : changes) {
+            result = change.apply(result);
+        }
+        return result;
+    }
+}
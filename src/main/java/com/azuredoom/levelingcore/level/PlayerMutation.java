@@ -0,0 +1,24 @@
+package com.azuredoom.levelingcore.level;
+
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
+
+/**
+ * The result of an atomic change made through {@link LevelServiceImpl#mutate}. Both snapshots, and the levels derived
+ * from them, describe the exact state the change was applied to and the state it produced, so level-up and level-down
+ * events computed from them are consistent even when other threads modify the same player concurrently.
+ *
+ * @param playerId    The unique identifier (UUID) of the player that was changed.
+ * @param before      The player's snapshot before the change.
+ * @param after       The player's snapshot after the change.
+ * @param levelBefore The level derived from {@code before}.
+ * @param levelAfter  The level derived from {@code after}.
+ */
+public record PlayerMutation(
+    UUID playerId,
+    PlayerSnapshot before,
+    PlayerSnapshot after,
+    int levelBefore,
+    int levelAfter
+) {}
@@ -0,0 +1,109 @@
+package com.azuredoom.levelingcore.level;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+
+/**
+ * Collects XP awarded to players during a world tick and applies each player's total at once. Killing twenty mobs with
+ * one area attack then results in a single XP change, level computation, persistence mark and set of events for the
+ * player, instead of one per mob.
+ * <p>
+ * The first award queued for a player schedules the application on the given executor, normally the world the award
+ * originated from, which runs it once the current tick's systems have finished. Awards queued before it runs are added
+ * to the same total. Players whose data is not cached, such as offline party members, are loaded first, and the award
+ * is applied once the load has completed, so the executor never waits for the database.
+ */
+public final class XpAccumulator {
+
+    private final LevelServiceImpl levelService;
+
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+
+    XpAccumulator(LevelServiceImpl levelService) {
+        this.levelService = levelService;
+    }
+
+    /**
+     * Queues XP for the given player.
+     *
+     * @param playerId The unique identifier (UUID) of the player receiving the XP.
+     * @param amount   The amount of XP to award. Amounts less than or equal to zero are ignored.
+     * @param executor The executor that applies the player's total, such as the player's world.
+     */
+    public void add(UUID playerId, long amount, Executor executor) {
+        if (amount <= 0) {
+            return;
+        }
+        var first = new boolean[1];
+        pending.compute(playerId, (id, total) -> {
+            if (total == null) {
+                first[0] = true;
+                return amount;
+            }
+            return saturatedAdd(total, amount);
+        });
+        if (first[0]) {
+            levelService.loadAsync(playerId).whenCompleteAsync((data, error) -> {
+                if (error == null) {
+                    apply(playerId, data);
+                    return;
+                }
+                var dropped = pending.remove(playerId);
+                if (dropped != null) {
+                    LevelingCore.LOGGER.at(Level.WARNING)
+                        .withCause(error)
+                        .log("Dropped {0} XP queued for {1}, their data could not be loaded", dropped, playerId);
+                }
+            }, executor);
+        }
+    }
+
+    /**
+     * Returns the XP queued for the given player that has not been applied yet.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     * @return The pending XP, or 0 if there is none.
+     */
+    public long getPending(UUID playerId) {
+        return pending.getOrDefault(playerId, 0L);
+    }
+
+    /**
+     * Applies the XP queued for the given player right away, waiting for their data if it is not cached. Meant for
+     * disconnect and shutdown handling, not for world threads.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     */
+    public void flush(UUID playerId) {
+        var amount = pending.remove(playerId);
+        if (amount != null) {
+            levelService.applyXpAward(playerId, amount);
+        }
+    }
+
+    private void apply(UUID playerId, PlayerLevelData data) {
+        var amount = pending.remove(playerId);
+        if (amount != null) {
+            levelService.applyXpAward(data, amount);
+        }
+    }
+
+    /**
+     * Applies the XP queued for every player right away. Used on shutdown, when scheduled applications may no longer
+     * run.
+     */
+    public void flushAll() {
+        pending.keySet().forEach(this::flush);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        var sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
@@ -1,8 +1,10 @@
 package com.azuredoom.levelingcore.level.formulas;
 
+import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
 
@@ -34,6 +36,10 @@ import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
  * <li>{@link #getLevelForXp(long)} determines the highest level whose XP floor is less than or equal to the provided XP
  * value.</li>
  * <li>Level lookup is performed using a binary search up to the configured maximum level.</li>
+ * <li>The expression is parsed once at construction, with constants bound up front. Each thread evaluates its own
+ * copy, since exp4j expressions hold mutable variable state.</li>
+ * <li>Results for levels up to {@value #MEMO_MAX_LEVELS} are memoized, so repeated lookups of the same level do not
+ * evaluate the expression again.</li>
  * </ul>
  * <h2>Constraints</h2>
  * <p>
@@ -42,15 +48,26 @@ import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
  * <li>The expression string must not be {@code null} or blank.</li>
  * <li>The maximum level must be {@code >= 1}.</li>
  * <li>Level inputs must be {@code >= 1}.</li>
- * <li>The expression should be <em>monotonically increasing</em> with respect to {@code level} to ensure correct level
- * calculation.</li>
- * </ul>
- * <h2>Notes</h2>
- * <ul>
- * <li>Non-monotonic expressions may result in undefined or incorrect leveling behavior.</li>
+ * <li>The expression must be <em>non-decreasing</em> with respect to {@code level} to ensure correct level
+ * calculation. This is checked at construction by sampling the curve.</li>
  * </ul>
  */
-public class CustomExpressionLevelFormula implements LevelFormula {
+public final class CustomExpressionLevelFormula implements LevelFormula {
+
+    /**
+     * The number of levels whose XP floor is memoized.
+     */
+    static final int MEMO_MAX_LEVELS = 1 << 17;
+
+    /**
+     * The number of consecutive levels, starting at level 1, checked for monotonicity at construction.
+     */
+    private static final int VALIDATE_DENSE_LEVELS = 1000;
+
+    /**
+     * The number of additional levels sampled for monotonicity between the dense range and the maximum level.
+     */
+    private static final int VALIDATE_SAMPLES = 1000;
 
     private final String expressionText;
 
@@ -58,6 +75,12 @@ public class CustomExpressionLevelFormula implements LevelFormula {
 
     private final int maxLevel;
 
+    private final Expression compiled;
+
+    private final ThreadLocal<Expression> expression;
+
+    private final AtomicLongArray memo;
+
     /**
      * Constructs a new CustomExpressionLevelFormula instance, which evaluates experience point (XP) progression using a
      * custom mathematical expression. The formula is defined by a string expression and uses constants for calculation.
@@ -69,7 +92,8 @@ public class CustomExpressionLevelFormula implements LevelFormula {
      * @param constants            A map of constant values that will be used in the expression evaluation. If null, an
      *                             empty map will be used.
      * @param maxLevel             The maximum level supported by this formula. Must be greater than or equal to 1.
-     * @throws LevelingCoreException If `xpForLevelExpression` is null, blank, or if `maxLevel` is less than 1.
+     * @throws LevelingCoreException If `xpForLevelExpression` is null, blank, cannot be parsed, or is not
+     *                               non-decreasing, or if `maxLevel` is less than 1.
      */
     public CustomExpressionLevelFormula(
         String xpForLevelExpression,
@@ -86,6 +110,84 @@ public class CustomExpressionLevelFormula implements LevelFormula {
         this.expressionText = xpForLevelExpression.trim();
         this.constants = (constants == null) ? Map.of() : Map.copyOf(constants);
         this.maxLevel = maxLevel;
+        this.compiled = compile();
+        this.expression = ThreadLocal.withInitial(() -> new Expression(compiled));
+        this.memo = new AtomicLongArray(Math.min(maxLevel, MEMO_MAX_LEVELS) + 1);
+        this.memo.set(0, 0L);
+        for (var level = 1; level < memo.length(); level++) {
+            memo.set(level, -1L);
+        }
+        validate();
+    }
+
+    /**
+     * Parses the expression once and binds the constants. The result is used as a template for per-thread copies.
+     *
+     * @return The compiled expression with every constant set.
+     * @throws LevelingCoreException If the expression cannot be parsed.
+     */
+    private Expression compile() {
+        try {
+            var builder = new ExpressionBuilder(expressionText)
+                .variable("level");
+
+            for (var k : constants.keySet()) {
+                builder.variable(k);
+            }
+
+            var exp = builder.build();
+            exp.setVariables(constants);
+            return exp;
+        } catch (IllegalArgumentException e) {
+            throw new LevelingCoreException("Invalid custom.xpForLevel '" + expressionText + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Samples the XP curve and ensures it never decreases: every level up to {@value #VALIDATE_DENSE_LEVELS}, then
+     * {@value #VALIDATE_SAMPLES} evenly spaced levels up to the maximum level, and the maximum level itself.
+     *
+     * @throws LevelingCoreException If the expression cannot be evaluated or the XP floor of a later level is lower
+     *                               than that of an earlier one.
+     */
+    private void validate() {
+        var prevLevel = 1;
+        var prevXp = xpAt(1);
+        var dense = Math.min(maxLevel, VALIDATE_DENSE_LEVELS);
+        var step = Math.max(1, (maxLevel - dense) / VALIDATE_SAMPLES);
+
+        for (var level = 2; level <= maxLevel; level = level < dense ? level + 1 : Math.min(maxLevel, level + step)) {
+            var xp = xpAt(level);
+            if (xp < prevXp) {
+                throw new LevelingCoreException(
+                    "custom.xpForLevel must be non-decreasing, but level " + level + " requires " + xp
+                        + " XP and level " + prevLevel + " requires " + prevXp + " XP"
+                );
+            }
+            prevLevel = level;
+            prevXp = xp;
+            if (level == maxLevel) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Evaluates the XP floor of a level during validation, reporting evaluation errors as configuration errors.
+     *
+     * @param level The level to evaluate.
+     * @return The XP floor of the level.
+     * @throws LevelingCoreException If the expression cannot be evaluated.
+     */
+    private long xpAt(int level) {
+        try {
+            return getXpForLevel(level);
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new LevelingCoreException(
+                "custom.xpForLevel cannot be evaluated at level " + level + ": " + e.getMessage(),
+                e
+            );
+        }
     }
 
     /**
@@ -105,7 +207,26 @@ public class CustomExpressionLevelFormula implements LevelFormula {
             throw new LevelingCoreException("level must be >= 1");
         }
 
-        var value = eval(level);
+        if (level < memo.length()) {
+            var cached = memo.get(level);
+            if (cached >= 0) {
+                return cached;
+            }
+            var xp = toXp(eval(level));
+            memo.set(level, xp);
+            return xp;
+        }
+        return toXp(eval(level));
+    }
+
+    /**
+     * Converts an evaluated expression value to an XP amount, clamping non-finite and out-of-range values.
+     *
+     * @param value The evaluated expression value.
+     * @return {@code Long.MAX_VALUE} for overflow or non-finite values, {@code 0L} for non-positive values, and the
+     *         value rounded up otherwise.
+     */
+    private static long toXp(double value) {
         if (!Double.isFinite(value) || value >= Long.MAX_VALUE)
             return Long.MAX_VALUE;
         if (value <= 0) {
@@ -156,29 +277,23 @@ public class CustomExpressionLevelFormula implements LevelFormula {
     }
 
     /**
-     * Evaluates the expression defined in the instance using the provided level and constants. This method builds a
-     * mathematical expression based on the configured expression text, substitutes the "level" variable with the given
-     * level value, and substitutes additional constants before evaluating the result.
+     * Evaluates the expression for the given level using the calling thread's copy of the compiled expression, whose
+     * constants are already bound.
      *
      * @param level The level value to be substituted into the expression. Determines the context of the calculation.
-     * @return The result of evaluating the expression after substituting the "level" variable and all defined
-     *         constants.
+     * @return The result of evaluating the expression after substituting the "level" variable.
      */
     private double eval(int level) {
-        var builder = new ExpressionBuilder(expressionText)
-            .variable("level");
-
-        for (var k : constants.keySet()) {
-            builder.variable(k);
-        }
-
-        var exp = builder.build();
-        exp.setVariable("level", level);
-
-        for (var e : constants.entrySet()) {
-            exp.setVariable(e.getKey(), e.getValue());
-        }
+        return expression.get().setVariable("level", level).evaluate();
+    }
 
-        return exp.evaluate();
+    /**
+     * Returns the maximum level supported by this formula.
+     *
+     * @return The configured maximum level, always greater than or equal to 1.
+     */
+    @Override
+    public int getMaxLevel() {
+        return maxLevel;
     }
 }
@@ -103,4 +103,14 @@ public class ExponentialLevelFormula implements LevelFormula {
 
         return Math.max(level, 1);
     }
+
+    /**
+     * Returns the maximum level supported by this formula.
+     *
+     * @return The configured maximum level, always greater than or equal to 1.
+     */
+    @Override
+    public int getMaxLevel() {
+        return maxLevel;
+    }
 }
@@ -16,4 +16,9 @@ public interface LevelFormula {
      * Converts total XP into a level.
      */
     int getLevelForXp(long xp);
+
+    /**
+     * Returns the maximum level supported by this formula.
+     */
+    int getMaxLevel();
 }
@@ -83,4 +83,14 @@ public class LinearLevelFormula implements LevelFormula {
 
         return (int) level;
     }
+
+    /**
+     * Returns the maximum level supported by this formula.
+     *
+     * @return The configured maximum level, always greater than or equal to 1.
+     */
+    @Override
+    public int getMaxLevel() {
+        return maxLevel;
+    }
 }
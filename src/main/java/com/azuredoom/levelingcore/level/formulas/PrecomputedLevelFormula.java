@@ -0,0 +1,118 @@
+package com.azuredoom.levelingcore.level.formulas;
+
+import java.util.Arrays;
+
+/**
+ * A {@link LevelFormula} decorator that evaluates another formula once for every level up to a materialisation cap and
+ * answers all further lookups from the resulting table of XP thresholds, in the same way {@link TableLevelFormula}
+ * does. {@link #getXpForLevel(int)} becomes an array index and {@link #getLevelForXp(long)} a binary search, instead of
+ * repeated {@code Math.pow} calls or expression evaluations.
+ * <p>
+ * Levels above the cap, and XP at or above the highest materialised threshold, are delegated to the wrapped formula, so
+ * results are identical to the wrapped formula for every input.
+ */
+public class PrecomputedLevelFormula implements LevelFormula {
+
+    private final LevelFormula delegate;
+
+    private final long[] xpByLevel;
+
+    private final int materializedLevel;
+
+    /**
+     * Creates a precomputed view of the given formula.
+     *
+     * @param delegate           The formula to precompute. Must produce non-decreasing XP thresholds.
+     * @param materializationCap The highest level to materialise. Levels above
+     *                           {@code min(delegate.getMaxLevel(), cap)} are computed by the wrapped formula on demand.
+     *                           Must be greater than or equal to 1.
+     * @throws IllegalArgumentException If {@code materializationCap} is less than 1, or if the wrapped formula's XP
+     *                                  thresholds decrease between two levels.
+     */
+    public PrecomputedLevelFormula(LevelFormula delegate, int materializationCap) {
+        if (materializationCap < 1) {
+            throw new IllegalArgumentException("materializationCap must be >= 1");
+        }
+        this.delegate = delegate;
+        this.materializedLevel = Math.min(delegate.getMaxLevel(), materializationCap);
+        this.xpByLevel = new long[materializedLevel + 1];
+
+        var prev = Long.MIN_VALUE;
+        for (var level = 1; level <= materializedLevel; level++) {
+            var xp = delegate.getXpForLevel(level);
+            if (xp < prev) {
+                throw new IllegalArgumentException("XP must be non-decreasing (level " + level + ")");
+            }
+            xpByLevel[level] = xp;
+            prev = xp;
+        }
+    }
+
+    /**
+     * Returns the total XP required to reach the given level, read from the precomputed table when the level is
+     * materialised.
+     *
+     * @param level The level for which to determine the required XP. Must be greater than or equal to 1.
+     * @return The total XP required to reach the specified level.
+     * @throws IllegalArgumentException If the level is less than 1.
+     */
+    @Override
+    public long getXpForLevel(int level) {
+        if (level < 1) {
+            throw new IllegalArgumentException("level must be >= 1");
+        }
+        if (level <= materializedLevel) {
+            return xpByLevel[level];
+        }
+        return delegate.getXpForLevel(level);
+    }
+
+    /**
+     * Determines the level for the given total XP by binary search over the precomputed thresholds. XP at or above the
+     * highest materialised threshold is resolved by the wrapped formula, which also applies its own max-level clamping.
+     *
+     * @param xp The total experience points. Must be non-negative.
+     * @return The highest level whose XP threshold is less than or equal to {@code xp}, and at least 1.
+     * @throws IllegalArgumentException If the xp value is negative.
+     */
+    @Override
+    public int getLevelForXp(long xp) {
+        if (xp < 0) {
+            throw new IllegalArgumentException("xp must be >= 0");
+        }
+        if (xp >= xpByLevel[materializedLevel]) {
+            return delegate.getLevelForXp(xp);
+        }
+
+        var idx = Arrays.binarySearch(xpByLevel, 1, materializedLevel + 1, xp);
+        if (idx >= 0) {
+            // Several levels may share a threshold; the player has reached the highest of them.
+            while (xpByLevel[idx + 1] == xp) {
+                idx++;
+            }
+            return idx;
+        }
+
+        var insertionPoint = -(idx + 1);
+        return Math.max(1, insertionPoint - 1);
+    }
+
+    /**
+     * Returns the maximum level supported by the wrapped formula.
+     *
+     * @return The wrapped formula's maximum level.
+     */
+    @Override
+    public int getMaxLevel() {
+        return delegate.getMaxLevel();
+    }
+
+    /**
+     * Returns the highest level held in the precomputed table.
+     *
+     * @return The number of materialised levels.
+     */
+    public int getMaterializedLevel() {
+        return materializedLevel;
+    }
+}
@@ -89,6 +89,12 @@ public class TableLevelFormula implements LevelFormula {
         return Math.max(1, Math.min(level, xpByLevel.length - 1));
     }
 
+    /**
+     * Returns the highest level defined by the table.
+     *
+     * @return The maximum level, always greater than or equal to 1.
+     */
+    @Override
     public int getMaxLevel() {
         return xpByLevel.length - 1;
     }
@@ -0,0 +1,150 @@
+package com.azuredoom.levelingcore.listeners;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Typed event bus for the LevelingCore listener interfaces ({@link LevelUpListener}, {@link XpGainListener}, ...).
+ * Listeners are grouped into one channel per listener type.
+ * <p>
+ * A listener is either global, receiving the events of every player, or bound to a single player through
+ * {@link #subscribe(Class, UUID, Object)}. Player-bound listeners are kept in a per-UUID index, so dispatching an event
+ * only visits the global listeners and those of the affected player, and they can all be dropped at once with
+ * {@link #unsubscribeAll(UUID)} when the player disconnects.
+ * <p>
+ * Listener lists are copy-on-write arrays: subscribing and unsubscribing copy the array, while dispatch iterates the
+ * current array without locking, from any thread.
+ */
+public final class LevelingEventBus {
+
+    private final Map<Class<?>, Channel<?>> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes a listener to the events of every player.
+     *
+     * @param type     The listener interface.
+     * @param listener The listener to notify.
+     * @param <L>      The listener type.
+     * @return A {@link Subscription} that removes the listener again.
+     */
+    public <L> Subscription subscribe(Class<L> type, L listener) {
+        var global = channel(type).global;
+        global.add(listener);
+        return () -> global.remove(listener);
+    }
+
+    /**
+     * Subscribes a listener to the events of a single player only.
+     *
+     * @param type     The listener interface.
+     * @param playerId The unique identifier (UUID) of the player whose events are delivered.
+     * @param listener The listener to notify.
+     * @param <L>      The listener type.
+     * @return A {@link Subscription} that removes the listener again.
+     */
+    public <L> Subscription subscribe(Class<L> type, UUID playerId, L listener) {
+        var byPlayer = channel(type).byPlayer;
+        byPlayer.compute(playerId, (id, listeners) -> {
+            var list = listeners != null ? listeners : new CopyOnWriteArrayList<L>();
+            list.add(listener);
+            return list;
+        });
+        return () -> byPlayer.computeIfPresent(playerId, (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Removes every player-bound listener of the given player, across all listener types. Global listeners are not
+     * affected.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     */
+    public void unsubscribeAll(UUID playerId) {
+        channels.values().forEach(channel -> channel.byPlayer.remove(playerId));
+    }
+
+    /**
+     * Delivers an event about the given player to every global listener of the type and to the listeners bound to that
+     * player.
+     *
+     * @param type     The listener interface.
+     * @param playerId The unique identifier (UUID) of the player the event is about.
+     * @param action   Invokes the appropriate callback on a listener.
+     * @param <L>      The listener type.
+     */
+    @SuppressWarnings("unchecked")
+    public <L> void dispatch(Class<L> type, UUID playerId, Consumer<? super L> action) {
+        var channel = (Channel<L>) channels.get(type);
+        if (channel == null) {
+            return;
+        }
+        for (var listener : channel.global) {
+            action.accept(listener);
+        }
+        var bound = channel.byPlayer.get(playerId);
+        if (bound != null) {
+            for (var listener : bound) {
+                action.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Returns the live list of global listeners of the given type. The list is thread-safe; adding to or removing from
+     * it is equivalent to subscribing or unsubscribing.
+     *
+     * @param type The listener interface.
+     * @param <L>  The listener type.
+     * @return The global listeners of the type.
+     */
+    public <L> List<L> globalListeners(Class<L> type) {
+        return channel(type).global;
+    }
+
+    /**
+     * Returns the number of players that currently have at least one player-bound listener of the given type.
+     *
+     * @param type The listener interface.
+     * @return The number of players in the type's per-UUID index.
+     */
+    public int boundPlayerCount(Class<?> type) {
+        var channel = channels.get(type);
+        return channel == null ? 0 : channel.byPlayer.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <L> Channel<L> channel(Class<L> type) {
+        return (Channel<L>) channels.computeIfAbsent(type, t -> new Channel<L>());
+    }
+
+    /**
+     * The listeners of a single listener type.
+     *
+     * @param <L> The listener type.
+     */
+    private static final class Channel<L> {
+
+        private final CopyOnWriteArrayList<L> global = new CopyOnWriteArrayList<>();
+
+        private final Map<UUID, CopyOnWriteArrayList<L>> byPlayer = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A handle to a subscribed listener.
+     */
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+
+        /**
+         * Removes the listener from the bus. Calling this more than once has no further effect.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,17 @@
+package com.azuredoom.levelingcore.listeners;
+
+import java.util.Set;
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.level.PlayerMutation;
+import com.azuredoom.levelingcore.playerdata.PlayerField;
+
+/**
+ * Interface for handling edits made through {@link com.azuredoom.levelingcore.level.LevelServiceImpl#edit}. An edit
+ * can change several stats and the ability points of a player at once and is reported as a single event listing the
+ * changed fields, instead of one event per field.
+ */
+public interface PlayerEditListener {
+
+    void onPlayerEdit(UUID playerId, Set<PlayerField> changedFields, PlayerMutation mutation);
+}
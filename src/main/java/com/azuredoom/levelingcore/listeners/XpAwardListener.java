@@ -0,0 +1,13 @@
+package com.azuredoom.levelingcore.listeners;
+
+import java.util.UUID;
+
+/**
+ * Interface for handling XP awards queued through {@link com.azuredoom.levelingcore.level.LevelServiceImpl#queueXp}.
+ * All XP queued for a player before the award is applied is combined, so implementations are notified once per player
+ * and tick with the total amount, after the XP gain and level-up events of that award.
+ */
+public interface XpAwardListener {
+
+    void onXpAward(UUID playerId, long amount, int oldLevel, int newLevel);
+}
@@ -0,0 +1,147 @@
+package com.azuredoom.levelingcore.playerdata;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, least-recently-used cache of {@link PlayerLevelData} for players that are not online, such as offline
+ * party members, command targets and placeholder lookups. It is kept separate from the online-player cache so that a
+ * large lookup burst cannot grow the heap without bound.
+ * <p>
+ * Changes to entries in this cache are written to the database in the background. An entry is pinned while it holds
+ * changes that are not written yet: it is neither evicted nor invalidated, so a lookup never loads a row that is older
+ * than the cached data. Once the write completes, the entry can be evicted again.
+ */
+public class OfflinePlayerCache {
+
+    private final int maxEntries;
+
+    private final Map<UUID, PlayerLevelData> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an offline-player cache.
+     *
+     * @param maxEntries The maximum number of players kept in the cache. When the cache is full, the least recently
+     *                   used entry is evicted. A value of 0 disables caching entirely.
+     * @throws IllegalArgumentException If {@code maxEntries} is negative.
+     */
+    public OfflinePlayerCache(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must be >= 0 (got: " + maxEntries + ")");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerLevelData> eldest) {
+                if (size() <= OfflinePlayerCache.this.maxEntries) {
+                    return false;
+                }
+                // Evicts the least recently used entry that is not pinned, if any
+                var iterator = entrySet().iterator();
+                while (iterator.hasNext()) {
+                    if (!iterator.next().getValue().hasUnwrittenChanges()) {
+                        iterator.remove();
+                        evictions.increment();
+                        return false;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a cached player and marks it as most recently used.
+     *
+     * @param id The unique identifier of the player.
+     * @return The cached {@link PlayerLevelData}, or {@code null} if the player is not cached.
+     */
+    public synchronized PlayerLevelData get(UUID id) {
+        var data = entries.get(id);
+        if (data != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return data;
+    }
+
+    /**
+     * Adds a player to the cache unless it is already present, evicting the least recently used entry that is not
+     * pinned if the cache is full. The cache may exceed its maximum size while every other entry is pinned.
+     *
+     * @param id   The unique identifier of the player.
+     * @param data The player's data.
+     * @return The data now associated with the player: the existing entry if there was one, otherwise {@code data}.
+     */
+    public synchronized PlayerLevelData putIfAbsent(UUID id, PlayerLevelData data) {
+        if (maxEntries == 0) {
+            return data;
+        }
+        var existing = entries.putIfAbsent(id, data);
+        return existing != null ? existing : data;
+    }
+
+    /**
+     * Removes a player from the cache, for example because they came online and moved to the online-player cache.
+     *
+     * @param id The unique identifier of the player.
+     * @return The removed {@link PlayerLevelData}, or {@code null} if the player was not cached.
+     */
+    public synchronized PlayerLevelData remove(UUID id) {
+        return entries.remove(id);
+    }
+
+    /**
+     * Removes a player from the cache if the cached entry is older than the given version of their database row, so the
+     * next lookup loads the current row. Pinned entries are kept; their pending write detects the newer row and
+     * rebases them onto it.
+     *
+     * @param id      The unique identifier of the player.
+     * @param version The version of the player's row in the database.
+     * @return {@code true} if a stale entry was removed.
+     */
+    public synchronized boolean invalidateIfOlder(UUID id, long version) {
+        var data = entries.get(id);
+        if (data == null || data.stored().version() >= version || data.hasUnwrittenChanges()) {
+            return false;
+        }
+        entries.remove(id);
+        return true;
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return The current {@link Stats}.
+     */
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), maxEntries, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * A snapshot of the offline-player cache counters.
+     *
+     * @param size       The number of players currently cached.
+     * @param maxEntries The configured maximum number of cached players.
+     * @param hits       The number of lookups answered from the cache.
+     * @param misses     The number of lookups that had to go to the database.
+     * @param evictions  The number of entries evicted to stay within {@code maxEntries}.
+     */
+    public record Stats(
+        int size,
+        int maxEntries,
+        long hits,
+        long misses,
+        long evictions
+    ) {}
+}
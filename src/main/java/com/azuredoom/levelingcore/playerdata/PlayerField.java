@@ -0,0 +1,54 @@
+package com.azuredoom.levelingcore.playerdata;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * The persisted fields of a {@link PlayerSnapshot}, used to describe which values a change touched.
+ */
+public enum PlayerField {
+
+    XP(PlayerSnapshot::xp),
+    STR(PlayerSnapshot::str),
+    AGI(PlayerSnapshot::agi),
+    PER(PlayerSnapshot::per),
+    VIT(PlayerSnapshot::vit),
+    INTELLIGENCE(PlayerSnapshot::intelligence),
+    CON(PlayerSnapshot::con),
+    ABILITY_POINTS(PlayerSnapshot::abilityPoints),
+    USED_ABILITY_POINTS(PlayerSnapshot::usedAbilityPoints);
+
+    private final ToLongFunction<PlayerSnapshot> getter;
+
+    PlayerField(ToLongFunction<PlayerSnapshot> getter) {
+        this.getter = getter;
+    }
+
+    /**
+     * Reads this field from the given snapshot.
+     *
+     * @param snapshot The snapshot to read.
+     * @return The field's value, widened to a long.
+     */
+    public long get(PlayerSnapshot snapshot) {
+        return getter.applyAsLong(snapshot);
+    }
+
+    /**
+     * Returns the fields whose values differ between two snapshots.
+     *
+     * @param before The earlier snapshot.
+     * @param after  The later snapshot.
+     * @return The changed fields; empty if the snapshots are equal.
+     */
+    public static Set<PlayerField> changed(PlayerSnapshot before, PlayerSnapshot after) {
+        var fields = EnumSet.noneOf(PlayerField.class);
+        for (var field : values()) {
+            if (field.get(before) != field.get(after)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+}
@@ -1,37 +1,68 @@
 package com.azuredoom.levelingcore.playerdata;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+import com.azuredoom.levelingcore.level.formulas.LevelFormula;
 
 /**
  * Represents the level-related data of a player within the leveling system. This includes the player's unique
  * identifier and their experience points (XP). The class provides methods to retrieve and modify the player's XP, with
  * constraints ensuring it remains non-negative.
+ * <p>
+ * The values are held in an immutable {@link PlayerSnapshot} that is replaced by compare-and-set on every change, so
+ * updates from several threads are never lost and {@link #snapshot()} always returns a consistent view.
  */
 public class PlayerLevelData {
 
     private final UUID playerId;
 
-    private long xp;
+    private final AtomicReference<LocalState> state = new AtomicReference<>(LocalState.CLEAN);
 
-    private int str;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
 
-    private int agi;
+    private volatile DerivedLevel derivedLevel;
 
-    private int per;
+    private final ReentrantLock writeLock = new ReentrantLock();
 
-    private int vit;
+    private final Condition writeReleased = writeLock.newCondition();
 
-    private int intelligence;
+    // Guarded by writeLock
+    private Object writeOwner;
 
-    private int con;
+    private volatile StoredState stored = StoredState.NONE;
 
-    private int abilityPoints;
+    public PlayerLevelData(UUID playerId) {
+        this.playerId = playerId;
+    }
 
-    private int usedAbilityPoints;
+    /**
+     * Creates player data initialized with the given snapshot that has not been stored in the database yet.
+     *
+     * @param playerId The player's unique identifier.
+     * @param snapshot The player's progression.
+     */
+    public PlayerLevelData(UUID playerId, PlayerSnapshot snapshot) {
+        this.playerId = playerId;
+        this.state.set(new LocalState(snapshot, false));
+    }
 
-    public PlayerLevelData(UUID playerId) {
+    /**
+     * Creates player data as loaded from the database.
+     *
+     * @param playerId The player's unique identifier.
+     * @param snapshot The player's stored progression.
+     * @param version  The version of the stored row.
+     */
+    public PlayerLevelData(UUID playerId, PlayerSnapshot snapshot, long version) {
         this.playerId = playerId;
-        this.xp = 0;
+        this.state.set(new LocalState(snapshot, false));
+        this.stored = new StoredState(snapshot, version);
     }
 
     /**
@@ -43,13 +74,69 @@ public class PlayerLevelData {
         return playerId;
     }
 
+    /**
+     * Returns the player's current progression as a consistent, immutable snapshot.
+     *
+     * @return The current {@link PlayerSnapshot}.
+     */
+    public PlayerSnapshot snapshot() {
+        return state.get().snapshot();
+    }
+
+    /**
+     * Returns the player's current snapshot together with whether its XP has to be written as an absolute value.
+     *
+     * @return The current {@link LocalState}.
+     */
+    public LocalState local() {
+        return state.get();
+    }
+
+    /**
+     * Atomically applies the given operation to the player's current snapshot. The operation is retried with the
+     * latest snapshot if another thread changed the data concurrently, so it must be free of side effects.
+     * <p>
+     * A change of the XP made this way is an assignment, such as setting the player's level: it is written as the
+     * absolute value and takes precedence over XP other servers added in the meantime.
+     *
+     * @param op The operation producing the new snapshot from the current one.
+     * @return The snapshots before and after the operation was applied.
+     */
+    public Change mutate(UnaryOperator<PlayerSnapshot> op) {
+        return apply(op, false);
+    }
+
+    /**
+     * Atomically applies an operation whose XP change is an increment, such as an XP award or loss, like
+     * {@link #mutate(UnaryOperator)}. Unless the XP has also been assigned since the last database write, the XP is
+     * written as the difference to the stored value, which is merged with XP other servers added in the meantime.
+     *
+     * @param op The operation producing the new snapshot from the current one.
+     * @return The snapshots before and after the operation was applied.
+     */
+    public Change mutateAdditive(UnaryOperator<PlayerSnapshot> op) {
+        return apply(op, true);
+    }
+
+    private Change apply(UnaryOperator<PlayerSnapshot> op, boolean additive) {
+        while (true) {
+            var current = state.get();
+            var before = current.snapshot();
+            var after = op.apply(before);
+            var xpAssigned = current.xpAssigned() || (!additive && after.xp() != before.xp());
+            if (state.compareAndSet(current, new LocalState(after, xpAssigned))) {
+                return new Change(before, after);
+            }
+        }
+    }
+
     /**
      * Retrieves the player's current experience points (XP).
      *
      * @return The current XP value of the player as a long.
      */
     public long getXp() {
-        return xp;
+        return state.get().snapshot().xp();
     }
 
     /**
@@ -60,71 +147,337 @@ public class PlayerLevelData {
      *           zero.
      */
     public void setXp(long xp) {
-        this.xp = Math.max(0, xp);
+        mutate(s -> s.withXp(xp));
     }
 
     public int getStr() {
-        return str;
+        return state.get().snapshot().str();
     }
 
     public void setStr(int str) {
-        this.str = str;
+        mutate(s -> s.withStr(str));
     }
 
     public int getAgi() {
-        return agi;
+        return state.get().snapshot().agi();
     }
 
     public void setAgi(int agi) {
-        this.agi = agi;
+        mutate(s -> s.withAgi(agi));
     }
 
     public int getPer() {
-        return per;
+        return state.get().snapshot().per();
     }
 
     public void setPer(int per) {
-        this.per = per;
+        mutate(s -> s.withPer(per));
     }
 
     public int getVit() {
-        return vit;
+        return state.get().snapshot().vit();
     }
 
     public void setVit(int vit) {
-        this.vit = vit;
+        mutate(s -> s.withVit(vit));
     }
 
     public int getIntelligence() {
-        return intelligence;
+        return state.get().snapshot().intelligence();
     }
 
     public void setIntelligence(int intelligence) {
-        this.intelligence = intelligence;
+        mutate(s -> s.withIntelligence(intelligence));
     }
 
     public int getCon() {
-        return con;
+        return state.get().snapshot().con();
     }
 
     public void setCon(int con) {
-        this.con = con;
+        mutate(s -> s.withCon(con));
     }
 
     public int getAbilityPoints() {
-        return abilityPoints;
+        return state.get().snapshot().abilityPoints();
     }
 
     public void setAbilityPoints(int abilityPoints) {
-        this.abilityPoints = abilityPoints;
+        mutate(s -> s.withAbilityPoints(abilityPoints));
     }
 
     public int getUsedAbilityPoints() {
-        return usedAbilityPoints;
+        return state.get().snapshot().usedAbilityPoints();
     }
 
     public void setUsedAbilityPoints(int usedAbilityPoints) {
-        this.usedAbilityPoints = usedAbilityPoints;
+        mutate(s -> s.withUsedAbilityPoints(usedAbilityPoints));
+    }
+
+    /**
+     * Marks this data as having changes that have not yet been written to the database.
+     *
+     * @return {@code true} if the data was previously clean, meaning the caller is responsible for scheduling it for a
+     *         write; {@code false} if it was already marked dirty.
+     */
+    public boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    /**
+     * Clears the dirty flag before the data is written to the database. Any change made after this call marks the data
+     * dirty again, so it is picked up by the next flush.
+     *
+     * @return {@code true} if the data was dirty and should be written; {@code false} if there was nothing to write.
+     */
+    public boolean clearDirty() {
+        return dirty.compareAndSet(true, false);
+    }
+
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Checks whether this data holds changes that are not in the database yet. Unlike {@link #isDirty()}, this stays
+     * {@code true} while a write is running, until the written snapshot is recorded by {@link #markStored}.
+     *
+     * @return {@code true} if the current snapshot differs from the one last read from or written to the database.
+     */
+    public boolean hasUnwrittenChanges() {
+        return !state.get().snapshot().equals(stored.snapshot());
+    }
+
+    /**
+     * Returns the lock that serializes database writes of this player, so that the stored version and snapshot are only
+     * changed by one writer at a time. Held by the repository while writing a single player and by {@link #rebase}.
+     * Batched writes only hold it briefly and claim the player with {@link #tryClaimWrite(Object)} instead.
+     *
+     * @return The player's write lock.
+     */
+    public Lock writeLock() {
+        return writeLock;
     }
 
+    /**
+     * Claims this player for a database write that runs without holding {@link #writeLock()}, such as a batched save
+     * that only takes the lock to read the state it writes and again to record the result. Until the claim is released,
+     * other writers and {@link #rebase} wait in {@link #awaitWrite()}, so they do not act on a stored state the running
+     * write is about to replace. Must be called while holding {@link #writeLock()}.
+     *
+     * @param owner Identifies the write, so only it can release the claim.
+     * @return {@code true} if the claim was taken; {@code false} if another write holds it.
+     */
+    public boolean tryClaimWrite(Object owner) {
+        if (writeOwner != null) {
+            return false;
+        }
+        writeOwner = owner;
+        return true;
+    }
+
+    /**
+     * Releases a claim taken by {@link #tryClaimWrite(Object)} and wakes up the writers waiting for it. Does nothing if
+     * the claim is not held by {@code owner}. Must be called while holding {@link #writeLock()}.
+     *
+     * @param owner The owner passed to {@link #tryClaimWrite(Object)}.
+     */
+    public void releaseWrite(Object owner) {
+        if (writeOwner == owner) {
+            writeOwner = null;
+            writeReleased.signalAll();
+        }
+    }
+
+    /**
+     * Waits until no write claimed through {@link #tryClaimWrite(Object)} is running. The {@link #writeLock()} is
+     * released while waiting and held again on return. Must be called while holding {@link #writeLock()}.
+     */
+    public void awaitWrite() {
+        while (writeOwner != null) {
+            writeReleased.awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * Returns the snapshot last read from or written to the database, together with the row version it corresponds to.
+     *
+     * @return The stored state, or {@link StoredState#NONE} if the player has no row yet as far as this server knows.
+     */
+    public StoredState stored() {
+        return stored;
+    }
+
+    /**
+     * Records that the given snapshot was written to the database as the given row version. Must be called while
+     * holding {@link #writeLock()}.
+     *
+     * @param snapshot The snapshot that was written.
+     * @param version  The row version after the write.
+     */
+    public void markStored(PlayerSnapshot snapshot, long version) {
+        stored = new StoredState(snapshot, version);
+        // An XP assignment is settled once it is in the database, unless the XP was changed again after the write
+        state.updateAndGet(current -> current.snapshot().equals(snapshot) ? new LocalState(snapshot, false) : current);
+    }
+
+    /**
+     * Rebases this player onto a newer row written by another server. Changes made locally since the last database
+     * read or write are re-applied on top of the remote snapshot with {@link PlayerSnapshot#rebase}, and the remote
+     * version becomes the version the next write is conditional on. If the XP was assigned locally, the assigned value
+     * is kept instead of adding the local XP difference to the remote XP. Nothing happens if the remote version is not
+     * newer than the stored one.
+     *
+     * @param remote        The snapshot currently in the database.
+     * @param remoteVersion The version of the row in the database.
+     * @return {@code true} if the data was rebased; {@code false} if it was already up to date.
+     */
+    public boolean rebase(PlayerSnapshot remote, long remoteVersion) {
+        writeLock.lock();
+        try {
+            awaitWrite();
+            var base = stored;
+            if (remoteVersion <= base.version()) {
+                return false;
+            }
+            state.updateAndGet(current -> {
+                var merged = current.snapshot().rebase(base.snapshot(), remote);
+                return new LocalState(
+                    current.xpAssigned() ? merged.withXp(current.snapshot().xp()) : merged,
+                    current.xpAssigned()
+                );
+            });
+            stored = new StoredState(remote, remoteVersion);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the level derived from the current XP, together with the XP floor and ceiling of that level. The result
+     * is cached and only recomputed when the XP or the formula has changed since the last call. While the XP stays
+     * within the cached level's floor and ceiling, the level is reused without consulting the formula at all.
+     *
+     * @param formula The formula used to convert XP into a level.
+     * @return The {@link DerivedLevel} for the current XP under the given formula.
+     */
+    public DerivedLevel getDerivedLevel(LevelFormula formula) {
+        return derive(formula, getXp());
+    }
+
+    /**
+     * Derives the level for the given XP amount, reusing the cached {@link DerivedLevel} when the XP falls within its
+     * floor and ceiling. The result becomes the new cached value.
+     *
+     * @param formula   The formula used to convert XP into a level.
+     * @param currentXp The XP amount to derive the level for, typically from a {@link PlayerSnapshot} of this player.
+     * @return The {@link DerivedLevel} for {@code currentXp} under the given formula.
+     */
+    public DerivedLevel derive(LevelFormula formula, long currentXp) {
+        var derived = derivedLevel;
+        if (derived != null && derived.formula() == formula) {
+            if (derived.xp() == currentXp) {
+                return derived;
+            }
+            if (currentXp >= derived.floorXp() && currentXp < derived.ceilingXp()) {
+                derived = new DerivedLevel(formula, currentXp, derived.level(), derived.floorXp(), derived.ceilingXp());
+                derivedLevel = derived;
+                return derived;
+            }
+        }
+        var level = formula.getLevelForXp(currentXp);
+        derived = new DerivedLevel(
+            formula,
+            currentXp,
+            level,
+            formula.getXpForLevel(level),
+            level < Integer.MAX_VALUE ? formula.getXpForLevel(level + 1) : Long.MAX_VALUE
+        );
+        derivedLevel = derived;
+        return derived;
+    }
+
+    /**
+     * A level derived from an XP amount under a specific formula.
+     *
+     * @param formula   The formula the level was derived with. A different formula instance, for example after a
+     *                  reload, invalidates the cached value.
+     * @param xp        The XP amount the level was derived from.
+     * @param level     The level for {@code xp}.
+     * @param floorXp   The total XP required to reach {@code level}.
+     * @param ceilingXp The total XP required to reach the next level.
+     */
+    public record DerivedLevel(
+        LevelFormula formula,
+        long xp,
+        int level,
+        long floorXp,
+        long ceilingXp
+    ) {}
+
+    /**
+     * The state of a player's row in the database as last seen by this server.
+     *
+     * @param snapshot The snapshot held by the row.
+     * @param version  The row version, or -1 if the player has no row yet.
+     */
+    public record StoredState(
+        PlayerSnapshot snapshot,
+        long version
+    ) {
+
+        /**
+         * The stored state of a player without a row in the database.
+         */
+        public static final StoredState NONE = new StoredState(PlayerSnapshot.EMPTY, -1L);
+
+        /**
+         * Returns whether the player has a row in the database.
+         *
+         * @return {@code true} if a row was read or written.
+         */
+        public boolean exists() {
+            return version >= 0;
+        }
+    }
+
+    /**
+     * The player's current progression as held in memory.
+     *
+     * @param snapshot   The current snapshot.
+     * @param xpAssigned Whether the XP was assigned an absolute value since it was last written to or read from the
+     *                   database. Such XP is written as is; otherwise an XP change is written as a difference.
+     */
+    public record LocalState(
+        PlayerSnapshot snapshot,
+        boolean xpAssigned
+    ) {
+
+        /**
+         * The state of a player without any progression or unsaved assignment.
+         */
+        public static final LocalState CLEAN = new LocalState(PlayerSnapshot.EMPTY, false);
+    }
+
+    /**
+     * The snapshots of a player immediately before and after an atomic change.
+     *
+     * @param before The snapshot the change was applied to.
+     * @param after  The snapshot produced by the change.
+     */
+    public record Change(
+        PlayerSnapshot before,
+        PlayerSnapshot after
+    ) {
+
+        /**
+         * Returns whether the change modified any value.
+         *
+         * @return {@code true} if {@code before} and {@code after} differ.
+         */
+        public boolean changed() {
+            return !before.equals(after);
+        }
+    }
 }
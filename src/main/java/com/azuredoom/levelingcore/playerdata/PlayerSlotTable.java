@@ -0,0 +1,263 @@
+package com.azuredoom.levelingcore.playerdata;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.azuredoom.levelingcore.level.formulas.LevelFormula;
+
+/**
+ * A struct-of-arrays copy of the progression of online players. Every online player is assigned a dense slot index,
+ * and their XP, level and stats are kept in primitive arrays at that index, so code that already knows a player's slot
+ * reads a value with a single array load instead of a map lookup followed by a snapshot read.
+ * <p>
+ * {@link PlayerLevelData} remains the authoritative state; the table mirrors it and is refreshed by the level service
+ * after every change. Writes are serialized, while reads are lock-free and see every write that completed before the
+ * read started. Slots are reused once a player is detached, so a slot must not be held on to after the player has
+ * left; {@link #getOwner(int)} identifies the player a slot currently belongs to.
+ */
+public final class PlayerSlotTable {
+
+    /**
+     * Returned by {@link #slotOf(UUID)} for players that have no slot.
+     */
+    public static final int NO_SLOT = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<UUID, Integer> slots = new ConcurrentHashMap<>();
+
+    private final LevelFormula formula;
+
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    private int freeCount;
+
+    private int nextSlot;
+
+    private volatile Columns columns = new Columns(INITIAL_CAPACITY);
+
+    /**
+     * Creates an empty table.
+     *
+     * @param formula The formula used to derive the level column from the XP.
+     */
+    public PlayerSlotTable(LevelFormula formula) {
+        this.formula = formula;
+    }
+
+    /**
+     * Assigns a slot to the given player, if they do not have one yet, and copies their current values into it.
+     *
+     * @param data The player's data.
+     * @return The player's slot.
+     */
+    public synchronized int attach(PlayerLevelData data) {
+        var slot = slots.get(data.getPlayerId());
+        if (slot == null) {
+            slot = allocate();
+            slots.put(data.getPlayerId(), slot);
+        }
+        write(slot, data);
+        return slot;
+    }
+
+    /**
+     * Copies the current values of the given player into their slot. Does nothing if the player has no slot.
+     *
+     * @param data The player's data.
+     */
+    public synchronized void update(PlayerLevelData data) {
+        var slot = slots.get(data.getPlayerId());
+        if (slot != null) {
+            write(slot, data);
+        }
+    }
+
+    /**
+     * Releases the slot of the given player so it can be assigned to another player.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     */
+    public synchronized void detach(UUID playerId) {
+        var slot = slots.remove(playerId);
+        if (slot == null) {
+            return;
+        }
+        var cols = columns;
+        cols.owner[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        columns = cols;
+    }
+
+    /**
+     * Returns the slot of the given player.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     * @return The player's slot, or {@link #NO_SLOT} if they have none.
+     */
+    public int slotOf(UUID playerId) {
+        var slot = slots.get(playerId);
+        return slot == null ? NO_SLOT : slot;
+    }
+
+    /**
+     * Returns the number of players that currently have a slot.
+     *
+     * @return The number of assigned slots.
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Returns the player the given slot is assigned to.
+     *
+     * @param slot The slot index.
+     * @return The owner's unique identifier (UUID), or {@code null} if the slot is free.
+     */
+    public UUID getOwner(int slot) {
+        return columns.owner[slot];
+    }
+
+    public long getXp(int slot) {
+        return columns.xp[slot];
+    }
+
+    public int getLevel(int slot) {
+        return columns.level[slot];
+    }
+
+    public int getStr(int slot) {
+        return columns.str[slot];
+    }
+
+    public int getAgi(int slot) {
+        return columns.agi[slot];
+    }
+
+    public int getPer(int slot) {
+        return columns.per[slot];
+    }
+
+    public int getVit(int slot) {
+        return columns.vit[slot];
+    }
+
+    public int getInt(int slot) {
+        return columns.intelligence[slot];
+    }
+
+    public int getCon(int slot) {
+        return columns.con[slot];
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        var cols = columns;
+        if (nextSlot == cols.owner.length) {
+            columns = cols.grow(cols.owner.length * 2);
+        }
+        return nextSlot++;
+    }
+
+    /**
+     * Copies the player's latest snapshot into the slot. The snapshot is read while holding the write lock, so the last
+     * write for a player always reflects their latest state even when changes from several threads race.
+     */
+    private void write(int slot, PlayerLevelData data) {
+        var snapshot = data.snapshot();
+        var cols = columns;
+        cols.owner[slot] = data.getPlayerId();
+        cols.xp[slot] = snapshot.xp();
+        cols.level[slot] = data.derive(formula, snapshot.xp()).level();
+        cols.str[slot] = snapshot.str();
+        cols.agi[slot] = snapshot.agi();
+        cols.per[slot] = snapshot.per();
+        cols.vit[slot] = snapshot.vit();
+        cols.intelligence[slot] = snapshot.intelligence();
+        cols.con[slot] = snapshot.con();
+        // Republishes the arrays so lock-free readers see the element writes above.
+        columns = cols;
+    }
+
+    /**
+     * The value arrays, indexed by slot. Replaced as a whole when the table grows.
+     */
+    private static final class Columns {
+
+        private final UUID[] owner;
+
+        private final long[] xp;
+
+        private final int[] level;
+
+        private final int[] str;
+
+        private final int[] agi;
+
+        private final int[] per;
+
+        private final int[] vit;
+
+        private final int[] intelligence;
+
+        private final int[] con;
+
+        private Columns(int capacity) {
+            this(
+                new UUID[capacity],
+                new long[capacity],
+                new int[capacity],
+                new int[capacity],
+                new int[capacity],
+                new int[capacity],
+                new int[capacity],
+                new int[capacity],
+                new int[capacity]
+            );
+        }
+
+        private Columns(
+            UUID[] owner,
+            long[] xp,
+            int[] level,
+            int[] str,
+            int[] agi,
+            int[] per,
+            int[] vit,
+            int[] intelligence,
+            int[] con
+        ) {
+            this.owner = owner;
+            this.xp = xp;
+            this.level = level;
+            this.str = str;
+            this.agi = agi;
+            this.per = per;
+            this.vit = vit;
+            this.intelligence = intelligence;
+            this.con = con;
+        }
+
+        private Columns grow(int capacity) {
+            return new Columns(
+                Arrays.copyOf(owner, capacity),
+                Arrays.copyOf(xp, capacity),
+                Arrays.copyOf(level, capacity),
+                Arrays.copyOf(str, capacity),
+                Arrays.copyOf(agi, capacity),
+                Arrays.copyOf(per, capacity),
+                Arrays.copyOf(vit, capacity),
+                Arrays.copyOf(intelligence, capacity),
+                Arrays.copyOf(con, capacity)
+            );
+        }
+    }
+}
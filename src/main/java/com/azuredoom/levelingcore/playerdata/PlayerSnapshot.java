@@ -0,0 +1,106 @@
+package com.azuredoom.levelingcore.playerdata;
+
+/**
+ * An immutable view of a player's persisted progression at one point in time. {@link PlayerLevelData} holds the current
+ * snapshot and replaces it atomically on every change, so readers always see a consistent set of values and concurrent
+ * updates from different threads cannot overwrite each other.
+ * <p>
+ * The {@code with...} methods return a copy with a single field changed and are meant to be chained inside
+ * {@link PlayerLevelData#mutate(java.util.function.UnaryOperator)}.
+ *
+ * @param xp                The player's total experience points, never negative.
+ * @param str               The player's strength.
+ * @param agi               The player's agility.
+ * @param per               The player's perception.
+ * @param vit               The player's vitality.
+ * @param intelligence      The player's intelligence.
+ * @param con               The player's constitution.
+ * @param abilityPoints     The total ability points the player has earned.
+ * @param usedAbilityPoints The ability points the player has spent.
+ */
+public record PlayerSnapshot(
+    long xp,
+    int str,
+    int agi,
+    int per,
+    int vit,
+    int intelligence,
+    int con,
+    int abilityPoints,
+    int usedAbilityPoints
+) {
+
+    /**
+     * The snapshot of a player without any progression.
+     */
+    public static final PlayerSnapshot EMPTY = new PlayerSnapshot(0L, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public PlayerSnapshot {
+        xp = Math.max(0, xp);
+    }
+
+    /**
+     * Returns a copy with the given XP. Negative values are adjusted to zero.
+     *
+     * @param xp The new experience points.
+     * @return The updated snapshot.
+     */
+    public PlayerSnapshot withXp(long xp) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withStr(int str) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withAgi(int agi) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withPer(int per) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withVit(int vit) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withIntelligence(int intelligence) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withCon(int con) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withAbilityPoints(int abilityPoints) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    public PlayerSnapshot withUsedAbilityPoints(int usedAbilityPoints) {
+        return new PlayerSnapshot(xp, str, agi, per, vit, intelligence, con, abilityPoints, usedAbilityPoints);
+    }
+
+    /**
+     * Re-applies the changes this snapshot made relative to {@code base} on top of {@code onto}. Used when another
+     * server wrote the same player in the meantime: the XP gained or lost locally is added to the other server's XP,
+     * and every other field takes the local value if it was changed locally and the other server's value otherwise.
+     *
+     * @param base The snapshot this one was derived from, typically the last one read from or written to the database.
+     * @param onto The snapshot to apply the local changes to, typically the one currently in the database.
+     * @return The merged snapshot.
+     */
+    public PlayerSnapshot rebase(PlayerSnapshot base, PlayerSnapshot onto) {
+        return new PlayerSnapshot(
+            onto.xp + (xp - base.xp),
+            str != base.str ? str : onto.str,
+            agi != base.agi ? agi : onto.agi,
+            per != base.per ? per : onto.per,
+            vit != base.vit ? vit : onto.vit,
+            intelligence != base.intelligence ? intelligence : onto.intelligence,
+            con != base.con ? con : onto.con,
+            abilityPoints != base.abilityPoints ? abilityPoints : onto.abilityPoints,
+            usedAbilityPoints != base.usedAbilityPoints ? usedAbilityPoints : onto.usedAbilityPoints
+        );
+    }
+}
@@ -0,0 +1,145 @@
+package com.azuredoom.levelingcore.session;
+
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.azuredoom.levelingcore.listeners.LevelingEventBus;
+import com.azuredoom.levelingcore.ui.hud.XPBarHud;
+
+/**
+ * The per-player state LevelingCore keeps while a player is in a world: the level listeners registered for the player,
+ * the player's XP bar HUD and the highest level rewards have been handed out for.
+ * <p>
+ * Sessions are opened and closed by {@link PlayerSessionManager} in response to the player's ready and disconnect
+ * events. Once a session is closed, its listeners are unsubscribed and anything attached to it later is released right
+ * away, so work scheduled before the player left cannot leak state.
+ */
+@SuppressWarnings("removal")
+public final class PlayerSession {
+
+    private final UUID playerId;
+
+    private final Player player;
+
+    private final List<LevelingEventBus.Subscription> subscriptions = new ArrayList<>();
+
+    private final AtomicInteger lastRewardedLevel = new AtomicInteger();
+
+    private volatile PlayerRef playerRef;
+
+    private volatile XPBarHud hud;
+
+    private boolean closed;
+
+    PlayerSession(UUID playerId, Player player) {
+        this.playerId = playerId;
+        this.player = player;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the player's {@link PlayerRef} component, which is resolved on the world thread once the session starts.
+     *
+     * @return The player reference, or {@code null} if the session has not started yet.
+     */
+    public PlayerRef getPlayerRef() {
+        return playerRef;
+    }
+
+    /**
+     * Returns the XP bar HUD shown to the player.
+     *
+     * @return The HUD, or {@code null} if the XP bar is disabled or the session is closed.
+     */
+    public XPBarHud getHud() {
+        return hud;
+    }
+
+    /**
+     * Binds the session to the player's entity. Levels up to and including {@code currentLevel} are considered
+     * rewarded, so only levels reached during this session hand out rewards.
+     *
+     * @param playerRef    The player's {@link PlayerRef} component.
+     * @param currentLevel The player's level when the session starts.
+     */
+    void start(PlayerRef playerRef, int currentLevel) {
+        this.playerRef = playerRef;
+        lastRewardedLevel.accumulateAndGet(currentLevel, Math::max);
+    }
+
+    /**
+     * Records that rewards are handed out up to the given level.
+     *
+     * @param level The level that was reached.
+     * @return The highest level rewarded before this call. Rewards are due for the levels above it up to {@code level};
+     *         none are due if it is greater than or equal to {@code level}.
+     */
+    public int advanceRewardedLevel(int level) {
+        return lastRewardedLevel.getAndAccumulate(level, Math::max);
+    }
+
+    /**
+     * Keeps a listener subscription until the session closes. If the session is already closed, the subscription is
+     * closed immediately.
+     *
+     * @param subscription The subscription to keep.
+     */
+    public void track(LevelingEventBus.Subscription subscription) {
+        synchronized (subscriptions) {
+            if (!closed) {
+                subscriptions.add(subscription);
+                return;
+            }
+        }
+        subscription.close();
+    }
+
+    /**
+     * Attaches the player's XP bar HUD to the session. It is ignored if the session is already closed.
+     *
+     * @param hud The HUD shown to the player.
+     */
+    public void attachHud(XPBarHud hud) {
+        synchronized (subscriptions) {
+            if (!closed) {
+                this.hud = hud;
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        synchronized (subscriptions) {
+            return closed;
+        }
+    }
+
+    /**
+     * Closes the session, unsubscribing its listeners and releasing the HUD. Calling this more than once has no further
+     * effect.
+     */
+    void close() {
+        List<LevelingEventBus.Subscription> toClose;
+        synchronized (subscriptions) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hud = null;
+            toClose = List.copyOf(subscriptions);
+            subscriptions.clear();
+        }
+        toClose.forEach(LevelingEventBus.Subscription::close);
+    }
+}
@@ -0,0 +1,86 @@
+package com.azuredoom.levelingcore.session;
+
+import com.hypixel.hytale.server.core.event.events.player.PlayerReadyEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.azuredoom.levelingcore.api.LevelingCoreApi;
+import com.azuredoom.levelingcore.config.GUIConfig;
+import com.azuredoom.levelingcore.utils.HudPlayerReady;
+import com.azuredoom.levelingcore.utils.LevelDownListenerRegistrar;
+import com.azuredoom.levelingcore.utils.LevelUpListenerRegistrar;
+
+/**
+ * Owns the {@link PlayerSession} of every player in a world. A session is opened when the player becomes ready, which
+ * registers the player's level listeners, shows the XP bar HUD once and hands the player's slot to the ECS systems
+ * through a {@link PlayerSlotComponent}, and is closed when the player disconnects. Opening a new session for a player,
+ * for example after changing worlds, closes the previous one.
+ */
+public final class PlayerSessionManager {
+
+    private static final Map<UUID, PlayerSession> SESSIONS = new ConcurrentHashMap<>();
+
+    private PlayerSessionManager() {}
+
+    /**
+     * Opens a session for the player of the given ready event. The listeners, HUD and slot component are set up on the
+     * world thread of the player's entity, once the player's data is cached.
+     *
+     * @param event  The player's ready event.
+     * @param config The GUI configuration.
+     */
+    public static void open(PlayerReadyEvent event, Config<GUIConfig> config) {
+        var player = event.getPlayer();
+        if (player == null)
+            return;
+        var ref = event.getPlayerRef();
+        var store = ref.getStore();
+        var world = store.getExternalData().getWorld();
+        var session = new PlayerSession(player.getUuid(), player);
+        var previous = SESSIONS.put(session.getPlayerId(), session);
+        if (previous != null) {
+            previous.close();
+        }
+
+        LevelingCoreApi.getLevelServiceIfPresent()
+            .ifPresent(levelService -> levelService.whenLoaded(session.getPlayerId(), world::execute, () -> {
+                if (session.isClosed())
+                    return;
+                var playerRef = store.getComponent(ref, PlayerRef.getComponentType());
+                if (playerRef == null)
+                    return;
+                session.start(playerRef, levelService.getLevel(session.getPlayerId()));
+                store.ensureAndGetComponent(ref, PlayerSlotComponent.getComponentType())
+                    .setSlot(levelService.slotOf(session.getPlayerId()));
+                LevelUpListenerRegistrar.register(session, store, levelService, config);
+                LevelDownListenerRegistrar.register(session, store, levelService, config);
+                HudPlayerReady.ready(session, levelService, config);
+            }));
+    }
+
+    /**
+     * Returns the open session of the given player.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     * @return The player's session, or {@code null} if the player has none.
+     */
+    public static PlayerSession get(UUID playerId) {
+        return SESSIONS.get(playerId);
+    }
+
+    /**
+     * Closes the session of the given player, if any.
+     *
+     * @param playerId The unique identifier (UUID) of the player.
+     */
+    public static void close(UUID playerId) {
+        var session = SESSIONS.remove(playerId);
+        if (session != null) {
+            session.close();
+        }
+    }
+}
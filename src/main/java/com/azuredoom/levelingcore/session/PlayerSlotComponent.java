@@ -0,0 +1,66 @@
+package com.azuredoom.levelingcore.session;
+
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.playerdata.PlayerSlotTable;
+
+/**
+ * Holds a player's slot in the level service's {@link PlayerSlotTable} on the player's entity, so ECS systems such as
+ * the damage filters read the player's level and stats by index instead of looking the player up by UUID on every hit.
+ * <p>
+ * The slot is set on the world thread when the player's session starts. Slots are reused once a player leaves, so
+ * readers go through {@link #slotFor(UUID, PlayerSlotTable)}, which checks that the slot still belongs to the player.
+ */
+public final class PlayerSlotComponent implements Component<EntityStore> {
+
+    private static ComponentType<EntityStore, PlayerSlotComponent> componentType;
+
+    private int slot = PlayerSlotTable.NO_SLOT;
+
+    public PlayerSlotComponent() {}
+
+    private PlayerSlotComponent(int slot) {
+        this.slot = slot;
+    }
+
+    public static ComponentType<EntityStore, PlayerSlotComponent> getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * Sets the component type returned by {@link #getComponentType()}. Called once by the plugin when it registers the
+     * component.
+     *
+     * @param type The registered component type.
+     */
+    public static void setComponentType(ComponentType<EntityStore, PlayerSlotComponent> type) {
+        componentType = type;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the slot held by this component if it is still assigned to the given player.
+     *
+     * @param playerId The unique identifier (UUID) of the entity's player.
+     * @param slots    The slot table the slot was taken from.
+     * @return The player's slot, or {@link PlayerSlotTable#NO_SLOT} if the slot is unset or belongs to another player.
+     */
+    public int slotFor(UUID playerId, PlayerSlotTable slots) {
+        var current = slot;
+        return current != PlayerSlotTable.NO_SLOT && playerId.equals(slots.getOwner(current))
+            ? current
+            : PlayerSlotTable.NO_SLOT;
+    }
+
+    @Override
+    public PlayerSlotComponent clone() {
+        return new PlayerSlotComponent(slot);
+    }
+}
@@ -22,6 +22,8 @@ import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.playerdata.PlayerSlotTable;
+import com.azuredoom.levelingcore.session.PlayerSlotComponent;
 
 public class MobDamageFilter extends DamageEventSystem {
 
@@ -61,6 +63,10 @@ public class MobDamageFilter extends DamageEventSystem {
             return;
 
         var levelService = levelServiceOpt.get();
+        var attackerId = playerRefAttacker.getUuid();
+        var slots = levelService.getSlotTable();
+        var slotComponent = store.getComponent(attackerRef, PlayerSlotComponent.getComponentType());
+        var slot = slotComponent != null ? slotComponent.slotFor(attackerId, slots) : PlayerSlotTable.NO_SLOT;
 
         var incoming = damage.getAmount();
         if (incoming <= 0f)
@@ -70,7 +76,9 @@ public class MobDamageFilter extends DamageEventSystem {
             if (playerAttacker == null)
                 return;
 
-            var level = levelService.getLevel(playerRefAttacker.getUuid());
+            var level = slot != PlayerSlotTable.NO_SLOT
+                ? slots.getLevel(slot)
+                : levelService.getLevel(attackerId);
             var itemHand = playerAttacker.getInventory().getItemInHand();
             if (itemHand == null)
                 return;
@@ -102,12 +110,12 @@ public class MobDamageFilter extends DamageEventSystem {
         var isProjectile = causeIdLower.contains("projectile") || causeIdLower.contains("arrow");
 
         if (isProjectile) {
-            var per = levelService.getPer(playerRefAttacker.getUuid());
+            var per = slot != PlayerSlotTable.NO_SLOT ? slots.getPer(slot) : levelService.getPer(attackerId);
             damage.setAmount(
                 Math.round((float) (damage.getAmount() * (1.0 + per * config.get().getPerStatMultiplier())))
             );
         } else {
-            var str = levelService.getStr(playerRefAttacker.getUuid());
+            var str = slot != PlayerSlotTable.NO_SLOT ? slots.getStr(slot) : levelService.getStr(attackerId);
             damage.setAmount(
                 Math.round((float) (damage.getAmount() * (1.0 + str * config.get().getStrStatMultiplier())))
             );
@@ -22,6 +22,8 @@ import javax.annotation.Nullable;
 import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
+import com.azuredoom.levelingcore.playerdata.PlayerSlotTable;
+import com.azuredoom.levelingcore.session.PlayerSlotComponent;
 import com.azuredoom.levelingcore.utils.MobLevelingUtil;
 
 @SuppressWarnings("removal")
@@ -86,7 +88,11 @@ public class PlayerDamageFilter extends DamageEventSystem {
         var baseProjectile = config.get().getMobBaseRangeDamage();
         var projectileMulti = config.get().getMobRangeDamageMultiplier();
 
-        var con = levelService.getCon(victimPlayerRef.getUuid());
+        var victimId = victimPlayerRef.getUuid();
+        var slots = levelService.getSlotTable();
+        var slotComponent = archetypeChunk.getComponent(index, PlayerSlotComponent.getComponentType());
+        var slot = slotComponent != null ? slotComponent.slotFor(victimId, slots) : PlayerSlotTable.NO_SLOT;
+        var con = slot != PlayerSlotTable.NO_SLOT ? slots.getCon(slot) : levelService.getCon(victimId);
         var mult = conDamageMultiplier(con);
 
         if (isProjectile) {
@@ -1,50 +0,0 @@
-package com.azuredoom.levelingcore.systems.level;
-
-import com.hypixel.hytale.component.ArchetypeChunk;
-import com.hypixel.hytale.component.CommandBuffer;
-import com.hypixel.hytale.component.Holder;
-import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.component.query.Query;
-import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
-import com.hypixel.hytale.server.core.entity.EntityUtils;
-import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import com.hypixel.hytale.server.core.util.Config;
-import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
-import org.checkerframework.checker.nullness.compatqual.NullableDecl;
-
-import com.azuredoom.levelingcore.config.GUIConfig;
-import com.azuredoom.levelingcore.utils.LevelDownListenerRegistrar;
-
-public class LevelDownTickingSystem extends EntityTickingSystem<EntityStore> {
-
-    private final Config<GUIConfig> config;
-
-    public LevelDownTickingSystem(Config<GUIConfig> config) {
-        this.config = config;
-    }
-
-    @Override
-    public void tick(
-        float var1,
-        int index,
-        @NonNullDecl ArchetypeChunk<EntityStore> archetypeChunk,
-        @NonNullDecl Store<EntityStore> store,
-        @NonNullDecl CommandBuffer<EntityStore> commandBuffer
-    ) {
-        final Holder<EntityStore> holder = EntityUtils.toHolder(index, archetypeChunk);
-        final Player player = holder.getComponent(Player.getComponentType());
-        final PlayerRef playerRef = holder.getComponent(PlayerRef.getComponentType());
-        if (player == null || playerRef == null) {
-            return;
-        }
-        LevelDownListenerRegistrar.ensureRegistered(store, player, playerRef, config);
-    }
-
-    @NullableDecl
-    @Override
-    public Query<EntityStore> getQuery() {
-        return Query.any();
-    }
-}
@@ -15,13 +15,11 @@ import com.hypixel.hytale.server.npc.entities.NPCEntity;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
-import java.util.Locale;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.azuredoom.levelingcore.LevelingCore;
 import com.azuredoom.levelingcore.config.GUIConfig;
-import com.azuredoom.levelingcore.level.formulas.loader.LevelTableLoader;
 import com.azuredoom.levelingcore.utils.MobLevelingUtil;
 import com.azuredoom.levelingcore.utils.PendingUpdate;
 
@@ -104,7 +102,7 @@ public class MobLevelSystem extends EntityTickingSystem<EntityStore> {
 
     private void drainPending(@NonNullDecl Store<EntityStore> store) {
         try {
-            var mobMaxLevel = computeMobMaxLevel();
+            var mobMaxLevel = LevelingCore.levelProgression.maxLevel();
 
             var processed = 0;
             PendingUpdate u;
@@ -154,23 +152,6 @@ public class MobLevelSystem extends EntityTickingSystem<EntityStore> {
         }
     }
 
-    private int computeMobMaxLevel() {
-        var internalConfig = LevelingCore.levelingCoreConfig;
-        var type = internalConfig.formula.type.trim().toUpperCase(Locale.ROOT);
-
-        return switch (type) {
-            case "LINEAR" -> internalConfig.formula.linear.maxLevel;
-            case "TABLE" -> {
-                var tableFormula = LevelTableLoader.loadOrCreateFromDataDir(
-                    internalConfig.formula.table.file
-                );
-                yield Math.max(1, tableFormula.getMaxLevel());
-            }
-            case "CUSTOM" -> internalConfig.formula.custom.maxLevel;
-            default -> internalConfig.formula.exponential.maxLevel;
-        };
-    }
-
     @NullableDecl
     @Override
     public Query<EntityStore> getQuery() {
@@ -14,7 +14,6 @@ import com.hypixel.hytale.server.core.modules.entitystats.EntityStatMap;
 import com.hypixel.hytale.server.core.modules.entitystats.asset.EntityStatType;
 import com.hypixel.hytale.server.core.plugin.PluginManager;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.util.Config;
 import com.hypixel.hytale.server.npc.entities.NPCEntity;
@@ -26,10 +25,7 @@ import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.compat.party.PartyPluginCompat;
 import com.azuredoom.levelingcore.compat.party.PartyProCompat;
 import com.azuredoom.levelingcore.config.GUIConfig;
-import com.azuredoom.levelingcore.lang.CommandLang;
-import com.azuredoom.levelingcore.ui.hud.XPBarHud;
 import com.azuredoom.levelingcore.utils.MobLevelingUtil;
-import com.azuredoom.levelingcore.utils.NotificationsUtil;
 
 /**
  * The {@code GainXPEventSystem} class handles the process of awarding experience points (XP) to players based on
@@ -41,6 +37,8 @@ import com.azuredoom.levelingcore.utils.NotificationsUtil;
  * <li>The system ensures that XP is awarded only if the default XP gain system is enabled in the configuration.</li>
  * <li>Supports interaction with the leveling service to update player levels and send appropriate messages upon
  * leveling up.</li>
+ * <li>XP is queued in the leveling service rather than applied directly, so every kill a player makes within one tick
+ * is applied as a single award.</li>
  * </ul>
  * The class extends {@code DeathSystems.OnDeathSystem} to seamlessly integrate with death-related events in the game.
  */
@@ -83,7 +81,6 @@ public class GainXPEventSystem extends DeathSystems.OnDeathSystem {
                 var player = store.getComponent(attackerRef, Player.getComponentType());
                 if (player == null)
                     return;
-                var playerRef = Universe.get().getPlayer(player.getUuid());
                 var statMap = store.getComponent(ref, EntityStatMap.getComponentType());
                 if (statMap == null)
                     return;
@@ -117,48 +114,21 @@ public class GainXPEventSystem extends DeathSystems.OnDeathSystem {
                 var xpAmount = Math.round(base * levelScale);
                 if (xpAmount <= 0)
                     return;
-                store.getExternalData().getWorld().execute(() -> {
-                    LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
-                        var levelBefore = levelService.getLevel(player.getUuid());
-                        if (
-                            PluginManager.get()
-                                .getPlugin(new PluginIdentifier("tsumori", "partypro")) != null
-                        ) {
-                            PartyProCompat.onXPGain(xpAmount, player.getUuid(), levelService, config, playerRef);
-                        } else if (
-                            PluginManager.get()
-                                .getPlugin(new PluginIdentifier("com.carsonk", "Party Plugin")) != null
-                        ) {
-                            PartyPluginCompat.onXPGain(
-                                xpAmount,
-                                player.getUuid(),
-                                levelService,
-                                config,
-                                playerRef
-                            );
-                        } else {
-                            // Fallback to default XP gain if supported Party mods are not installed
-                            if (
-                                !config.get().isDisableXPGainNotification() && !levelService.isMaxLevel(
-                                    player.getUuid()
-                                )
-                            )
-                                NotificationsUtil.sendXPGainNotification(
-                                    playerRef,
-                                    xpAmount
-                                );
-                            levelService.addXp(player.getUuid(), xpAmount);
-                            XPBarHud.updateHud(playerRef);
-                        }
-                        LevelingCore.mobLevelRegistry.remove(entity.getUuid());
-                        LevelingCore.mobLevelPersistence.remove(entity.getUuid());
-                        var levelAfter = levelService.getLevel(player.getUuid());
-                        if (levelAfter > levelBefore) {
-                            if (config.get().isEnableLevelChatMsgs())
-                                player.sendMessage(CommandLang.LEVEL_UP.param("level", levelAfter));
-                        }
-                    });
+                var world = store.getExternalData().getWorld();
+                LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
+                    if (PluginManager.get().getPlugin(new PluginIdentifier("tsumori", "partypro")) != null) {
+                        PartyProCompat.onXPGain(xpAmount, player.getUuid(), levelService, config, world::execute);
+                    } else if (
+                        PluginManager.get().getPlugin(new PluginIdentifier("com.carsonk", "Party Plugin")) != null
+                    ) {
+                        PartyPluginCompat.onXPGain(xpAmount, player.getUuid(), levelService, config, world::execute);
+                    } else {
+                        // Fallback to default XP gain if supported Party mods are not installed
+                        levelService.queueXp(player.getUuid(), xpAmount, world::execute);
+                    }
                 });
+                LevelingCore.mobLevelRegistry.remove(entity.getUuid());
+                LevelingCore.mobLevelPersistence.remove(entity.getUuid());
             }
         }
     }
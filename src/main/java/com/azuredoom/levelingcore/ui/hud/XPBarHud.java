@@ -9,17 +9,14 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.util.Config;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
-import java.util.WeakHashMap;
-
 import com.azuredoom.levelingcore.compat.party.PartyProCompat;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.level.LevelServiceImpl;
+import com.azuredoom.levelingcore.session.PlayerSessionManager;
 import com.azuredoom.levelingcore.utils.StatsUtils;
 
 public class XPBarHud extends CustomUIHud {
 
-    public static final WeakHashMap<PlayerRef, XPBarHud> hudMap = new WeakHashMap<>();
-
     private final LevelServiceImpl levelServiceImpl;
 
     private final Config<GUIConfig> config;
@@ -32,7 +29,6 @@ public class XPBarHud extends CustomUIHud {
         super(playerRef);
         this.levelServiceImpl = levelServiceImpl;
         this.config = config;
-        hudMap.put(playerRef, this);
     }
 
     @Override
@@ -46,13 +42,13 @@ public class XPBarHud extends CustomUIHud {
             return;
         var uuid = getPlayerRef().getUuid();
         var currentLevel = levelServiceImpl.getLevel(uuid);
-        var currentXp = levelServiceImpl.getXp(uuid) - levelServiceImpl.getXpForLevel(currentLevel);
-        var xpForNextLevel = levelServiceImpl.getXpForLevel(levelServiceImpl.getLevel(uuid) + 1) - levelServiceImpl
-            .getXpForLevel(currentLevel);
+        var totalXp = levelServiceImpl.getXp(uuid);
+        var floorXp = levelServiceImpl.getLevelFloorXp(uuid);
+        var nextLevelXp = levelServiceImpl.getNextLevelXp(uuid);
+        var currentXp = totalXp - floorXp;
+        var xpForNextLevel = nextLevelXp - floorXp;
         var progress = (double) currentXp / xpForNextLevel;
-        var percentage = (float) levelServiceImpl.getXp(uuid) / levelServiceImpl.getXpForLevel(
-            levelServiceImpl.getLevel(uuid) + 1
-        ) * 100;
+        var percentage = (float) totalXp / nextLevelXp * 100;
 
         uiCommandBuilder.set("#ProgressBar.Value", progress);
         if (config.get().isShowXPAmountInHUD()) {
@@ -78,15 +74,15 @@ public class XPBarHud extends CustomUIHud {
         update(false, uiCommandBuilder); // false = don't clear existing UI
     }
 
+    /**
+     * Refreshes the XP bar of the given player, if the player has an open session with a HUD.
+     */
     public static void updateHud(@NonNullDecl PlayerRef playerRef) {
-        var hud = hudMap.get(playerRef);
+        var session = PlayerSessionManager.get(playerRef.getUuid());
+        var hud = session == null ? null : session.getHud();
         if (hud == null)
             return;
         var uiCommandBuilder = new UICommandBuilder();
         hud.update(uiCommandBuilder);
     }
-
-    public static void removeHud(@NonNullDecl PlayerRef playerRef) {
-        hudMap.remove(playerRef);
-    }
 }
@@ -3,96 +3,77 @@ package com.azuredoom.levelingcore.utils;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.SoundCategory;
 import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
-import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.EntityModule;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.SoundUtil;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.util.Config;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-
 import com.azuredoom.levelingcore.LevelingCore;
-import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
+import com.azuredoom.levelingcore.session.PlayerSession;
 import com.azuredoom.levelingcore.ui.hud.XPBarHud;
 
 @SuppressWarnings("removal")
 public class LevelDownListenerRegistrar {
 
-    private static final Set<UUID> REGISTERED =
-        Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private LevelDownListenerRegistrar() {}
 
-    public static void ensureRegistered(
+    /**
+     * Registers the level-down listener of the session's player. The listener stays subscribed until the session is
+     * closed.
+     */
+    public static void register(
+        PlayerSession session,
         Store<EntityStore> store,
-        Player player,
-        PlayerRef playerRef,
+        LevelServiceImpl levelService,
         Config<GUIConfig> config
     ) {
-        UUID id = playerRef.getUuid();
-        if (!REGISTERED.add(id))
+        if (!config.get().isEnableStatLeveling())
             return;
 
+        var player = session.getPlayer();
+        var playerRef = session.getPlayerRef();
         var world = player.getWorld();
         var world_store = world.getEntityStore();
         var leveldown_sound = SoundEvent.getAssetMap().getIndex(config.get().getLevelDownSound());
 
-        LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService1 -> {
-            LevelUpRewardsUtil.clear(player.getUuid());
-            if (config.get().isEnableStatLeveling()) {
-                store.getExternalData()
-                    .getWorld()
-                    .execute(() -> levelService1.registerLevelDownListener(((playerId, oldLevel, newLevel) -> {
-                        StatsUtils.resetStats(store, player);
-                        StatsUtils.applyAllStats(store, player, newLevel, config);
-                        world.execute(() -> {
-                            var transform = world_store.getStore()
-                                .getComponent(playerRef.getReference(), EntityModule.get().getTransformComponentType());
-                            SoundUtil.playSoundEvent3dToPlayer(
-                                player.getReference(),
-                                leveldown_sound,
-                                SoundCategory.UI,
-                                transform.getPosition(),
-                                world_store.getStore()
-                            );
-                        });
-                        if (!config.get().isDisableStatPointGainOnLevelUp()) {
-                            int pointsPerLevel;
-                            if (config.get().isUseStatsPerLevelMapping()) {
-                                pointsPerLevel = LevelingCore.statsPerLevel.getAddedStatsForLevel(
-                                    newLevel,
-                                    config.get().getStatsPerLevel()
-                                );
-                            } else {
-                                pointsPerLevel = config.get().getStatsPerLevel();
-                            }
-                            var totalFromLeveling = Math.max(0, newLevel * pointsPerLevel);
-
-                            levelService1.setAbilityPoints(playerId, totalFromLeveling);
-                            levelService1.setUsedAbilityPoints(playerId, 0);
-                            levelService1.setStr(playerId, 0);
-                            levelService1.setAgi(playerId, 0);
-                            levelService1.setPer(playerId, 0);
-                            levelService1.setVit(playerId, 0);
-                            levelService1.setInt(playerId, 0);
-                            playerRef.sendMessage(
-                                CommandLang.ABILITY_POINTS.param("ability_points", totalFromLeveling)
-                            );
-                        }
+        session.track(levelService.registerLevelDownListener(session.getPlayerId(), (playerId, oldLevel, newLevel) -> {
+            StatsUtils.resetStats(store, player);
+            StatsUtils.applyAllStats(store, player, newLevel, config);
+            world.execute(() -> {
+                var transform = world_store.getStore()
+                    .getComponent(
+                        playerRef.getReference(),
+                        EntityModule.get().getTransformComponentType()
+                    );
+                SoundUtil.playSoundEvent3dToPlayer(
+                    player.getReference(),
+                    leveldown_sound,
+                    SoundCategory.UI,
+                    transform.getPosition(),
+                    world_store.getStore()
+                );
+            });
+            if (!config.get().isDisableStatPointGainOnLevelUp()) {
+                int pointsPerLevel;
+                if (config.get().isUseStatsPerLevelMapping()) {
+                    pointsPerLevel = LevelingCore.statsPerLevel.getAddedStatsForLevel(
+                        newLevel,
+                        config.get().getStatsPerLevel()
+                    );
+                } else {
+                    pointsPerLevel = config.get().getStatsPerLevel();
+                }
+                var totalFromLeveling = Math.max(0, newLevel * pointsPerLevel);
 
-                        // Need to clear out mapping whenever a player levels down as well
-                        LevelUpListenerRegistrar.clear(player.getUuid());
-                        XPBarHud.updateHud(playerRef);
-                    })));
+                levelService.edit(playerId, e -> e.resetStats().setAbilityPoints(totalFromLeveling));
+                playerRef.sendMessage(
+                    CommandLang.ABILITY_POINTS.param("ability_points", totalFromLeveling)
+                );
             }
-        });
-    }
-
-    public static void clear(UUID playerId) {
-        REGISTERED.remove(playerId);
+            XPBarHud.updateHud(playerRef);
+        }));
     }
 }
@@ -3,108 +3,88 @@ package com.azuredoom.levelingcore.utils;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.SoundCategory;
 import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
-import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.EntityModule;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.SoundUtil;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.util.Config;
 
-import java.util.Collections;
 import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.azuredoom.levelingcore.LevelingCore;
-import com.azuredoom.levelingcore.api.LevelingCoreApi;
 import com.azuredoom.levelingcore.config.GUIConfig;
 import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.level.LevelServiceImpl;
+import com.azuredoom.levelingcore.session.PlayerSession;
 import com.azuredoom.levelingcore.ui.hud.XPBarHud;
 
 @SuppressWarnings("removal")
 public final class LevelUpListenerRegistrar {
 
-    private static final Set<UUID> REGISTERED =
-        Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private LevelUpListenerRegistrar() {}
 
-    public static void ensureRegistered(
+    /**
+     * Registers the level-up listener of the session's player. The listener stays subscribed until the session is
+     * closed.
+     */
+    public static void register(
+        PlayerSession session,
         Store<EntityStore> store,
-        Player player,
-        PlayerRef playerRef,
+        LevelServiceImpl levelService,
         Config<GUIConfig> config
     ) {
-        UUID id = playerRef.getUuid();
-        if (!REGISTERED.add(id))
+        if (!config.get().isEnableStatLeveling())
             return;
 
+        var player = session.getPlayer();
+        var playerRef = session.getPlayerRef();
         var world = player.getWorld();
         var worldStore = world.getEntityStore();
         var levelupSound = SoundEvent.getAssetMap().getIndex(config.get().getLevelUpSound());
 
-        LevelingCoreApi.getLevelServiceIfPresent().ifPresent(levelService -> {
-            if (!config.get().isEnableStatLeveling())
-                return;
+        session.track(levelService.registerLevelUpListener(session.getPlayerId(), (playerId, oldLevel, newLevel) -> {
+            StatsUtils.applyAllStats(store, player, newLevel, config);
 
-            store.getExternalData()
-                .getWorld()
-                .execute(() -> levelService.registerLevelUpListener((playerId, oldLevel, newLevel) -> {
-                    if (!playerId.equals(id))
-                        return;
+            world.execute(() -> {
+                if (player.getReference() == null)
+                    return;
+                var transform = worldStore.getStore()
+                    .getComponent(
+                        Objects.requireNonNull(store.getExternalData().getWorld().getEntityRef(player.getUuid())),
+                        EntityModule.get().getTransformComponentType()
+                    );
+                SoundUtil.playSoundEvent3dToPlayer(
+                    player.getReference(),
+                    levelupSound,
+                    SoundCategory.UI,
+                    transform.getPosition(),
+                    worldStore.getStore()
+                );
+            });
+            if (config.get().isEnableLevelUpRewardsConfig()) {
+                LevelUpRewardsUtil.giveRewards(session, newLevel);
+            }
+            if (!config.get().isDisableStatPointGainOnLevelUp()) {
+                int pointsPerLevel;
+                if (config.get().isUseStatsPerLevelMapping()) {
+                    pointsPerLevel = LevelingCore.statsPerLevel.getAddedStatsForLevel(
+                        newLevel,
+                        config.get().getStatsPerLevel()
+                    );
+                } else {
+                    pointsPerLevel = config.get().getStatsPerLevel();
+                }
+                var totalFromLeveling = Math.max(0, newLevel * pointsPerLevel);
 
-                    StatsUtils.applyAllStats(store, player, newLevel, config);
+                levelService.setAbilityPoints(playerId, totalFromLeveling);
 
-                    world.execute(() -> {
-                        if (player.getReference() == null)
-                            return;
-                        var transform = worldStore.getStore()
-                            .getComponent(
-                                Objects.requireNonNull(
-                                    store.getExternalData().getWorld().getEntityRef(player.getUuid())
-                                ),
-                                EntityModule.get().getTransformComponentType()
-                            );
-                        SoundUtil.playSoundEvent3dToPlayer(
-                            player.getReference(),
-                            levelupSound,
-                            SoundCategory.UI,
-                            transform.getPosition(),
-                            worldStore.getStore()
-                        );
-                    });
-                    if (config.get().isEnableLevelUpRewardsConfig()) {
-                        for (int lvl = oldLevel + 1; lvl <= newLevel; lvl++) {
-                            LevelUpRewardsUtil.giveRewards(lvl, player);
-                        }
-                    }
-                    if (!config.get().isDisableStatPointGainOnLevelUp()) {
-                        int pointsPerLevel;
-                        if (config.get().isUseStatsPerLevelMapping()) {
-                            pointsPerLevel = LevelingCore.statsPerLevel.getAddedStatsForLevel(
-                                newLevel,
-                                config.get().getStatsPerLevel()
-                            );
-                        } else {
-                            pointsPerLevel = config.get().getStatsPerLevel();
-                        }
-                        var totalFromLeveling = Math.max(0, newLevel * pointsPerLevel);
-
-                        levelService.setAbilityPoints(playerId, totalFromLeveling);
-
-                        playerRef.sendMessage(
-                            CommandLang.ABILITY_POINTS.param(
-                                "ability_points",
-                                levelService.getAvailableAbilityPoints(playerId)
-                            )
-                        );
-                    }
-                    LevelDownListenerRegistrar.clear(playerId);
-                    XPBarHud.updateHud(playerRef);
-                }));
-        });
-    }
-
-    public static void clear(UUID playerId) {
-        REGISTERED.remove(playerId);
+                playerRef.sendMessage(
+                    CommandLang.ABILITY_POINTS.param(
+                        "ability_points",
+                        levelService.getAvailableAbilityPoints(playerId)
+                    )
+                );
+            }
+            XPBarHud.updateHud(playerRef);
+        }));
     }
 }
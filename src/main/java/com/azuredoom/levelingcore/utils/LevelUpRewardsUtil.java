@@ -1,27 +1,27 @@
 package com.azuredoom.levelingcore.utils;
 
-import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-
 import com.azuredoom.levelingcore.LevelingCore;
+import com.azuredoom.levelingcore.session.PlayerSession;
 
 @SuppressWarnings("removal")
 public final class LevelUpRewardsUtil {
 
-    private static final ConcurrentHashMap<UUID, Integer> LAST_REWARDED_LEVEL =
-        new ConcurrentHashMap<>();
+    private LevelUpRewardsUtil() {}
 
-    public static void giveRewards(int newLevel, Player player) {
-        var last = LAST_REWARDED_LEVEL.getOrDefault(player.getUuid(), 0);
+    /**
+     * Hands out the rewards of every level above the session's last rewarded level up to {@code newLevel}. Each level
+     * is rewarded at most once per session, even if the player levels down and back up.
+     */
+    public static void giveRewards(PlayerSession session, int newLevel) {
+        var last = session.advanceRewardedLevel(newLevel);
         if (newLevel <= last)
             return;
 
         var rewardsByLevel = LevelingCore.levelRewardMapping;
 
-        var inv = player.getInventory().getCombinedStorageFirst();
+        var inv = session.getPlayer().getInventory().getCombinedStorageFirst();
 
         for (int lvl = last + 1; lvl <= newLevel; lvl++) {
             var rewards = rewardsByLevel.get(lvl);
@@ -32,11 +32,5 @@ public final class LevelUpRewardsUtil {
                 inv.addItemStack(new ItemStack(reward.itemNameId(), reward.quantity()));
             }
         }
-
-        LAST_REWARDED_LEVEL.put(player.getUuid(), newLevel);
-    }
-
-    public static void clear(UUID playerId) {
-        LAST_REWARDED_LEVEL.remove(playerId);
     }
 }
@@ -0,0 +1,36 @@
+package com.azuredoom.levelingcore.utils;
+
+import com.hypixel.hytale.server.core.universe.Universe;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.config.GUIConfig;
+import com.azuredoom.levelingcore.lang.CommandLang;
+import com.azuredoom.levelingcore.listeners.XpAwardListener;
+import com.azuredoom.levelingcore.ui.hud.XPBarHud;
+
+/**
+ * Shows applied XP awards to the receiving player: one XP gain notification with the combined amount, a level-up chat
+ * message if the award raised the player's level, and a single XP bar refresh.
+ */
+public class XpAwardNotifier implements XpAwardListener {
+
+    private final Config<GUIConfig> config;
+
+    public XpAwardNotifier(Config<GUIConfig> config) {
+        this.config = config;
+    }
+
+    @Override
+    public void onXpAward(UUID playerId, long amount, int oldLevel, int newLevel) {
+        var playerRef = Universe.get().getPlayer(playerId);
+        if (playerRef == null)
+            return;
+        if (!config.get().isDisableXPGainNotification())
+            NotificationsUtil.sendXPGainNotification(playerRef, amount);
+        if (newLevel > oldLevel && config.get().isEnableLevelChatMsgs())
+            playerRef.sendMessage(CommandLang.LEVEL_UP.param("level", newLevel));
+        XPBarHud.updateHud(playerRef);
+    }
+}
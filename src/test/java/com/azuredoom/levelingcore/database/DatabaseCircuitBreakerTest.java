@@ -0,0 +1,114 @@
+package com.azuredoom.levelingcore.database;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import com.azuredoom.levelingcore.exceptions.DatabaseUnavailableException;
+
+class DatabaseCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        var breaker = new DatabaseCircuitBreaker(3, 10, 60_000);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess(FAST);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertTrue(breaker.isClosed());
+
+        breaker.recordFailure();
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertThrows(DatabaseUnavailableException.class, breaker::acquire);
+        assertThrows(DatabaseUnavailableException.class, breaker::ensureAvailable);
+        var stats = breaker.stats();
+        assertEquals(1, stats.trips());
+        assertEquals(5, stats.failures());
+        assertEquals(2, stats.rejected());
+    }
+
+    @Test
+    void countsSlowCallsAsFailures() {
+        var breaker = new DatabaseCircuitBreaker(2, 10, 60_000);
+        breaker.recordSuccess(SLOW);
+        breaker.recordSuccess(SLOW);
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, breaker.stats().slowCalls());
+    }
+
+    @Test
+    void judgesBatchesPerRow() {
+        var breaker = new DatabaseCircuitBreaker(1, 10, 60_000);
+        breaker.recordSuccess(SLOW, 10);
+        assertTrue(breaker.isClosed());
+
+        breaker.recordSuccess(SLOW, 4);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void admitsOneProbeOnceOpenPeriodHasPassed() throws InterruptedException {
+        var breaker = open(1);
+        Thread.sleep(5);
+
+        assertDoesNotThrow(breaker::ensureAvailable);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        breaker.acquire();
+        assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertThrows(DatabaseUnavailableException.class, breaker::acquire);
+        assertThrows(DatabaseUnavailableException.class, breaker::ensureAvailable);
+
+        breaker.recordSuccess(FAST);
+        assertTrue(breaker.isClosed());
+        assertDoesNotThrow(breaker::acquire);
+    }
+
+    @Test
+    void closesAfterHealthyBatchProbe() throws InterruptedException {
+        var breaker = open(1);
+        Thread.sleep(5);
+        breaker.acquire();
+
+        breaker.recordSuccess(SLOW, 500);
+
+        assertTrue(breaker.isClosed());
+    }
+
+    @Test
+    void reopensAfterFailedProbe() throws InterruptedException {
+        var breaker = open(1);
+        Thread.sleep(5);
+        breaker.acquire();
+
+        breaker.recordSuccess(SLOW);
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(2, breaker.stats().trips());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseCircuitBreaker(0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseCircuitBreaker(1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseCircuitBreaker(1, 10, 0));
+    }
+
+    private static DatabaseCircuitBreaker open(long openMs) {
+        var breaker = new DatabaseCircuitBreaker(1, 10, openMs);
+        breaker.recordFailure();
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        return breaker;
+    }
+}
@@ -0,0 +1,256 @@
+package com.azuredoom.levelingcore.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+import javax.sql.DataSource;
+
+import com.azuredoom.levelingcore.config.internal.FormulaDescriptor;
+import com.azuredoom.levelingcore.level.formulas.ExponentialLevelFormula;
+import com.azuredoom.levelingcore.level.formulas.LevelFormula;
+import com.azuredoom.levelingcore.level.formulas.LinearLevelFormula;
+
+class FormulaMigrationTest {
+
+    private static final Map<Integer, LevelFormula> FORMULAS = Map.of(
+        1,
+        new LinearLevelFormula(100L, 1000),
+        2,
+        new LinearLevelFormula(40L, 1000),
+        3,
+        new LinearLevelFormula(25L, 1000)
+    );
+
+    /**
+     * A formula type without a closed-form level, so every row goes through the streaming pass.
+     */
+    private static final FormulaDescriptor STREAMED = new FormulaDescriptor("TABLE", "file=levels.csv");
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void openDatabase() {
+        dataSource = database();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        dataSource.close();
+    }
+
+    @Test
+    void migratesEveryRangeInChunks() throws SQLException {
+        for (var i = 1; i <= 50; i++) {
+            insert(id(i), i * 37L, 1);
+        }
+
+        migrate(2, 3, 4);
+
+        for (var i = 1; i <= 50; i++) {
+            assertMigrated(id(i), i * 37L, 1, 2);
+        }
+        assertFalse(FormulaMigration.isPending(dataSource));
+    }
+
+    @Test
+    void resumesAfterStoredCursor() throws SQLException {
+        for (var i = 1; i <= 4; i++) {
+            insert(id(i), i * 110L, 1);
+        }
+        // An interrupted run to the same version that committed the rows up to and including id 2. Those are left
+        // stale here, so that reading them again would show.
+        execute(
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.TARGET_VERSION_KEY + "', '2')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.BOUNDS_KEY + "', '')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.CURSOR_KEY_PREFIX + "0', '" + id(2) + "')"
+        );
+
+        migrate(2, 1, 1);
+
+        assertStale(id(1), 110L);
+        assertStale(id(2), 220L);
+        assertMigrated(id(3), 330L, 1, 2);
+        assertMigrated(id(4), 440L, 1, 2);
+        assertFalse(FormulaMigration.isPending(dataSource));
+    }
+
+    @Test
+    void skipsCompletedRanges() throws SQLException {
+        for (var i = 1; i <= 4; i++) {
+            insert(id(i), i * 110L, 1);
+        }
+        execute(
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.TARGET_VERSION_KEY + "', '2')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.BOUNDS_KEY + "', '" + id(2) + "')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.CURSOR_KEY_PREFIX + "0', '"
+                + FormulaMigration.DONE + "')"
+        );
+
+        migrate(2, 2, 1);
+
+        assertStale(id(1), 110L);
+        assertStale(id(2), 220L);
+        assertMigrated(id(3), 330L, 1, 2);
+        assertMigrated(id(4), 440L, 1, 2);
+    }
+
+    @Test
+    void startsOverForNewerTargetVersion() throws SQLException {
+        for (var i = 1; i <= 4; i++) {
+            insert(id(i), i * 110L, 1);
+        }
+        // Cursors of an interrupted run to version 2 no longer apply to a migration to version 3
+        execute(
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.TARGET_VERSION_KEY + "', '2')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.BOUNDS_KEY + "', '')",
+            "INSERT INTO levelingcore_meta VALUES ('" + FormulaMigration.CURSOR_KEY_PREFIX + "0', '" + id(4) + "')"
+        );
+
+        migrate(3, 1, 2);
+
+        for (var i = 1; i <= 4; i++) {
+            assertMigrated(id(i), i * 110L, 1, 3);
+        }
+        assertFalse(FormulaMigration.isPending(dataSource));
+    }
+
+    @Test
+    void convertsLinearRowsInDatabaseLikeStreamingPass() throws SQLException {
+        assertClosedFormMatchesStreaming(
+            new LinearLevelFormula(100L, 200),
+            new FormulaDescriptor("LINEAR", "xpPerLevel=100;maxLevel=200")
+        );
+    }
+
+    @Test
+    void convertsExponentialRowsInDatabaseLikeStreamingPass() throws SQLException {
+        assertClosedFormMatchesStreaming(
+            new ExponentialLevelFormula(100.0, 1.7, 200),
+            new FormulaDescriptor("EXPONENTIAL", "baseXp=100.0;exponent=1.7;maxLevel=200")
+        );
+    }
+
+    /**
+     * Stores the XP around every level threshold of the old formula in two databases, converts one in the database
+     * and the other with the streaming pass, and compares every row.
+     */
+    private void assertClosedFormMatchesStreaming(LevelFormula from, FormulaDescriptor closedForm)
+        throws SQLException {
+        Map<Integer, LevelFormula> formulas = Map.of(1, from, 2, new ExponentialLevelFormula(50.0, 2.0, 200));
+        var ids = new ArrayList<UUID>();
+        try (var streamed = database()) {
+            for (var level = 1; level <= from.getMaxLevel(); level++) {
+                var threshold = from.getXpForLevel(level);
+                for (var xp = Math.max(0L, threshold - 1); xp <= threshold + 1; xp++) {
+                    var id = UUID.randomUUID();
+                    ids.add(id);
+                    insert(dataSource, id, xp, 1);
+                    insert(streamed, id, xp, 1);
+                }
+            }
+
+            var converted = migration(dataSource, formulas::get, v -> closedForm, 2, 4, 100).convertClosedForm();
+            migration(dataSource, formulas::get, v -> closedForm, 2, 4, 100).run();
+            migration(streamed, formulas::get, v -> STREAMED, 2, 4, 100).run();
+
+            // Only rows at the maximum level are left to the streaming pass
+            assertTrue(converted >= ids.size() - 3, "converted in database: " + converted);
+            for (var id : ids) {
+                assertEquals(column(streamed, id, "xp"), column(dataSource, id, "xp"), "xp of " + id);
+                assertEquals(2L, column(dataSource, id, "formula_version"), "formula version of " + id);
+            }
+        }
+    }
+
+    private static HikariDataSource database() {
+        var url = "jdbc:h2:mem:formula-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        var database = DataSourceFactory.create(url, "", "", 4);
+        SchemaMigrations.migrate(database, SqlDialect.H2);
+        return database;
+    }
+
+    private void migrate(int targetVersion, int threads, int chunkSize) {
+        migration(dataSource, FORMULAS::get, v -> STREAMED, targetVersion, threads, chunkSize).run();
+    }
+
+    private static FormulaMigration migration(
+        DataSource database,
+        IntFunction<LevelFormula> formulas,
+        IntFunction<FormulaDescriptor> descriptors,
+        int targetVersion,
+        int threads,
+        int chunkSize
+    ) {
+        return new FormulaMigration(database, SqlDialect.H2, formulas, descriptors, targetVersion, threads, chunkSize);
+    }
+
+    private void assertMigrated(UUID id, long oldXp, int fromVersion, int toVersion) throws SQLException {
+        var level = FORMULAS.get(fromVersion).getLevelForXp(oldXp);
+        assertEquals(FORMULAS.get(toVersion).getXpForLevel(level), xp(id), "xp of " + id);
+        assertEquals(toVersion, formulaVersion(id), "formula version of " + id);
+    }
+
+    private void assertStale(UUID id, long xp) throws SQLException {
+        assertEquals(xp, xp(id), "xp of " + id);
+        assertEquals(1, formulaVersion(id), "formula version of " + id);
+    }
+
+    private static UUID id(int n) {
+        return new UUID(0L, n);
+    }
+
+    private void insert(UUID id, long xp, int formulaVersion) throws SQLException {
+        insert(dataSource, id, xp, formulaVersion);
+    }
+
+    private static void insert(DataSource database, UUID id, long xp, int formulaVersion) throws SQLException {
+        execute(
+            database,
+            "INSERT INTO player_levels (player_id, xp, formula_version) VALUES ('" + id + "', " + xp + ", "
+                + formulaVersion + ")"
+        );
+    }
+
+    private void execute(String... statements) throws SQLException {
+        execute(dataSource, statements);
+    }
+
+    private static void execute(DataSource database, String... statements) throws SQLException {
+        try (var connection = database.getConnection(); var stmt = connection.createStatement()) {
+            for (var sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private long xp(UUID id) throws SQLException {
+        return column(dataSource, id, "xp");
+    }
+
+    private int formulaVersion(UUID id) throws SQLException {
+        return (int) column(dataSource, id, "formula_version");
+    }
+
+    private static long column(DataSource database, UUID id, String column) throws SQLException {
+        try (
+            var connection = database.getConnection();
+            var ps = connection.prepareStatement("SELECT " + column + " FROM player_levels WHERE player_id = ?")
+        ) {
+            SqlDialect.H2.bindUuid(ps, 1, id);
+            var rs = ps.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.azuredoom.levelingcore.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.azuredoom.levelingcore.config.internal.FormulaDescriptor;
+import com.azuredoom.levelingcore.level.formulas.LinearLevelFormula;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
+
+class JdbcLevelRepositoryTest {
+
+    private HikariDataSource dataSource;
+
+    private JdbcLevelRepository repository;
+
+    private final List<UUID> rebased = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void openRepository() {
+        var url = "jdbc:h2:mem:repository-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        dataSource = DataSourceFactory.create(url, "", "", 4);
+        repository = new JdbcLevelRepository(dataSource);
+        repository.setRebaseListener((data, before) -> rebased.add(data.getPlayerId()));
+    }
+
+    @AfterEach
+    void closeRepository() {
+        repository.close();
+    }
+
+    @Test
+    void retriesConditionalUpdateAfterVersionConflict() {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var first = repository.load(id);
+        var second = repository.load(id);
+        first.mutate(s -> s.withStr(5));
+        second.mutate(s -> s.withAgi(3));
+
+        repository.save(first);
+        repository.save(second);
+
+        var row = repository.load(id);
+        assertEquals(5, row.getStr());
+        assertEquals(3, row.getAgi());
+        assertEquals(2L, row.stored().version());
+        assertEquals(2L, second.stored().version());
+        assertEquals(5, second.getStr());
+        assertEquals(List.of(id), rebased);
+    }
+
+    @Test
+    void mergesXpAwardsWrittenAsDeltas() {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var first = repository.load(id);
+        var second = repository.load(id);
+        first.mutateAdditive(s -> s.withXp(s.xp() + 10L));
+        second.mutateAdditive(s -> s.withXp(s.xp() - 30L));
+
+        repository.save(first);
+        repository.save(second);
+
+        assertEquals(80L, repository.load(id).getXp());
+        assertEquals(110L, first.getXp());
+        assertEquals(80L, second.getXp());
+        assertFalse(second.hasUnwrittenChanges());
+        assertEquals(List.of(id), rebased);
+    }
+
+    @Test
+    void keepsXpGainedWhileDeltaIsReadBack() {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var other = repository.load(id);
+        other.mutateAdditive(s -> s.withXp(s.xp() + 40L));
+        var data = repository.load(id);
+        data.mutateAdditive(s -> s.withXp(s.xp() + 10L));
+        repository.save(other);
+
+        repository.save(data);
+        data.mutateAdditive(s -> s.withXp(s.xp() + 5L));
+        repository.save(data);
+
+        assertEquals(155L, repository.load(id).getXp());
+        assertEquals(155L, data.getXp());
+    }
+
+    @Test
+    void writesAssignedXpAsAbsoluteValue() {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var awarded = repository.load(id);
+        var assigned = repository.load(id);
+        awarded.mutateAdditive(s -> s.withXp(s.xp() + 50L));
+        assigned.mutate(s -> s.withXp(500L));
+
+        repository.save(awarded);
+        repository.save(assigned);
+
+        assertEquals(500L, repository.load(id).getXp());
+        assertEquals(500L, assigned.getXp());
+        assigned.mutateAdditive(s -> s.withXp(s.xp() + 1L));
+        assertTrue(assigned.hasUnwrittenChanges());
+    }
+
+    @Test
+    void savesBatchAndReconcilesDeltasWithRemoteChanges() {
+        var merged = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var conflicting = insert(PlayerSnapshot.EMPTY.withStr(1));
+        var batch = List.of(
+            repository.load(merged),
+            repository.load(conflicting),
+            new PlayerLevelData(UUID.randomUUID())
+        );
+        var remoteAward = repository.load(merged);
+        remoteAward.mutateAdditive(s -> s.withXp(s.xp() + 7L));
+        repository.save(remoteAward);
+        var remoteEdit = repository.load(conflicting);
+        remoteEdit.mutate(s -> s.withAgi(9));
+        repository.save(remoteEdit);
+        rebased.clear();
+
+        batch.get(0).mutateAdditive(s -> s.withXp(s.xp() + 20L));
+        batch.get(1).mutate(s -> s.withStr(4));
+        batch.get(2).mutate(s -> s.withCon(2));
+        repository.saveAll(batch);
+
+        assertEquals(127L, repository.load(merged).getXp());
+        assertEquals(127L, batch.get(0).getXp());
+        var edited = repository.load(conflicting);
+        assertEquals(4, edited.getStr());
+        assertEquals(9, edited.getAgi());
+        assertEquals(2, repository.load(batch.get(2).getPlayerId()).getCon());
+        batch.forEach(data -> assertFalse(data.hasUnwrittenChanges()));
+        assertEquals(2, rebased.size());
+    }
+
+    @Test
+    void writesPlayerClaimedByAnotherBatchOnceReleased() throws Exception {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var claimed = repository.load(id);
+        var free = new PlayerLevelData(UUID.randomUUID());
+        var owner = new Object();
+        claim(claimed, owner);
+        claimed.mutateAdditive(s -> s.withXp(s.xp() + 25L));
+        free.mutate(s -> s.withVit(3));
+
+        var save = CompletableFuture.runAsync(() -> repository.saveAll(List.of(claimed, free)));
+        waitUntil(() -> repository.exists(free.getPlayerId()));
+        Thread.sleep(100);
+        assertFalse(save.isDone());
+        assertEquals(100L, repository.load(id).getXp());
+
+        claimed.writeLock().lock();
+        try {
+            claimed.releaseWrite(owner);
+        } finally {
+            claimed.writeLock().unlock();
+        }
+        save.get(10, TimeUnit.SECONDS);
+
+        assertEquals(125L, repository.load(id).getXp());
+        assertFalse(claimed.hasUnwrittenChanges());
+    }
+
+    @Test
+    void singleSaveWaitsForClaimedWrite() throws Exception {
+        var id = insert(PlayerSnapshot.EMPTY.withXp(100L));
+        var data = repository.load(id);
+        var owner = new Object();
+        claim(data, owner);
+        data.mutateAdditive(s -> s.withXp(s.xp() + 30L));
+
+        var save = CompletableFuture.runAsync(() -> repository.save(data));
+        Thread.sleep(100);
+        assertFalse(save.isDone());
+
+        data.writeLock().lock();
+        try {
+            data.releaseWrite(new Object());
+            assertFalse(data.tryClaimWrite(new Object()));
+            data.releaseWrite(owner);
+        } finally {
+            data.writeLock().unlock();
+        }
+        save.get(10, TimeUnit.SECONDS);
+
+        assertEquals(130L, repository.load(id).getXp());
+    }
+
+    @Test
+    void convertsStaleRowWhenFirstLoadedAfterLazyMigration() throws SQLException {
+        repository.migrateFormulaIfNeeded(
+            new LinearLevelFormula(100L, 1000),
+            new FormulaDescriptor("LINEAR", "xpPerLevel=100;maxLevel=1000"),
+            JdbcLevelRepository.MigrationStrategy.LAZY,
+            1,
+            100
+        );
+        var id = insert(PlayerSnapshot.EMPTY.withXp(250L).withStr(2));
+        var version = column(id, "version");
+
+        // A restarted server with a changed formula, which rebuilds the previous formula from its stored descriptor
+        var restarted = new JdbcLevelRepository(dataSource);
+        restarted.migrateFormulaIfNeeded(
+            new LinearLevelFormula(40L, 1000),
+            new FormulaDescriptor("LINEAR", "xpPerLevel=40;maxLevel=1000"),
+            JdbcLevelRepository.MigrationStrategy.LAZY,
+            1,
+            100
+        );
+        assertEquals(250L, column(id, "xp"));
+        assertEquals(0L, column(id, "formula_version"));
+
+        var data = restarted.load(id);
+
+        assertEquals(80L, data.getXp());
+        assertEquals(2, data.getStr());
+        assertEquals(version + 1, data.stored().version());
+        assertFalse(data.hasUnwrittenChanges());
+        assertEquals(80L, column(id, "xp"));
+        assertEquals(1L, column(id, "formula_version"));
+        assertEquals(version + 1, restarted.load(id).stored().version());
+    }
+
+    private UUID insert(PlayerSnapshot snapshot) {
+        var id = UUID.randomUUID();
+        repository.save(new PlayerLevelData(id, snapshot));
+        return id;
+    }
+
+    private long column(UUID id, String column) throws SQLException {
+        try (
+            var connection = dataSource.getConnection();
+            var ps = connection.prepareStatement("SELECT " + column + " FROM player_levels WHERE player_id = ?")
+        ) {
+            SqlDialect.H2.bindUuid(ps, 1, id);
+            var rs = ps.executeQuery();
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void claim(PlayerLevelData data, Object owner) {
+        data.writeLock().lock();
+        try {
+            assertTrue(data.tryClaimWrite(owner));
+        } finally {
+            data.writeLock().unlock();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
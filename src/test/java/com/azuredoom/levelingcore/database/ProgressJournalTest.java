@@ -0,0 +1,219 @@
+package com.azuredoom.levelingcore.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+import com.azuredoom.levelingcore.playerdata.PlayerSnapshot;
+
+class ProgressJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcLevelRepository repository;
+
+    @BeforeEach
+    void openRepository() {
+        var url = "jdbc:h2:mem:journal-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        repository = new JdbcLevelRepository(DataSourceFactory.create(url, "", "", 2));
+    }
+
+    @AfterEach
+    void closeRepository() {
+        repository.close();
+    }
+
+    @Test
+    void replaysUnsavedChangesOfNewPlayer() {
+        var id = UUID.randomUUID();
+        var data = new PlayerLevelData(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutateAdditive(s -> s.withXp(s.xp() + 150L));
+            journal.append(data);
+            data.mutate(s -> s.withStr(3));
+            journal.append(data);
+        }
+
+        assertEquals(1, replay());
+
+        var stored = repository.load(id);
+        assertEquals(150L, stored.getXp());
+        assertEquals(3, stored.getStr());
+    }
+
+    @Test
+    void appliesFieldsWhenRowIsUnchanged() {
+        var id = UUID.randomUUID();
+        repository.save(new PlayerLevelData(id, PlayerSnapshot.EMPTY.withXp(40L).withAgi(7)));
+        var data = repository.load(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutateAdditive(s -> s.withXp(s.xp() + 10L));
+            data.mutate(s -> s.withStr(4));
+            journal.append(data);
+        }
+
+        replay();
+
+        var stored = repository.load(id);
+        assertEquals(50L, stored.getXp());
+        assertEquals(4, stored.getStr());
+        assertEquals(7, stored.getAgi());
+    }
+
+    @Test
+    void addsXpDeltaToRowWrittenByAnotherServer() {
+        var id = UUID.randomUUID();
+        repository.save(new PlayerLevelData(id, PlayerSnapshot.EMPTY.withXp(40L).withAgi(7)));
+        var data = repository.load(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutateAdditive(s -> s.withXp(s.xp() + 90L));
+            data.mutate(s -> s.withStr(4));
+            journal.append(data);
+        }
+        var other = repository.load(id);
+        other.mutateAdditive(s -> s.withXp(s.xp() + 25L));
+        other.mutate(s -> s.withAgi(9));
+        repository.save(other);
+
+        replay();
+
+        var stored = repository.load(id);
+        assertEquals(155L, stored.getXp());
+        assertEquals(0, stored.getStr());
+        assertEquals(9, stored.getAgi());
+    }
+
+    @Test
+    void replaysAssignedXpOnlyWhenRowIsUnchanged() {
+        var unchanged = UUID.randomUUID();
+        var moved = UUID.randomUUID();
+        repository.save(new PlayerLevelData(unchanged, PlayerSnapshot.EMPTY.withXp(40L)));
+        repository.save(new PlayerLevelData(moved, PlayerSnapshot.EMPTY.withXp(40L)));
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            for (var id : List.of(unchanged, moved)) {
+                var data = repository.load(id);
+                data.mutate(s -> s.withXp(500L));
+                journal.append(data);
+            }
+        }
+        var other = repository.load(moved);
+        other.mutateAdditive(s -> s.withXp(s.xp() + 25L));
+        repository.save(other);
+
+        replay();
+
+        assertEquals(500L, repository.load(unchanged).getXp());
+        assertEquals(65L, repository.load(moved).getXp());
+    }
+
+    @Test
+    void doesNotReplayChangesWrittenByTheFlusher() {
+        var id = UUID.randomUUID();
+        repository.save(new PlayerLevelData(id, PlayerSnapshot.EMPTY.withXp(40L)));
+        var data = repository.load(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            var flusher = new WriteBehindFlusher(repository, 60_000L, 10, journal);
+            flusher.markDirty(data, data.mutateAdditive(s -> s.withXp(s.xp() + 30L)));
+            // Written without releasing the segment holding the change, as if the server crashed right after the write
+            flusher.flush(data);
+            flusher.close();
+        }
+        var other = repository.load(id);
+        other.mutateAdditive(s -> s.withXp(s.xp() + 25L));
+        repository.save(other);
+
+        assertEquals(0, replay());
+
+        assertEquals(95L, repository.load(id).getXp());
+    }
+
+    @Test
+    void ignoresTornRecordAtTheEndOfASegment() throws IOException {
+        var id = UUID.randomUUID();
+        var data = new PlayerLevelData(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutateAdditive(s -> s.withXp(120L));
+            journal.append(data);
+        }
+        var segment = segments().get(0);
+        appendBytes(segment, ProgressJournal.RECORD_SIZE / 2);
+        assertEquals(ProgressJournal.RECORD_SIZE + ProgressJournal.RECORD_SIZE / 2, Files.size(segment));
+
+        assertEquals(1, replay());
+
+        assertEquals(120L, repository.load(id).getXp());
+    }
+
+    @Test
+    void stopsReadingASegmentAtACorruptRecord() throws IOException {
+        var id = UUID.randomUUID();
+        var data = new PlayerLevelData(id);
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutateAdditive(s -> s.withXp(60L));
+            journal.append(data);
+            data.mutateAdditive(s -> s.withXp(500L));
+            journal.append(data);
+        }
+        var segment = segments().get(0);
+        try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Flips a byte of the second record's XP delta, so its CRC no longer matches
+            channel.write(ByteBuffer.wrap(new byte[] { (byte) 0xFF }), ProgressJournal.RECORD_SIZE + 40);
+        }
+
+        replay();
+
+        assertEquals(60L, repository.load(id).getXp());
+    }
+
+    @Test
+    void deletesReplayedSegments() throws IOException {
+        var data = new PlayerLevelData(UUID.randomUUID());
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            data.mutate(s -> s.withCon(2));
+            journal.append(data);
+        }
+        var replayed = segments();
+
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            journal.replay(repository);
+            for (var segment : replayed) {
+                assertFalse(Files.exists(segment), segment.toString());
+            }
+            assertEquals(0, journal.replay(repository));
+        }
+        assertEquals(List.of(), segments());
+    }
+
+    private int replay() {
+        try (var journal = new ProgressJournal(directory, 60_000L)) {
+            return journal.replay(repository);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static void appendBytes(Path file, int count) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(count));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.azuredoom.levelingcore.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import com.azuredoom.levelingcore.exceptions.LevelingCoreException;
+import com.azuredoom.levelingcore.playerdata.PlayerLevelData;
+
+class SchemaMigrationsTest {
+
+    private static final String LEGACY_TABLE = """
+        CREATE TABLE player_levels (
+            player_id VARCHAR(36) PRIMARY KEY,
+            xp BIGINT NOT NULL,
+            str INT DEFAULT 0 NOT NULL,
+            agi INT DEFAULT 0 NOT NULL,
+            per INT DEFAULT 0 NOT NULL,
+            vit INT DEFAULT 0 NOT NULL,
+            intelligence INT DEFAULT 0 NOT NULL,
+            con INT DEFAULT 0 NOT NULL,
+            ability_points INT DEFAULT 5 NOT NULL,
+            used_ability_points INT DEFAULT 0 NOT NULL,
+            version BIGINT DEFAULT 0 NOT NULL,
+            updated_at BIGINT DEFAULT 0 NOT NULL
+        )
+        """;
+
+    private static final String META_TABLE = """
+        CREATE TABLE levelingcore_meta (
+            meta_key VARCHAR(64) PRIMARY KEY,
+            meta_value VARCHAR(255) NOT NULL
+        )
+        """;
+
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void openDatabase() {
+        var url = "jdbc:h2:mem:schema-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        dataSource = DataSourceFactory.create(url, "", "", 2);
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        dataSource.close();
+    }
+
+    @Test
+    void createsSchemaOfEmptyDatabase() throws SQLException {
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+
+        assertEquals(Integer.toString(SchemaMigrations.latestVersion()), meta(SchemaMigrations.VERSION_KEY));
+        assertEquals(0L, count("player_levels"));
+        assertEquals(0L, count("levelingcore_formula_buckets"));
+    }
+
+    @Test
+    void upgradesUnversionedDatabaseOfOlderRelease() throws SQLException {
+        var id = UUID.randomUUID();
+        execute("CREATE TABLE player_levels (player_id VARCHAR(36) PRIMARY KEY, xp BIGINT NOT NULL)", META_TABLE);
+        execute("INSERT INTO player_levels (player_id, xp) VALUES ('" + id + "', 250)");
+        execute("INSERT INTO player_levels (player_id, xp) VALUES ('not-a-uuid', 10)");
+
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+
+        assertEquals(Integer.toString(SchemaMigrations.latestVersion()), meta(SchemaMigrations.VERSION_KEY));
+        assertEquals(1L, count("player_levels"));
+        var data = load(id);
+        assertEquals(250L, data.getXp());
+        assertEquals(5, data.getAbilityPoints());
+    }
+
+    @Test
+    void resumesInterruptedCopy() throws SQLException {
+        var copied = UUID.randomUUID();
+        var remaining = UUID.randomUUID();
+        legacyDatabaseAtVersion3();
+        execute(
+            "INSERT INTO player_levels (player_id, xp, str, version) VALUES ('" + copied + "', 300, 4, 2)",
+            "INSERT INTO player_levels (player_id, xp, agi) VALUES ('" + remaining + "', 120, 6)",
+            LEGACY_TABLE.replace("player_levels", "player_levels_uuid").replace("VARCHAR(36)", "UUID"),
+            // Copied by the interrupted run before the row was changed again
+            "INSERT INTO player_levels_uuid (player_id, xp, str, version) VALUES ('" + copied + "', 100, 1, 1)"
+        );
+
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+
+        assertEquals(2L, count("player_levels"));
+        var first = load(copied);
+        assertEquals(300L, first.getXp());
+        assertEquals(4, first.getStr());
+        assertEquals(2L, first.stored().version());
+        var second = load(remaining);
+        assertEquals(120L, second.getXp());
+        assertEquals(6, second.getAgi());
+        assertNull(meta(SchemaMigrations.UUID_CONVERSION_LOCK_KEY));
+    }
+
+    @Test
+    void resumesInterruptedRename() throws SQLException {
+        var id = UUID.randomUUID();
+        execute(
+            META_TABLE,
+            "INSERT INTO levelingcore_meta VALUES ('" + SchemaMigrations.VERSION_KEY + "', '3')",
+            LEGACY_TABLE.replace("player_levels", "player_levels_uuid").replace("VARCHAR(36)", "UUID"),
+            "INSERT INTO player_levels_uuid (player_id, xp) VALUES ('" + id + "', 75)"
+        );
+
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+
+        assertEquals(75L, load(id).getXp());
+    }
+
+    @Test
+    void refusesToConvertWhileAnotherServerHoldsTheLock() throws SQLException {
+        var id = UUID.randomUUID();
+        legacyDatabaseAtVersion3();
+        execute(
+            "INSERT INTO player_levels (player_id, xp) VALUES ('" + id + "', 40)",
+            "INSERT INTO levelingcore_meta VALUES ('" + SchemaMigrations.UUID_CONVERSION_LOCK_KEY + "', '"
+                + System.currentTimeMillis() + "')"
+        );
+
+        assertThrows(LevelingCoreException.class, () -> SchemaMigrations.migrate(dataSource, SqlDialect.H2));
+
+        assertEquals("3", meta(SchemaMigrations.VERSION_KEY));
+        assertEquals(1L, count("player_levels"));
+    }
+
+    @Test
+    void takesOverStaleLock() throws SQLException {
+        var id = UUID.randomUUID();
+        legacyDatabaseAtVersion3();
+        execute(
+            "INSERT INTO player_levels (player_id, xp) VALUES ('" + id + "', 40)",
+            "INSERT INTO levelingcore_meta VALUES ('" + SchemaMigrations.UUID_CONVERSION_LOCK_KEY + "', '0')"
+        );
+
+        SchemaMigrations.migrate(dataSource, SqlDialect.H2);
+
+        assertEquals(40L, load(id).getXp());
+        assertNull(meta(SchemaMigrations.UUID_CONVERSION_LOCK_KEY));
+    }
+
+    private void legacyDatabaseAtVersion3() throws SQLException {
+        execute(
+            LEGACY_TABLE,
+            META_TABLE,
+            "INSERT INTO levelingcore_meta VALUES ('" + SchemaMigrations.VERSION_KEY + "', '3')"
+        );
+    }
+
+    private PlayerLevelData load(UUID id) {
+        return new JdbcLevelRepository(dataSource, SqlDialect.H2).load(id);
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (var connection = dataSource.getConnection(); var stmt = connection.createStatement()) {
+            for (var sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private String meta(String key) throws SQLException {
+        try (
+            var connection = dataSource.getConnection();
+            var ps = connection.prepareStatement("SELECT meta_value FROM levelingcore_meta WHERE meta_key = ?")
+        ) {
+            ps.setString(1, key);
+            var rs = ps.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        try (
+            var connection = dataSource.getConnection();
+            var stmt = connection.createStatement();
+            var rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)
+        ) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.azuredoom.levelingcore.level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.azuredoom.levelingcore.database.DataSourceFactory;
+import com.azuredoom.levelingcore.database.JdbcLevelRepository;
+import com.azuredoom.levelingcore.database.WriteBehindFlusher;
+import com.azuredoom.levelingcore.level.formulas.LinearLevelFormula;
+
+class LevelServiceImplTest {
+
+    private JdbcLevelRepository repository;
+
+    private LevelServiceImpl service;
+
+    @BeforeEach
+    void openService() {
+        var url = "jdbc:h2:mem:service-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        repository = new JdbcLevelRepository(DataSourceFactory.create(url, "", "", 4));
+        // Only flushed on demand, so every write in a test is the one it triggers
+        var flusher = new WriteBehindFlusher(repository, 60_000L, 10);
+        service = new LevelServiceImpl(new LinearLevelFormula(100L, 100), repository, flusher);
+    }
+
+    @AfterEach
+    void closeService() {
+        service.shutdown();
+        repository.close();
+    }
+
+    @Test
+    void flushesAndEvictsPlayerAfterDisconnect() throws Exception {
+        var id = UUID.randomUUID();
+        service.markOnline(id);
+        var data = service.loadAsync(id).get(10, TimeUnit.SECONDS);
+        service.addXp(id, 150L);
+        assertTrue(data.isDirty());
+
+        service.flushAndScheduleEviction(id, 0L).get(10, TimeUnit.SECONDS);
+        waitUntil(() -> !service.isLoaded(id));
+
+        assertEquals(150L, repository.load(id).getXp());
+        assertFalse(data.isDirty());
+        assertEquals(1, service.getOfflineCacheStats().size());
+        assertSame(data, service.loadAsync(id).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void keepsPlayerWhoseEvictionWasCancelled() throws Exception {
+        var id = UUID.randomUUID();
+        service.markOnline(id);
+        service.loadAsync(id).get(10, TimeUnit.SECONDS);
+
+        service.scheduleEviction(id, 50L);
+        service.cancelEviction(id);
+        Thread.sleep(200);
+
+        assertTrue(service.isLoaded(id));
+        assertEquals(0, service.getOfflineCacheStats().size());
+    }
+
+    @Test
+    void keepsReconnectedPlayerOnlineWhenStaleEvictionRuns() throws Exception {
+        var id = UUID.randomUUID();
+        service.markOnline(id);
+        service.loadAsync(id).get(10, TimeUnit.SECONDS);
+
+        // The reconnect arrives without cancelling the eviction of the previous session
+        service.scheduleEviction(id, 50L);
+        service.markOnline(id);
+        Thread.sleep(200);
+
+        assertTrue(service.isLoaded(id));
+        assertEquals(0, service.getOfflineCacheStats().size());
+    }
+
+    @Test
+    void keepsPlayerWhoReconnectsDuringDisconnectFlushOnline() throws Exception {
+        var id = UUID.randomUUID();
+        service.markOnline(id);
+        var data = service.loadAsync(id).get(10, TimeUnit.SECONDS);
+        service.addXp(id, 150L);
+        var owner = new Object();
+        data.writeLock().lock();
+        try {
+            assertTrue(data.tryClaimWrite(owner));
+        } finally {
+            data.writeLock().unlock();
+        }
+
+        var disconnect = service.flushAndScheduleEviction(id, 0L);
+        Thread.sleep(100);
+        assertFalse(disconnect.isDone());
+        service.markOnline(id);
+        data.writeLock().lock();
+        try {
+            data.releaseWrite(owner);
+        } finally {
+            data.writeLock().unlock();
+        }
+        disconnect.get(10, TimeUnit.SECONDS);
+        Thread.sleep(200);
+
+        assertTrue(service.isLoaded(id));
+        assertEquals(0, service.getOfflineCacheStats().size());
+        assertEquals(150L, repository.load(id).getXp());
+        service.addXp(id, 10L);
+        assertTrue(data.isDirty());
+    }
+
+    @Test
+    void movesOfflineEntryToOnlineCacheOnConnect() throws Exception {
+        var id = UUID.randomUUID();
+        var offline = service.loadAsync(id).get(10, TimeUnit.SECONDS);
+        assertFalse(service.isLoaded(id));
+        assertEquals(1, service.getOfflineCacheStats().size());
+
+        service.markOnline(id);
+
+        assertTrue(service.isLoaded(id));
+        assertEquals(0, service.getOfflineCacheStats().size());
+        assertSame(offline, service.loadAsync(id).get(10, TimeUnit.SECONDS));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.azuredoom.levelingcore.level.formulas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class PrecomputedLevelFormulaTest {
+
+    @Test
+    void matchesLinearFormula() {
+        assertEquivalent(new LinearLevelFormula(100L, 50), 20);
+    }
+
+    @Test
+    void matchesExponentialFormula() {
+        assertEquivalent(new ExponentialLevelFormula(100.0, 1.7, 100), 40);
+    }
+
+    @Test
+    void matchesCustomExpressionFormula() {
+        var constants = Map.of("a", 0.12, "b", 100.0, "c", 1.0);
+        assertEquivalent(new CustomExpressionLevelFormula("exp(a * (level - 1)) * b / c", constants, 200), 150);
+    }
+
+    @Test
+    void matchesCustomExpressionFormulaWithSharedThresholds() {
+        assertEquivalent(new CustomExpressionLevelFormula("floor(level / 3) * 50", Map.of(), 60), 30);
+    }
+
+    @Test
+    void capAboveMaxLevelMaterializesOnlyUpToMaxLevel() {
+        var formula = new PrecomputedLevelFormula(new LinearLevelFormula(100L, 10), 1_000);
+
+        assertEquals(10, formula.getMaterializedLevel());
+        assertEquals(10, formula.getMaxLevel());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        var formula = new PrecomputedLevelFormula(new LinearLevelFormula(100L, 10), 5);
+
+        assertThrows(IllegalArgumentException.class, () -> new PrecomputedLevelFormula(formula, 0));
+        assertThrows(IllegalArgumentException.class, () -> formula.getXpForLevel(0));
+        assertThrows(IllegalArgumentException.class, () -> formula.getLevelForXp(-1L));
+    }
+
+    /**
+     * Compares every level and every XP value around each threshold, below and above the materialization cap.
+     */
+    private static void assertEquivalent(LevelFormula delegate, int cap) {
+        var formula = new PrecomputedLevelFormula(delegate, cap);
+        var maxLevel = delegate.getMaxLevel();
+
+        assertEquals(maxLevel, formula.getMaxLevel());
+        for (var level = 1; level <= maxLevel; level++) {
+            assertEquals(delegate.getXpForLevel(level), formula.getXpForLevel(level), "xp for level " + level);
+        }
+        for (var level = 1; level <= maxLevel; level++) {
+            var threshold = delegate.getXpForLevel(level);
+            for (var xp = Math.max(0L, threshold - 2); xp <= threshold + 2; xp++) {
+                assertEquals(delegate.getLevelForXp(xp), formula.getLevelForXp(xp), "level for xp " + xp);
+            }
+        }
+        var top = delegate.getXpForLevel(maxLevel);
+        assertEquals(delegate.getLevelForXp(top * 2), formula.getLevelForXp(top * 2));
+    }
+}
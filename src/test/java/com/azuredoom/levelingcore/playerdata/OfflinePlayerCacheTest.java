@@ -0,0 +1,91 @@
+package com.azuredoom.levelingcore.playerdata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+class OfflinePlayerCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        var cache = new OfflinePlayerCache(2);
+        var first = stored(UUID.randomUUID());
+        var second = stored(UUID.randomUUID());
+        cache.putIfAbsent(first.getPlayerId(), first);
+        cache.putIfAbsent(second.getPlayerId(), second);
+        cache.get(first.getPlayerId());
+
+        cache.putIfAbsent(UUID.randomUUID(), stored(UUID.randomUUID()));
+
+        assertSame(first, cache.get(first.getPlayerId()));
+        assertNull(cache.get(second.getPlayerId()));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void keepsEntryWithUnwrittenChangesUntilItIsStored() {
+        var cache = new OfflinePlayerCache(1);
+        var pinned = stored(UUID.randomUUID());
+        pinned.mutateAdditive(s -> s.withXp(s.xp() + 10L));
+        cache.putIfAbsent(pinned.getPlayerId(), pinned);
+
+        var next = stored(UUID.randomUUID());
+        cache.putIfAbsent(next.getPlayerId(), next);
+        assertSame(pinned, cache.get(pinned.getPlayerId()));
+        assertNull(cache.get(next.getPlayerId()));
+
+        store(pinned);
+        cache.putIfAbsent(next.getPlayerId(), next);
+        assertNull(cache.get(pinned.getPlayerId()));
+        assertSame(next, cache.get(next.getPlayerId()));
+    }
+
+    @Test
+    void growsBeyondLimitWhileEveryEntryIsPinned() {
+        var cache = new OfflinePlayerCache(1);
+        for (var i = 0; i < 3; i++) {
+            var data = new PlayerLevelData(UUID.randomUUID());
+            data.mutate(s -> s.withStr(1));
+            cache.putIfAbsent(data.getPlayerId(), data);
+        }
+
+        assertEquals(3, cache.stats().size());
+        assertEquals(0, cache.stats().evictions());
+    }
+
+    @Test
+    void invalidatesOnlyStaleEntriesWithoutUnwrittenChanges() {
+        var cache = new OfflinePlayerCache(10);
+        var clean = stored(UUID.randomUUID());
+        var pinned = stored(UUID.randomUUID());
+        pinned.mutate(s -> s.withAgi(2));
+        cache.putIfAbsent(clean.getPlayerId(), clean);
+        cache.putIfAbsent(pinned.getPlayerId(), pinned);
+
+        assertFalse(cache.invalidateIfOlder(clean.getPlayerId(), 0L));
+        assertTrue(cache.invalidateIfOlder(clean.getPlayerId(), 1L));
+        assertFalse(cache.invalidateIfOlder(pinned.getPlayerId(), 1L));
+        assertSame(pinned, cache.get(pinned.getPlayerId()));
+    }
+
+    private static PlayerLevelData stored(UUID id) {
+        var data = new PlayerLevelData(id);
+        store(data);
+        return data;
+    }
+
+    private static void store(PlayerLevelData data) {
+        data.writeLock().lock();
+        try {
+            data.markStored(data.snapshot(), data.stored().version() + 1);
+        } finally {
+            data.writeLock().unlock();
+        }
+    }
+}
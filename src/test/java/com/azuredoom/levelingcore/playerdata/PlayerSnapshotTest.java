@@ -0,0 +1,59 @@
+package com.azuredoom.levelingcore.playerdata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerSnapshotTest {
+
+    private static final PlayerSnapshot BASE = new PlayerSnapshot(100L, 1, 2, 3, 4, 5, 6, 7, 8);
+
+    @Test
+    void rebaseAddsLocalXpDeltaToRemoteXp() {
+        var local = BASE.withXp(150L);
+        var remote = BASE.withXp(400L);
+
+        assertEquals(450L, local.rebase(BASE, remote).xp());
+    }
+
+    @Test
+    void rebaseKeepsRemoteXpLossesAndGains() {
+        var local = BASE.withXp(80L);
+        var remote = BASE.withXp(300L);
+
+        assertEquals(280L, local.rebase(BASE, remote).xp());
+    }
+
+    @Test
+    void rebaseClampsMergedXpAtZero() {
+        var local = BASE.withXp(0L);
+        var remote = BASE.withXp(50L);
+
+        assertEquals(0L, local.rebase(BASE, remote).xp());
+    }
+
+    @Test
+    void rebaseTakesLocallyChangedFieldsAndRemoteValuesOtherwise() {
+        var local = BASE.withStr(10).withUsedAbilityPoints(9);
+        var remote = BASE.withAgi(20).withCon(30).withAbilityPoints(12);
+
+        var merged = local.rebase(BASE, remote);
+
+        assertEquals(new PlayerSnapshot(100L, 10, 20, 3, 4, 5, 30, 12, 9), merged);
+    }
+
+    @Test
+    void rebasePrefersLocalValueWhenBothSidesChangedTheSameField() {
+        var local = BASE.withVit(11);
+        var remote = BASE.withVit(22);
+
+        assertEquals(11, local.rebase(BASE, remote).vit());
+    }
+
+    @Test
+    void rebaseWithoutLocalChangesYieldsRemoteSnapshot() {
+        var remote = new PlayerSnapshot(999L, 9, 8, 7, 6, 5, 4, 3, 2);
+
+        assertEquals(remote, BASE.rebase(BASE, remote));
+    }
+}